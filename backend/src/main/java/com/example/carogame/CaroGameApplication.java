@@ -2,8 +2,10 @@ package com.example.carogame;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CaroGameApplication {
     public static void main(String[] args) {
         SpringApplication.run(CaroGameApplication.class, args);
@@ -0,0 +1,171 @@
+package com.example.carogame.ai;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.example.carogame.model.BitBoard;
+
+/**
+ * Sách khai cuộc chỉ đọc, ánh xạ bộ nhớ (mmap) từ file nên mở gần như tức thì khi khởi động.
+ *
+ * Khóa là hash chuẩn hóa của thế cờ: giá trị nhỏ nhất của hash Zobrist qua 8 phép đối xứng của
+ * bàn vuông (4 phép quay x lật), nên các thế cờ đối xứng dùng chung một mục. Nước đi được lưu theo
+ * hướng chuẩn và được biến đổi ngược lại khi tra cứu.
+ *
+ * File: [MAGIC][số phần] rồi bảng phần (size, số mục, offset), mỗi phần là các mục 16 byte
+ * (key long, cell int, score int) sắp tăng dần theo key để tìm nhị phân.
+ */
+public final class OpeningBook {
+
+    public static final int MAGIC = 0x43424B31; // "CBK1"
+    static final int ENTRY_BYTES = 16;
+    static final int SECTION_BYTES = 16;
+    // 8 phép đối xứng: 0 giữ nguyên, 1-3 quay 90/180/270, 4-7 lật dọc / chéo chính / ngang / chéo phụ
+    static final int SYMMETRIES = 8;
+
+    private static final OpeningBook EMPTY = new OpeningBook(null, Map.of());
+
+    private final MappedByteBuffer buffer;
+    // size -> [offset, entryCount]
+    private final Map<Integer, long[]> sections;
+
+    private OpeningBook(MappedByteBuffer buffer, Map<Integer, long[]> sections) {
+        this.buffer = buffer;
+        this.sections = sections;
+    }
+
+    public static OpeningBook empty() {
+        return EMPTY;
+    }
+
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            int sectionCount = buffer.getInt(4);
+            Map<Integer, long[]> sections = new HashMap<>();
+            for (int i = 0; i < sectionCount; i++) {
+                int base = 8 + i * SECTION_BYTES;
+                sections.put(buffer.getInt(base), new long[] {buffer.getLong(base + 8), buffer.getInt(base + 4)});
+            }
+            return new OpeningBook(buffer, sections);
+        }
+    }
+
+    /**
+     * Mở file nếu tồn tại, nếu không (hoặc lỗi) trả về sách rỗng
+     */
+    public static OpeningBook openOrEmpty(Path path) {
+        if (path == null || !Files.isRegularFile(path)) {
+            return EMPTY;
+        }
+        try {
+            return open(path);
+        } catch (IOException e) {
+            System.err.println("Error loading opening book " + path + ": " + e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    public int entryCount(int size) {
+        long[] section = sections.get(size);
+        return section != null ? (int) section[1] : 0;
+    }
+
+    /**
+     * Nước đi trong sách cho thế cờ (row * size + col), hoặc -1 nếu không có
+     */
+    public int lookup(BitBoard board) {
+        int size = board.getSize();
+        long[] section = sections.get(size);
+        if (section == null) {
+            return -1;
+        }
+
+        long[] canonical = canonical(board);
+        long key = canonical[0];
+        int transform = (int) canonical[1];
+
+        int index = find(section[0], (int) section[1], key);
+        if (index < 0) {
+            return -1;
+        }
+        int stored = buffer.getInt((int) (section[0] + (long) index * ENTRY_BYTES + 8));
+        int cell = apply(inverse(transform), stored, size);
+        return board.isEmpty(cell / size, cell % size) ? cell : -1;
+    }
+
+    private int find(long offset, int count, long key) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long value = buffer.getLong((int) (offset + (long) mid * ENTRY_BYTES));
+            int cmp = Long.compareUnsigned(value, key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Hash chuẩn hóa (nhỏ nhất theo thứ tự không dấu) và chỉ số phép biến đổi đạt được nó
+     */
+    static long[] canonical(BitBoard board) {
+        Zobrist zobrist = Zobrist.forSize(board.getSize());
+        long key = hash(board, zobrist, 0);
+        int transform = 0;
+        for (int t = 1; t < SYMMETRIES; t++) {
+            long hash = hash(board, zobrist, t);
+            if (Long.compareUnsigned(hash, key) < 0) {
+                key = hash;
+                transform = t;
+            }
+        }
+        return new long[] {key, transform};
+    }
+
+    static long hash(BitBoard board, Zobrist zobrist, int transform) {
+        int size = board.getSize();
+        long hash = 0;
+        for (int i = 0; i < board.getStoneCount(); i++) {
+            int cell = board.getMoveAt(i);
+            int target = apply(transform, cell, size);
+            hash ^= zobrist.key(board.get(cell / size, cell % size), target / size, target % size);
+        }
+        return hash;
+    }
+
+    static int apply(int transform, int cell, int size) {
+        int r = cell / size;
+        int c = cell % size;
+        int n = size - 1;
+        switch (transform) {
+            case 1: return c * size + (n - r);
+            case 2: return (n - r) * size + (n - c);
+            case 3: return (n - c) * size + r;
+            case 4: return r * size + (n - c);
+            case 5: return c * size + r;
+            case 6: return (n - r) * size + c;
+            case 7: return (n - c) * size + (n - r);
+            default: return cell;
+        }
+    }
+
+    static int inverse(int transform) {
+        return transform == 1 ? 3 : transform == 3 ? 1 : transform;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.carogame.ai;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.example.carogame.model.BitBoard;
+import com.example.carogame.model.BoardType;
+
+/**
+ * Tạo file sách khai cuộc offline bằng SearchEngine.
+ *
+ * Duyệt theo chiều rộng từ bàn trống tới độ sâu plies: mỗi thế cờ (đã chuẩn hóa đối xứng) được
+ * tìm nước tốt nhất và ghi vào sách; các thế con là mọi nước sát quân đã có (khoảng cách 1).
+ *
+ * Chạy: java -cp target/classes com.example.carogame.ai.OpeningBookGenerator
+ *           [output=opening-book.bin] [plies=3] [thinkMs=300] [maxPositions=20000] [sizes=10,15,...]
+ */
+public final class OpeningBookGenerator {
+
+    private OpeningBookGenerator() {}
+
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args.length > 0 ? args[0] : "opening-book.bin");
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        long thinkMs = args.length > 2 ? Long.parseLong(args[2]) : 300;
+        int maxPositions = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+        int[] sizes = args.length > 4
+                ? Arrays.stream(args[4].split(",")).mapToInt(Integer::parseInt).toArray()
+                : Arrays.stream(BoardType.values()).mapToInt(BoardType::getSize).toArray();
+
+        Map<Integer, TreeMap<Long, int[]>> book = new TreeMap<>();
+        for (int size : sizes) {
+            long start = System.currentTimeMillis();
+            TreeMap<Long, int[]> entries = generate(size, plies, thinkMs, maxPositions);
+            book.put(size, entries);
+            System.out.println("Size " + size + ": " + entries.size() + " positions in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
+
+        write(output, book);
+        System.out.println("Opening book written to " + output.toAbsolutePath());
+    }
+
+    private static TreeMap<Long, int[]> generate(int size, int plies, long thinkMs, int maxPositions) {
+        // Sắp theo key không dấu để khớp với tìm nhị phân của OpeningBook
+        TreeMap<Long, int[]> entries = new TreeMap<>(Long::compareUnsigned);
+        SearchEngine engine = new SearchEngine(new TranspositionTable(20));
+
+        List<BitBoard> level = new ArrayList<>();
+        level.add(new BitBoard(size));
+        for (int ply = 0; ply <= plies && !level.isEmpty(); ply++) {
+            List<BitBoard> next = new ArrayList<>();
+            for (BitBoard position : level) {
+                if (entries.size() >= maxPositions) {
+                    return entries;
+                }
+                long[] canonical = OpeningBook.canonical(position);
+                if (entries.containsKey(canonical[0])) {
+                    continue;
+                }
+
+                int side = position.getStoneCount() % 2 == 0 ? BitBoard.X : BitBoard.O;
+                SearchResult result = engine.search(position, side, thinkMs, 64);
+                if (result == null) {
+                    continue;
+                }
+                int cell = OpeningBook.apply((int) canonical[1], result.row() * size + result.col(), size);
+                entries.put(canonical[0], new int[] {cell, result.score()});
+
+                if (ply < plies) {
+                    expand(position, side, next);
+                }
+            }
+            level = next;
+        }
+        return entries;
+    }
+
+    // Các thế con: mọi ô trống kề (khoảng cách 1) quân đã có, hoặc tâm bàn khi bàn trống
+    private static void expand(BitBoard position, int side, List<BitBoard> next) {
+        int size = position.getSize();
+        if (position.getStoneCount() == 0) {
+            BitBoard child = position.copy();
+            child.place(size / 2, size / 2, side);
+            next.add(child);
+            return;
+        }
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (position.isEmpty(row, col) && hasNeighbor(position, row, col)) {
+                    BitBoard child = position.copy();
+                    child.place(row, col, side);
+                    if (!child.getThreats().hasFive(side)) {
+                        next.add(child);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean hasNeighbor(BitBoard position, int row, int col) {
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                int r = row + dr;
+                int c = col + dc;
+                if ((dr != 0 || dc != 0) && position.isInside(r, c) && !position.isEmpty(r, c)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void write(Path output, Map<Integer, TreeMap<Long, int[]>> book) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(book.size());
+
+            long offset = 8L + (long) book.size() * OpeningBook.SECTION_BYTES;
+            for (Map.Entry<Integer, TreeMap<Long, int[]>> section : book.entrySet()) {
+                out.writeInt(section.getKey());
+                out.writeInt(section.getValue().size());
+                out.writeLong(offset);
+                offset += (long) section.getValue().size() * OpeningBook.ENTRY_BYTES;
+            }
+
+            for (TreeMap<Long, int[]> entries : book.values()) {
+                for (Map.Entry<Long, int[]> entry : entries.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    out.writeInt(entry.getValue()[0]);
+                    out.writeInt(entry.getValue()[1]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.carogame.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.example.carogame.model.BitBoard;
+
+/**
+ * Lazy SMP: nhiều SearchEngine cùng tìm trên một thế cờ, chia sẻ một bảng chuyển vị không khóa.
+ *
+ * Các luồng không chia việc với nhau; luồng phụ lệch độ sâu và thứ tự nước ở gốc nên điền vào
+ * bảng các nhánh mà luồng chính sẽ gặp sau đó. Khi luồng chính xong, các luồng phụ được dừng và
+ * kết quả có độ sâu hoàn tất lớn nhất được chọn. Số luồng CPU dùng cho AI bị giới hạn bởi pool.
+ */
+public class ParallelSearch {
+
+    private final ForkJoinPool pool;
+    private final TranspositionTable table;
+
+    public ParallelSearch(ForkJoinPool pool, TranspositionTable table) {
+        this.pool = pool;
+        this.table = table;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Tìm với workers luồng (tối đa bằng parallelism của pool). Trả về null nếu bàn đã đầy.
+     */
+    public SearchResult search(BitBoard position, int side, long timeLimitMillis, int maxDepth, int workers) {
+        int count = Math.max(1, Math.min(workers, pool.getParallelism()));
+        AtomicBoolean stop = new AtomicBoolean();
+
+        List<ForkJoinTask<SearchResult>> helpers = new ArrayList<>(count - 1);
+        for (int worker = 1; worker < count; worker++) {
+            int index = worker;
+            helpers.add(pool.submit(() ->
+                    new SearchEngine(table).search(position, side, timeLimitMillis, maxDepth, stop, index)));
+        }
+
+        SearchResult best;
+        try {
+            best = pool.submit(() -> new SearchEngine(table).search(position, side, timeLimitMillis, maxDepth, stop, 0))
+                    .join();
+        } finally {
+            stop.set(true);
+        }
+
+        long nodes = best != null ? best.nodes() : 0;
+        for (ForkJoinTask<SearchResult> helper : helpers) {
+            SearchResult result = helper.join();
+            if (result == null) {
+                continue;
+            }
+            nodes += result.nodes();
+            if (best != null && (result.depth() > best.depth() || result.isWinning() && !best.isWinning())) {
+                best = result;
+            }
+        }
+
+        return best == null ? null
+                : new SearchResult(best.row(), best.col(), best.score(), best.depth(), nodes, best.elapsedMillis());
+    }
+}
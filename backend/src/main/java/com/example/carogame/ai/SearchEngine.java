@@ -0,0 +1,285 @@
+package com.example.carogame.ai;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.example.carogame.model.BitBoard;
+
+/**
+ * Tìm nước đi bằng iterative deepening alpha-beta (negamax) trên BitBoard.
+ *
+ * Chỉ xét các ô trống cách quân đã có tối đa 2 ô, sắp xếp theo heuristic cục bộ và nước tốt nhất
+ * trong bảng chuyển vị (khóa Zobrist). Lượng giá lá dùng ThreatTracker của bàn cờ.
+ * Một instance không dùng đồng thời từ nhiều luồng; nhiều instance có thể dùng chung một
+ * bảng chuyển vị (lazy SMP, xem ParallelSearch).
+ */
+public class SearchEngine {
+
+    public static final int WIN_SCORE = 100_000_000;
+
+    private static final int ROOT_CANDIDATES = 24;
+    private static final int NODE_CANDIDATES = 12;
+    private static final int NEIGHBOR_DISTANCE = 2;
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    private static final int[] RUN_WEIGHTS = {0, 1, 12, 150, 2_000, 30_000};
+
+    private final TranspositionTable table;
+
+    // Trạng thái của lần tìm kiếm hiện tại
+    private BitBoard board;
+    private Zobrist zobrist;
+    private int size;
+    private long hash;
+    private long deadline;
+    private long nodes;
+    private boolean aborted;
+    private AtomicBoolean stop;
+
+    public SearchEngine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Tìm nước cho side trên bản sao của position, dừng khi hết thời gian hoặc đạt maxDepth.
+     * Trả về null nếu bàn đã đầy.
+     */
+    public SearchResult search(BitBoard position, int side, long timeLimitMillis, int maxDepth) {
+        return search(position, side, timeLimitMillis, maxDepth, new AtomicBoolean(), 0);
+    }
+
+    /**
+     * Như trên, dừng thêm khi stop được bật. worker > 0 là luồng phụ của lazy SMP: bắt đầu lệch
+     * độ sâu và xoay thứ tự nước ở gốc để các luồng không đi cùng một đường.
+     */
+    public SearchResult search(BitBoard position, int side, long timeLimitMillis, int maxDepth,
+            AtomicBoolean stop, int worker) {
+        long start = System.nanoTime();
+        this.stop = stop;
+        this.board = position.copy();
+        this.size = board.getSize();
+        this.zobrist = Zobrist.forSize(size);
+        this.hash = zobrist.hash(board);
+        this.deadline = start + timeLimitMillis * 1_000_000L;
+        this.nodes = 0;
+        this.aborted = false;
+
+        int[] rootMoves = generate(side, -1, ROOT_CANDIDATES);
+        if (rootMoves.length == 0) {
+            return null;
+        }
+
+        if (worker > 0 && rootMoves.length > 1) {
+            rotate(rootMoves, worker % rootMoves.length);
+        }
+
+        int bestMove = rootMoves[0];
+        int bestScore = 0;
+        int completedDepth = 0;
+
+        for (int depth = 1 + (worker & 1); depth <= maxDepth; depth++) {
+            int alpha = -WIN_SCORE - 1;
+            int depthBestMove = -1;
+            int depthBestScore = alpha;
+
+            // Nước tốt nhất của độ sâu trước được xét đầu tiên
+            moveToFront(rootMoves, bestMove);
+            for (int cell : rootMoves) {
+                int score = searchMove(cell, side, depth, alpha, WIN_SCORE + 1, 0);
+                if (aborted) {
+                    break;
+                }
+                if (score > depthBestScore) {
+                    depthBestScore = score;
+                    depthBestMove = cell;
+                }
+                alpha = Math.max(alpha, score);
+            }
+
+            if (aborted) {
+                break;
+            }
+            bestMove = depthBestMove;
+            bestScore = depthBestScore;
+            completedDepth = depth;
+            if (Math.abs(bestScore) >= WIN_SCORE - 1000) {
+                break; // Đã thấy thắng / thua bắt buộc
+            }
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000L;
+        return new SearchResult(bestMove / size, bestMove % size, bestScore, completedDepth, nodes, elapsed);
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    private int searchMove(int cell, int side, int depth, int alpha, int beta, int ply) {
+        int row = cell / size;
+        int col = cell % size;
+        board.place(row, col, side);
+        hash ^= zobrist.key(side, row, col);
+
+        int score;
+        if (board.getThreats().hasFive(side)) {
+            score = WIN_SCORE - ply;
+        } else if (board.isFull()) {
+            score = 0;
+        } else {
+            score = -negamax(depth - 1, -beta, -alpha, 1 - side, ply + 1);
+        }
+
+        board.undo();
+        hash ^= zobrist.key(side, row, col);
+        return score;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int side, int ply) {
+        if ((++nodes & 1023) == 0 && (System.nanoTime() > deadline || stop.get())) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        if (depth == 0) {
+            return board.getThreats().evaluate(side);
+        }
+
+        int alphaOriginal = alpha;
+        int ttMove = -1;
+        long entry = table.probe(hash);
+        if (entry != 0) {
+            ttMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry);
+                int flag = TranspositionTable.flag(entry);
+                if (flag == TranspositionTable.EXACT) {
+                    return score;
+                } else if (flag == TranspositionTable.LOWER_BOUND) {
+                    alpha = Math.max(alpha, score);
+                } else {
+                    beta = Math.min(beta, score);
+                }
+                if (alpha >= beta) {
+                    return score;
+                }
+            }
+        }
+
+        int[] moves = generate(side, ttMove, NODE_CANDIDATES);
+        int best = -WIN_SCORE - 1;
+        int bestMove = -1;
+        for (int cell : moves) {
+            int score = searchMove(cell, side, depth, alpha, beta, ply);
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = cell;
+            }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int flag = best <= alphaOriginal ? TranspositionTable.UPPER_BOUND
+                : best >= beta ? TranspositionTable.LOWER_BOUND
+                : TranspositionTable.EXACT;
+        table.store(hash, depth, flag, best, bestMove);
+        return best;
+    }
+
+    /**
+     * Ô ứng viên (row * size + col) cho side, sắp xếp giảm dần theo heuristic, tối đa limit ô
+     */
+    private int[] generate(int side, int ttMove, int limit) {
+        if (board.getStoneCount() == 0) {
+            return new int[] {(size / 2) * size + size / 2};
+        }
+
+        long fullRow = size == 64 ? -1L : (1L << size) - 1;
+        long[] occupied = new long[size];
+        for (int row = 0; row < size; row++) {
+            occupied[row] = board.occupiedRow(row);
+        }
+
+        int[] cells = new int[size * size];
+        int[] scores = new int[size * size];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            long around = 0;
+            for (int r = Math.max(0, row - NEIGHBOR_DISTANCE); r <= Math.min(size - 1, row + NEIGHBOR_DISTANCE); r++) {
+                long m = occupied[r];
+                for (int shift = 1; shift <= NEIGHBOR_DISTANCE; shift++) {
+                    m |= (occupied[r] << shift) | (occupied[r] >>> shift);
+                }
+                around |= m;
+            }
+            long candidates = around & ~occupied[row] & fullRow;
+            while (candidates != 0) {
+                int col = Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                int cell = row * size + col;
+                int score = cell == ttMove ? Integer.MAX_VALUE : scoreCell(row, col, side);
+
+                // Chèn giữ thứ tự giảm dần
+                int i = count++;
+                while (i > 0 && scores[i - 1] < score) {
+                    scores[i] = scores[i - 1];
+                    cells[i] = cells[i - 1];
+                    i--;
+                }
+                scores[i] = score;
+                cells[i] = cell;
+            }
+        }
+
+        int[] result = new int[Math.min(count, limit)];
+        System.arraycopy(cells, 0, result, 0, result.length);
+        return result;
+    }
+
+    // Tổng trọng số các chuỗi quân liền kề ô theo 4 hướng, tấn công nặng hơn phòng thủ một chút
+    private int scoreCell(int row, int col, int side) {
+        int score = 0;
+        for (int[] dir : DIRECTIONS) {
+            for (int s = BitBoard.X; s <= BitBoard.O; s++) {
+                int run = countRun(row, col, dir[0], dir[1], s) + countRun(row, col, -dir[0], -dir[1], s);
+                int weight = RUN_WEIGHTS[Math.min(run + 1, RUN_WEIGHTS.length - 1)];
+                score += s == side ? weight + weight / 4 : weight;
+            }
+        }
+        return score;
+    }
+
+    private int countRun(int row, int col, int dRow, int dCol, int side) {
+        int run = 0;
+        int r = row + dRow;
+        int c = col + dCol;
+        while (run < BitBoard.WIN_LENGTH && r >= 0 && r < size && c >= 0 && c < size && board.get(r, c) == side) {
+            run++;
+            r += dRow;
+            c += dCol;
+        }
+        return run;
+    }
+
+    // Xoay trái danh sách offset vị trí
+    private static void rotate(int[] moves, int offset) {
+        int[] head = new int[offset];
+        System.arraycopy(moves, 0, head, 0, offset);
+        System.arraycopy(moves, offset, moves, 0, moves.length - offset);
+        System.arraycopy(head, 0, moves, moves.length - offset, offset);
+    }
+
+    private static void moveToFront(int[] moves, int move) {
+        for (int i = 0; i < moves.length; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.carogame.ai;
+
+/**
+ * Kết quả một lần tìm kiếm: nước đi tốt nhất và thống kê
+ */
+public record SearchResult(int row, int col, int score, int depth, long nodes, long elapsedMillis) {
+
+    public boolean isWinning() {
+        return score >= SearchEngine.WIN_SCORE - 1000;
+    }
+}
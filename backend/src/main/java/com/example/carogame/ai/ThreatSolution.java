@@ -0,0 +1,9 @@
+package com.example.carogame.ai;
+
+/**
+ * Kết quả của ThreatSolver. line là chuỗi nước (row * size + col) xen kẽ bắt đầu từ bên tấn công,
+ * với mỗi nước phòng thủ chỉ giữ một nhánh tiêu biểu.
+ */
+public record ThreatSolution(ThreatSolver.Status status, ThreatSolver.Kind kind, int attacker, int size,
+        int[] line, long nodes, long elapsedMillis) {
+}
@@ -0,0 +1,313 @@
+package com.example.carogame.ai;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.example.carogame.model.BitBoard;
+import com.example.carogame.model.ThreatTracker;
+
+/**
+ * Chứng minh thắng bắt buộc bằng tìm kiếm không gian đe dọa: VCF (liên tục tạo bốn) rồi VCT
+ * (bốn hoặc ba mở). Bên tấn công chỉ đi các nước tạo đe dọa, bên phòng thủ chỉ xét các nước
+ * chặn đe dọa đó, nên cây nhỏ hơn nhiều so với alpha-beta.
+ *
+ * Kết quả WIN là chắc chắn trong mô hình này; riêng với ba mở, nếu bên phòng thủ có thể phản
+ * công bằng một nước bốn thì coi như đã chặn được (thận trọng, có thể bỏ sót thắng).
+ * Một instance không dùng đồng thời từ nhiều luồng.
+ */
+public class ThreatSolver {
+
+    public enum Status {
+        WIN,        // Tìm được chuỗi thắng bắt buộc
+        NO_WIN,     // Đã duyệt hết (trong giới hạn độ sâu) mà không thấy
+        UNKNOWN     // Hết ngân sách node / thời gian
+    }
+
+    public enum Kind {
+        VCF,
+        VCT
+    }
+
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    private static final int MAX_VCF_DEPTH = 30;
+    private static final int MAX_VCT_DEPTH = 8;
+    private static final int NOT_FORCED = -1;
+    private static final int LOST = -2;
+    private static final long VCT_SALT = 0x9E3779B97F4A7C15L;
+
+    private BitBoard board;
+    private Zobrist zobrist;
+    private int size;
+    private int attacker;
+    private int defender;
+    private long hash;
+
+    private long nodeBudget;
+    private long deadline;
+    private long nodes;
+    private boolean aborted;
+
+    private int[] path;
+    private int[] scratch;
+    private int solutionLength;
+    // Thế đã chứng minh không thắng -> số nước tấn công còn lại lúc thử; bỏ đi sau mỗi lần giải
+    // để bộ giải nằm chờ không giữ bảng cỡ ngân sách nút
+    private Map<Long, Integer> failed = new HashMap<>();
+
+    /**
+     * Tìm thắng bắt buộc cho attacker (bên đang tới lượt) trên bản sao của position
+     */
+    public ThreatSolution solve(BitBoard position, int attacker, long nodeBudget, long timeBudgetMillis) {
+        try {
+            return doSolve(position, attacker, nodeBudget, timeBudgetMillis);
+        } finally {
+            // Trả lại bộ nhớ của lần giải (clear() vẫn giữ mảng bảng băm đã phình)
+            failed = new HashMap<>();
+            board = null;
+            path = null;
+            scratch = null;
+        }
+    }
+
+    private ThreatSolution doSolve(BitBoard position, int attacker, long nodeBudget, long timeBudgetMillis) {
+        long start = System.nanoTime();
+        this.board = position.copy();
+        this.size = board.getSize();
+        this.zobrist = Zobrist.forSize(size);
+        this.hash = zobrist.hash(board);
+        this.attacker = attacker;
+        this.defender = 1 - attacker;
+        this.nodeBudget = nodeBudget;
+        this.deadline = start + timeBudgetMillis * 1_000_000L;
+        this.nodes = 0;
+        this.aborted = false;
+        this.path = new int[size * size];
+        this.scratch = new int[4 * size];
+        this.solutionLength = 0;
+
+        Status status = Status.NO_WIN;
+        Kind kind = null;
+
+        boolean finished = board.getThreats().hasFive(BitBoard.X) || board.getThreats().hasFive(BitBoard.O);
+        int five = finished ? -1 : findFiveCell(attacker);
+        if (finished) {
+            // Ván đã kết thúc, không còn gì để chứng minh
+        } else if (five >= 0) {
+            path[0] = five;
+            solutionLength = 1;
+            status = Status.WIN;
+            kind = Kind.VCF;
+        } else {
+            int forced = forcedReply(findFiveCells(defender));
+            if (vcf(forced, 0, MAX_VCF_DEPTH)) {
+                status = Status.WIN;
+                kind = Kind.VCF;
+            } else {
+                // VCT tăng dần độ sâu để tìm chuỗi ngắn trước khi cây phình ra
+                for (int depth = 1; depth <= MAX_VCT_DEPTH && !aborted; depth++) {
+                    if (vct(forced, 0, depth)) {
+                        status = Status.WIN;
+                        kind = Kind.VCT;
+                        break;
+                    }
+                }
+            }
+            if (aborted && status != Status.WIN) {
+                status = Status.UNKNOWN;
+            }
+        }
+
+        int[] line = new int[status == Status.WIN ? solutionLength : 0];
+        System.arraycopy(path, 0, line, 0, line.length);
+        long elapsed = (System.nanoTime() - start) / 1_000_000L;
+        return new ThreatSolution(status, kind, attacker, size, line, nodes, elapsed);
+    }
+
+    private boolean vcf(int forced, int ply, int depthLeft) {
+        return search(forced, ply, depthLeft, false);
+    }
+
+    private boolean vct(int forced, int ply, int depthLeft) {
+        return search(forced, ply, depthLeft, true);
+    }
+
+    // Nút OR: bên tấn công chọn một nước đe dọa
+    private boolean search(int forced, int ply, int depthLeft, boolean allowThree) {
+        if (tick() || forced == LOST || depthLeft == 0) {
+            return false;
+        }
+        long key = allowThree ? hash ^ VCT_SALT : hash;
+        Integer tried = failed.get(key);
+        if (tried != null && tried >= depthLeft) {
+            return false;
+        }
+
+        int[] moves = forced >= 0 ? new int[] {forced} : candidates(attacker);
+        for (int cell : moves) {
+            if (attack(cell, ply, depthLeft, allowThree)) {
+                return true;
+            }
+            if (aborted) {
+                return false;
+            }
+        }
+
+        failed.put(key, depthLeft);
+        return false;
+    }
+
+    private boolean attack(int cell, int ply, int depthLeft, boolean allowThree) {
+        int threesBefore = board.getThreats().count(attacker, ThreatTracker.OPEN_THREE);
+        place(attacker, cell);
+        path[ply] = cell;
+        try {
+            if (board.getThreats().hasFive(attacker)) {
+                solutionLength = ply + 1;
+                return true;
+            }
+
+            int[] fives = fiveCellsThrough(attacker, cell);
+            if (fives.length >= 2) {
+                // Bốn mở / hai bốn: chặn một đầu thì thắng đầu kia
+                path[ply + 1] = fives[0];
+                path[ply + 2] = fives[1];
+                solutionLength = ply + 3;
+                return true;
+            }
+            if (fives.length == 1) {
+                return defend(fives, ply + 1, depthLeft, allowThree, false);
+            }
+            if (allowThree && board.getThreats().count(attacker, ThreatTracker.OPEN_THREE) > threesBefore) {
+                return defend(lineCells(cell), ply + 1, depthLeft, true, true);
+            }
+            return false;
+        } finally {
+            undo(attacker, cell);
+        }
+    }
+
+    // Nút AND: mọi nước chặn của bên phòng thủ đều phải dẫn tới thắng
+    private boolean defend(int[] replies, int ply, int depthLeft, boolean allowThree, boolean threeThreat) {
+        if (threeThreat && board.canMakeFour(defender)) {
+            return false;
+        }
+        // Giữ lại nhánh phòng thủ kéo dài nhất làm đường chính
+        int[] longest = new int[0];
+        for (int reply : replies) {
+            place(defender, reply);
+            path[ply] = reply;
+            boolean win;
+            if (board.getThreats().hasFive(defender)) {
+                win = false;
+            } else {
+                int forced = forcedReply(fiveCellsThrough(defender, reply));
+                win = search(forced, ply + 1, depthLeft - 1, allowThree);
+            }
+            undo(defender, reply);
+            if (!win) {
+                return false;
+            }
+            if (solutionLength - ply > longest.length) {
+                longest = Arrays.copyOfRange(path, ply, solutionLength);
+            }
+        }
+        System.arraycopy(longest, 0, path, ply, longest.length);
+        solutionLength = ply + longest.length;
+        return true;
+    }
+
+    private boolean tick() {
+        if (++nodes > nodeBudget || ((nodes & 255) == 0 && System.nanoTime() > deadline)) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    private static int forcedReply(int[] opponentFives) {
+        return opponentFives.length == 0 ? NOT_FORCED : opponentFives.length == 1 ? opponentFives[0] : LOST;
+    }
+
+    private int findFiveCell(int side) {
+        int[] cells = findFiveCells(side);
+        return cells.length > 0 ? cells[0] : -1;
+    }
+
+    // Các ô trống mà side đặt vào là thành năm
+    private int[] findFiveCells(int side) {
+        int[] cells = candidates(side);
+        int[] result = new int[cells.length];
+        int count = 0;
+        for (int cell : cells) {
+            place(side, cell);
+            if (board.getThreats().hasFive(side)) {
+                result[count++] = cell;
+            }
+            undo(side, cell);
+        }
+        return trim(result, count);
+    }
+
+    // Như trên nhưng chỉ xét bốn đường đi qua ô vừa đặt
+    private int[] fiveCellsThrough(int side, int cell) {
+        int count = board.fiveCellsThrough(side, cell / size, cell % size, scratch);
+        return Arrays.copyOf(scratch, count);
+    }
+
+    // Ô trống trên bốn đường qua cell, cách tối đa 4 ô
+    private int[] lineCells(int cell) {
+        int row = cell / size;
+        int col = cell % size;
+        int[] result = new int[32];
+        int count = 0;
+        for (int[] dir : DIRECTIONS) {
+            for (int k = -4; k <= 4; k++) {
+                int r = row + k * dir[0];
+                int c = col + k * dir[1];
+                if (k != 0 && board.isInside(r, c) && board.isEmpty(r, c)) {
+                    result[count++] = r * size + c;
+                }
+            }
+        }
+        return trim(result, count);
+    }
+
+    // Ô trống cách quân của side tối đa 2 ô (mọi nước tạo bốn / ba đều nằm trong vùng này)
+    private int[] candidates(int side) {
+        long fullRow = size == 64 ? -1L : (1L << size) - 1;
+        int[] result = new int[size * size];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            long around = 0;
+            for (int r = Math.max(0, row - 2); r <= Math.min(size - 1, row + 2); r++) {
+                long m = board.sideRow(side, r);
+                around |= m | (m << 1) | (m << 2) | (m >>> 1) | (m >>> 2);
+            }
+            long free = around & ~board.occupiedRow(row) & fullRow;
+            while (free != 0) {
+                result[count++] = row * size + Long.numberOfTrailingZeros(free);
+                free &= free - 1;
+            }
+        }
+        return trim(result, count);
+    }
+
+    private void place(int side, int cell) {
+        board.place(cell / size, cell % size, side);
+        hash ^= zobrist.key(side, cell / size, cell % size);
+    }
+
+    private void undo(int side, int cell) {
+        board.undo();
+        hash ^= zobrist.key(side, cell / size, cell % size);
+    }
+
+    private static int[] trim(int[] values, int count) {
+        if (count == values.length) {
+            return values;
+        }
+        int[] result = new int[count];
+        System.arraycopy(values, 0, result, 0, count);
+        return result;
+    }
+}
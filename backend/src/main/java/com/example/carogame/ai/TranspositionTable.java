@@ -0,0 +1,66 @@
+package com.example.carogame.ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bảng chuyển vị kích thước cố định (2^bits ô) dùng chung không khóa giữa các luồng tìm kiếm.
+ *
+ * Mỗi ô gồm hai long: (key ^ data) và data. Hai lần ghi không nguyên tử với nhau nên một luồng
+ * có thể đọc được nửa cũ nửa mới; khi đó key ^ data không khớp và lần đọc được coi như trượt.
+ * data đóng gói: flag (2 bit) | depth + 1 (8 bit) | move + 1 (16 bit) | score (32 bit cao),
+ * 0 nghĩa là không có. Thay thế ưu tiên độ sâu lớn hơn.
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    private final int mask;
+    private final AtomicLongArray entries;
+
+    public TranspositionTable(int bits) {
+        int capacity = 1 << bits;
+        this.mask = capacity - 1;
+        this.entries = new AtomicLongArray(capacity * 2);
+    }
+
+    /**
+     * Trả về data đã đóng gói của ô khớp khóa, hoặc 0
+     */
+    public long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long data = entries.getOpaque(index + 1);
+        return data != 0 && (entries.getOpaque(index) ^ data) == key ? data : 0;
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 2) & 0xFF) - 1;
+    }
+
+    public static int flag(long data) {
+        return (int) (data & 3);
+    }
+
+    public static int move(long data) {
+        return (int) ((data >>> 10) & 0xFFFF) - 1;
+    }
+
+    public static int score(long data) {
+        return (int) (data >>> 32);
+    }
+
+    public void store(long key, int depth, int flag, int score, int move) {
+        int index = ((int) key & mask) << 1;
+        long existing = entries.getOpaque(index + 1);
+        if (existing != 0 && (entries.getOpaque(index) ^ existing) != key && depth(existing) > depth) {
+            return;
+        }
+        long data = ((long) score << 32)
+                | ((long) ((move + 1) & 0xFFFF) << 10)
+                | ((long) Math.min(depth + 1, 0xFF) << 2)
+                | flag;
+        entries.setOpaque(index, key ^ data);
+        entries.setOpaque(index + 1, data);
+    }
+}
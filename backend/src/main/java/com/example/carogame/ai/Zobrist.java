@@ -0,0 +1,49 @@
+package com.example.carogame.ai;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.carogame.model.BitBoard;
+
+/**
+ * Bảng khóa Zobrist theo kích thước bàn. Seed cố định nên hash của một thế cờ
+ * giống nhau giữa các lần chạy (cần cho opening book và cache phân tích).
+ */
+public final class Zobrist {
+
+    private static final ConcurrentHashMap<Integer, Zobrist> TABLES = new ConcurrentHashMap<>();
+
+    private final int size;
+    // [side][row * size + col]
+    private final long[][] keys;
+
+    private Zobrist(int size) {
+        this.size = size;
+        this.keys = new long[2][size * size];
+        SplittableRandom random = new SplittableRandom(0x5EED_CA20L + size);
+        for (int side = 0; side < 2; side++) {
+            for (int cell = 0; cell < size * size; cell++) {
+                keys[side][cell] = random.nextLong();
+            }
+        }
+    }
+
+    public static Zobrist forSize(int size) {
+        return TABLES.computeIfAbsent(size, Zobrist::new);
+    }
+
+    public long key(int side, int row, int col) {
+        return keys[side][row * size + col];
+    }
+
+    public long hash(BitBoard board) {
+        long hash = 0;
+        for (int i = 0; i < board.getStoneCount(); i++) {
+            int cell = board.getMoveAt(i);
+            int row = cell / size;
+            int col = cell % size;
+            hash ^= key(board.get(row, col), row, col);
+        }
+        return hash;
+    }
+}
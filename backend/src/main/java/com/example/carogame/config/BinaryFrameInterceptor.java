@@ -0,0 +1,105 @@
+package com.example.carogame.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Thương lượng encoding theo session: client gửi header "x-caro-encoding: binary" khi CONNECT.
+ * Với session đó, SUBSCRIBE /topic/game/{gameId} được chuyển sang /topic/game/{gameId}/bin,
+ * nơi GameBroadcaster gửi frame nhị phân. Client cũ không gửi header vẫn nhận JSON.
+ */
+@Component
+public class BinaryFrameInterceptor implements ChannelInterceptor {
+
+    public static final String ENCODING_HEADER = "x-caro-encoding";
+    public static final String BINARY_SUFFIX = "/bin";
+
+    private static final String ENCODING_ATTRIBUTE = "caroEncoding";
+    private static final Pattern GAME_TOPIC = Pattern.compile("^/topic/game/[^/]+$");
+
+    // sessionId -> (subscriptionId -> destination nhị phân)
+    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> subscriberCounts = new ConcurrentHashMap<>();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        StompCommand command = accessor.getCommand();
+
+        switch (command) {
+            case CONNECT -> {
+                String encoding = accessor.getFirstNativeHeader(ENCODING_HEADER);
+                Map<String, Object> attributes = accessor.getSessionAttributes();
+                if ("binary".equalsIgnoreCase(encoding) && attributes != null) {
+                    attributes.put(ENCODING_ATTRIBUTE, "binary");
+                }
+            }
+            case SUBSCRIBE -> {
+                String destination = accessor.getDestination();
+                if (isBinarySession(accessor) && destination != null && GAME_TOPIC.matcher(destination).matches()) {
+                    String binaryDestination = destination + BINARY_SUFFIX;
+                    sessionSubscriptions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                            .put(accessor.getSubscriptionId(), binaryDestination);
+                    subscriberCounts.computeIfAbsent(binaryDestination, d -> new AtomicInteger()).incrementAndGet();
+
+                    StompHeaderAccessor rewritten = StompHeaderAccessor.wrap(message);
+                    rewritten.setDestination(binaryDestination);
+                    return MessageBuilder.createMessage(message.getPayload(), rewritten.getMessageHeaders());
+                }
+            }
+            case UNSUBSCRIBE -> {
+                Map<String, String> subscriptions = sessionSubscriptions.get(accessor.getSessionId());
+                if (subscriptions != null) {
+                    release(subscriptions.remove(accessor.getSubscriptionId()));
+                }
+            }
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    /**
+     * Có client nào đang nhận frame nhị phân của phòng không (tránh mã hóa thừa)
+     */
+    public boolean hasBinarySubscribers(String gameId) {
+        AtomicInteger count = subscriberCounts.get("/topic/game/" + gameId + BINARY_SUFFIX);
+        return count != null && count.get() > 0;
+    }
+
+    private boolean isBinarySession(StompHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        return attributes != null && "binary".equals(attributes.get(ENCODING_ATTRIBUTE));
+    }
+
+    private void release(String destination) {
+        if (destination == null) {
+            return;
+        }
+        subscriberCounts.computeIfPresent(destination, (d, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+}
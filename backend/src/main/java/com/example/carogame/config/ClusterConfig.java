@@ -0,0 +1,27 @@
+package com.example.carogame.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.carogame.service.BroadcastRelay;
+import com.example.carogame.service.ClusterService;
+import com.example.carogame.service.LocalBroadcastRelay;
+import com.example.carogame.service.PeerBroadcastRelay;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Configuration
+public class ClusterConfig {
+
+    // "peer": phát lại qua HTTP cho các node khác; "local": không phát lại (một node hoặc broker dùng chung)
+    @Value("${game.cluster.relay:peer}")
+    private String relay;
+
+    @Bean
+    public BroadcastRelay broadcastRelay(ClusterService clusterService, ObjectMapper objectMapper) {
+        if (clusterService.isEnabled() && "peer".equalsIgnoreCase(relay)) {
+            return new PeerBroadcastRelay(clusterService, objectMapper);
+        }
+        return new LocalBroadcastRelay();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.carogame.config;
+
+import java.util.Map;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.util.MimeType;
+
+import com.example.carogame.model.GameEvent;
+import com.example.carogame.util.GameFrameCodec;
+
+/**
+ * MessageConverter cho frame nhị phân. Chỉ dùng khi content-type là application/octet-stream
+ * và có header x-caro-frame (GameFrameCodec.FRAME_HEADER), mọi message khác vẫn đi qua Jackson như cũ.
+ * content-type phải là octet-stream: StompSubProtocolHandler chỉ gửi BinaryMessage cho kiểu này.
+ * Qua STOMP chỉ có frame sự kiện; snapshot nhị phân lấy qua /api/game/{gameId}?board=binary.
+ */
+public class GameFrameMessageConverter extends AbstractMessageConverter {
+
+    public static final MimeType CONTENT_TYPE = MimeType.valueOf(GameFrameCodec.CONTENT_TYPE);
+
+    public GameFrameMessageConverter() {
+        super(CONTENT_TYPE);
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return GameEvent.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canConvertFrom(Message<?> message, Class<?> targetClass) {
+        // Chỉ mã hóa chiều server -> client
+        return false;
+    }
+
+    @Override
+    protected boolean canConvertTo(Object payload, MessageHeaders headers) {
+        return super.canConvertTo(payload, headers) && isFrame(headers);
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return payload instanceof GameEvent event ? GameFrameCodec.encode(event) : null;
+    }
+
+    private static boolean isFrame(MessageHeaders headers) {
+        if (headers == null) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, ?> nativeHeaders = (Map<String, ?>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+        return nativeHeaders != null && nativeHeaders.containsKey(GameFrameCodec.FRAME_HEADER);
+    }
+}
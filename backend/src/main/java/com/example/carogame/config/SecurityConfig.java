@@ -39,7 +39,9 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
-                .requestMatchers("/api/auth/**", "/ws/**", "/", "/api/games", "/api/board-types", "/api/skins/**", "/api/chat/**", "/api/ranking/**").permitAll()
+                .requestMatchers("/api/auth/**", "/ws/**", "/ws-native/**", "/", "/api/games", "/api/board-types", "/api/skins/**", "/api/chat/**", "/api/ranking/**").permitAll()
+                // Giữa các node, kiểm tra bằng header bí mật trong ClusterController
+                .requestMatchers("/internal/cluster/**").permitAll()
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
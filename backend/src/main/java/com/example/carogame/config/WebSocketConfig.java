@@ -1,11 +1,13 @@
 package com.example.carogame.config;
 
 import java.security.Principal;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.WebSocketHandler;
@@ -23,9 +25,13 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private WebSocketAuthInterceptor webSocketAuthInterceptor;
 
+    @Autowired
+    private BinaryFrameInterceptor binaryFrameInterceptor;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        // /queue: đích riêng của từng user (/user/queue/...), ví dụ kết quả ghép trận
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
     }
 
@@ -33,45 +39,61 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
-                .setHandshakeHandler(new DefaultHandshakeHandler() {
-                    @Override
-                    protected Principal determineUser(ServerHttpRequest request,
-                                                    WebSocketHandler wsHandler,
-                                                    Map<String, Object> attributes) {
-                        // Extract JWT token from query parameters or headers
-                        String token = extractTokenFromRequest(request);
-                        if (token != null) {
-                            return webSocketAuthInterceptor.authenticateToken(token);
-                        }
-                        return null;
-                    }
+                .setHandshakeHandler(jwtHandshakeHandler())
+                .withSockJS();
 
-                    private String extractTokenFromRequest(ServerHttpRequest request) {
-                        // Try to get token from query parameter
-                        String query = request.getURI().getQuery();
-                        if (query != null && query.contains("token=")) {
-                            String[] params = query.split("&");
-                            for (String param : params) {
-                                if (param.startsWith("token=")) {
-                                    return param.substring(6); // Remove "token="
-                                }
-                            }
-                        }
+        // WebSocket thuần (không SockJS) cho client dùng frame nhị phân: SockJS chỉ truyền text
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*")
+                .setHandshakeHandler(jwtHandshakeHandler());
+    }
 
-                        // Try to get token from Authorization header
-                        String authHeader = request.getHeaders().getFirst("Authorization");
-                        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                            return authHeader.substring(7);
-                        }
+    private DefaultHandshakeHandler jwtHandshakeHandler() {
+        return new DefaultHandshakeHandler() {
+            @Override
+            protected Principal determineUser(ServerHttpRequest request,
+                                            WebSocketHandler wsHandler,
+                                            Map<String, Object> attributes) {
+                // Extract JWT token from query parameters or headers
+                String token = extractTokenFromRequest(request);
+                if (token != null) {
+                    return webSocketAuthInterceptor.authenticateToken(token);
+                }
+                return null;
+            }
 
-                        return null;
+            private String extractTokenFromRequest(ServerHttpRequest request) {
+                // Try to get token from query parameter
+                String query = request.getURI().getQuery();
+                if (query != null && query.contains("token=")) {
+                    String[] params = query.split("&");
+                    for (String param : params) {
+                        if (param.startsWith("token=")) {
+                            return param.substring(6); // Remove "token="
+                        }
                     }
-                })
-                .withSockJS();
+                }
+
+                // Try to get token from Authorization header
+                String authHeader = request.getHeaders().getFirst("Authorization");
+                if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                    return authHeader.substring(7);
+                }
+
+                return null;
+            }
+        };
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(webSocketAuthInterceptor);
+        registration.interceptors(webSocketAuthInterceptor, binaryFrameInterceptor);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(new GameFrameMessageConverter());
+        // true: vẫn thêm các converter mặc định (Jackson) phía sau
+        return true;
     }
 }
@@ -5,22 +5,18 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
-import com.example.carogame.service.GameService;
+import com.example.carogame.service.RoomCommandService;
 
 @Component
 public class WebSocketEventListener {
 
     @Autowired
-    private GameService gameService;
-
-    @Autowired
-    private SimpMessageSendingOperations messagingTemplate;
+    private RoomCommandService roomCommandService;
 
     // Theo dõi mapping giữa session và thông tin game/player
     private Map<String, String> sessionToGameId = new ConcurrentHashMap<>();
@@ -42,22 +38,8 @@ public class WebSocketEventListener {
         if (gameId != null && playerId != null) {
             System.out.println("Player " + playerId + " disconnected from game " + gameId);
 
-            // Xử lý người chơi thoát game
-            var updatedGame = gameService.leaveGame(gameId, playerId);
-
-            if (updatedGame != null) {
-                // Còn người chơi trong phòng, thông báo game state mới
-                messagingTemplate.convertAndSend("/topic/game/" + gameId, updatedGame);
-
-                // Thông báo riêng về việc người chơi rời phòng
-                messagingTemplate.convertAndSend("/topic/game/" + gameId + "/player-left",
-                    Map.of("playerId", playerId, "message", "Người chơi đã rời phòng"));
-            } else {
-                // Game đã bị xóa do không còn người chơi
-                messagingTemplate.convertAndSend("/topic/game/" + gameId + "/deleted",
-                    Map.of("message", "Phòng đã bị xóa do không còn người chơi"));
-                System.out.println("Game " + gameId + " deleted due to no players");
-            }
+            // Rời phòng qua mailbox của phòng (trên node sở hữu phòng) để giữ thứ tự với các nước đi
+            roomCommandService.disconnect(gameId, playerId);
 
             // Cleanup session tracking
             sessionToGameId.remove(sessionId);
@@ -1,6 +1,8 @@
 package com.example.carogame.controller;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,13 +21,19 @@ import org.springframework.web.bind.annotation.RestController;
 import com.example.carogame.dto.AdminUserDto;
 import com.example.carogame.entity.BoardSkin;
 import com.example.carogame.entity.BoardType;
+import com.example.carogame.entity.GameResult;
 import com.example.carogame.entity.PieceSkin;
 import com.example.carogame.entity.Role;
 import com.example.carogame.entity.User;
 import com.example.carogame.repository.BoardSkinRepository;
 import com.example.carogame.repository.BoardTypeRepository;
+import com.example.carogame.repository.GameResultRepository;
 import com.example.carogame.repository.PieceSkinRepository;
 import com.example.carogame.repository.UserRepository;
+import com.example.carogame.security.TokenVersionCache;
+import com.example.carogame.service.GameResultPipeline;
+import com.example.carogame.service.RankingService;
+import com.example.carogame.service.UserCache;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -45,6 +53,21 @@ public class AdminController {
     @Autowired
     private PieceSkinRepository pieceSkinRepository;
 
+    @Autowired
+    private RankingService rankingService;
+
+    @Autowired
+    private GameResultPipeline gameResultPipeline;
+
+    @Autowired
+    private GameResultRepository gameResultRepository;
+
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+
+    @Autowired
+    private UserCache userCache;
+
     // ================== USER MANAGEMENT ==================
 
     @GetMapping("/users")
@@ -68,6 +91,8 @@ public class AdminController {
         }
 
         User user = optionalUser.get();
+        boolean wasEnabled = user.getEnabled();
+        Role previousRole = user.getRole();
         user.setDisplayName(userDto.getDisplayName());
         user.setEmail(userDto.getEmail());
         user.setBalance(userDto.getBalance());
@@ -77,7 +102,17 @@ public class AdminController {
             user.setRole(Role.valueOf(userDto.getRole()));
         }
 
+        // Quyền hoặc trạng thái nằm trong JWT: thu hồi token cũ để user nhận claims mới
+        boolean revoke = wasEnabled != user.getEnabled() || previousRole != user.getRole();
+        if (revoke) {
+            user.revokeTokens();
+        }
+
         User updatedUser = userRepository.save(user);
+        userCache.saved(updatedUser);
+        if (revoke) {
+            tokenVersionCache.update(updatedUser.getId(), updatedUser.getTokenVersion());
+        }
         return ResponseEntity.ok(updatedUser);
     }
 
@@ -88,6 +123,8 @@ public class AdminController {
         }
 
         userRepository.deleteById(id);
+        tokenVersionCache.evict(id);
+        userCache.evict(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -100,7 +137,10 @@ public class AdminController {
 
         User user = optionalUser.get();
         user.setEnabled(!user.getEnabled());
+        user.revokeTokens();
         User updatedUser = userRepository.save(user);
+        userCache.saved(updatedUser);
+        tokenVersionCache.update(updatedUser.getId(), updatedUser.getTokenVersion());
         return ResponseEntity.ok(updatedUser);
     }
 
@@ -247,6 +287,35 @@ public class AdminController {
         return ResponseEntity.noContent().build();
     }
 
+    // ================== RANKINGS ==================
+
+    // Chạy ngay việc tính lại rank_position (bình thường chạy theo lịch game.ranking.recompute-cron)
+    @PostMapping("/rankings/recompute")
+    public ResponseEntity<Map<String, Object>> recomputeRankings() {
+        long start = System.currentTimeMillis();
+        int updated = rankingService.updateAllRankings();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("updatedRows", updated);
+        response.put("durationMillis", System.currentTimeMillis() - start);
+        return ResponseEntity.ok(response);
+    }
+
+    // Tình trạng hàng đợi kết quả ván: số trong bộ nhớ, đã áp dụng, còn PENDING / FAILED trong DB
+    @GetMapping("/game-results/stats")
+    public ResponseEntity<Map<String, Object>> getGameResultStats() {
+        Map<String, Object> response = new HashMap<>(gameResultPipeline.getStats());
+        response.put("pending", gameResultRepository.countByStatus(GameResult.Status.PENDING));
+        response.put("failedRows", gameResultRepository.countByStatus(GameResult.Status.FAILED));
+        return ResponseEntity.ok(response);
+    }
+
+    // Số user trong cache và hit / miss / eviction
+    @GetMapping("/user-cache/stats")
+    public ResponseEntity<Map<String, Object>> getUserCacheStats() {
+        return ResponseEntity.ok(userCache.getStats());
+    }
+
     // ================== STATISTICS ==================
 
     @GetMapping("/stats")
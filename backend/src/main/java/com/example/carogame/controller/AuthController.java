@@ -21,6 +21,7 @@ import com.example.carogame.dto.AuthResponse;
 import com.example.carogame.dto.LoginRequest;
 import com.example.carogame.dto.RegisterRequest;
 import com.example.carogame.entity.User;
+import com.example.carogame.security.JwtPrincipal;
 import com.example.carogame.service.UserService;
 import com.example.carogame.util.JwtUtil;
 
@@ -107,8 +108,12 @@ public class AuthController {
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentUser(@RequestHeader("Authorization") String token) {
         try {
-            String jwt = token.substring(7); // Remove "Bearer " prefix
-            String username = jwtUtil.extractUsername(jwt);
+            // Principal do filter đặt vào chỉ có khi token hợp lệ và chưa bị thu hồi (token version)
+            JwtPrincipal principal = JwtPrincipal.current();
+            if (principal == null) {
+                throw new IllegalStateException("Token is invalid or revoked");
+            }
+            String username = principal.getUsername();
 
             User user = userService.findByUsername(username).orElse(null);
             if (user != null) {
@@ -1,12 +1,13 @@
 package com.example.carogame.controller;
 
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -22,8 +23,8 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.example.carogame.entity.ChatMessage;
 import com.example.carogame.entity.User;
-import com.example.carogame.repository.ChatMessageRepository;
-import com.example.carogame.repository.UserRepository;
+import com.example.carogame.service.ChatService;
+import com.example.carogame.service.UserCache;
 import com.example.carogame.util.JwtUtil;
 
 @Controller
@@ -31,10 +32,10 @@ import com.example.carogame.util.JwtUtil;
 public class ChatController {
 
     @Autowired
-    private ChatMessageRepository chatMessageRepository;
+    private ChatService chatService;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserCache userCache;
 
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
@@ -50,17 +51,18 @@ public class ChatController {
                                  SimpMessageHeaderAccessor headerAccessor,
                                  Principal principal) {
 
+        validateRoomId(roomId);
+        validateContent(request.getContent());
+
         // Get user from JWT token in WebSocket session
         String username = principal.getName();
-        User sender = userRepository.findByUsername(username)
+        User sender = userCache.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // Create and save chat message
+        // Gửi ngay, lưu DB chạy nền
         ChatMessage message = new ChatMessage(sender, request.getContent(),
                                             ChatMessage.MessageType.CHAT, roomId);
-        message = chatMessageRepository.save(message);
-
-        return message;
+        return chatService.post(message);
     }
 
     // WebSocket endpoint for global chat
@@ -70,15 +72,15 @@ public class ChatController {
                                        SimpMessageHeaderAccessor headerAccessor,
                                        Principal principal) {
 
+        validateContent(request.getContent());
+
         String username = principal.getName();
-        User sender = userRepository.findByUsername(username)
+        User sender = userCache.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         ChatMessage message = new ChatMessage(sender, request.getContent(),
                                             ChatMessage.MessageType.CHAT, null);
-        message = chatMessageRepository.save(message);
-
-        return message;
+        return chatService.post(message);
     }
 
     // WebSocket endpoint for user joining a room
@@ -88,8 +90,10 @@ public class ChatController {
                               SimpMessageHeaderAccessor headerAccessor,
                               Principal principal) {
 
+        validateRoomId(roomId);
+
         String username = principal.getName();
-        User user = userRepository.findByUsername(username)
+        User user = userCache.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Create system message for user joining
@@ -98,9 +102,8 @@ public class ChatController {
             ChatMessage.MessageType.JOIN,
             roomId
         );
-        joinMessage = chatMessageRepository.save(joinMessage);
-
-        return joinMessage;
+        joinMessage.setSender(user);
+        return chatService.post(joinMessage);
     }
 
     // WebSocket endpoint for user leaving a room
@@ -110,8 +113,10 @@ public class ChatController {
                                SimpMessageHeaderAccessor headerAccessor,
                                Principal principal) {
 
+        validateRoomId(roomId);
+
         String username = principal.getName();
-        User user = userRepository.findByUsername(username)
+        User user = userCache.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Create system message for user leaving
@@ -120,48 +125,71 @@ public class ChatController {
             ChatMessage.MessageType.LEAVE,
             roomId
         );
-        leaveMessage = chatMessageRepository.save(leaveMessage);
-
-        return leaveMessage;
+        leaveMessage.setSender(user);
+        return chatService.post(leaveMessage);
     }
 
-    // REST endpoint to get chat history for a room
+    // REST endpoint to get chat history for a room, newest first.
+    // Trang sau: before = id của tin cuối trang trước (thêm beforeCreatedAt = createdAt của tin đó nếu có)
     @GetMapping("/history/{roomId}")
     @ResponseBody
-    public Page<ChatMessage> getChatHistory(@PathVariable String roomId,
-                                          @RequestParam(defaultValue = "0") int page,
-                                          @RequestParam(defaultValue = "50") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return chatMessageRepository.findByRoomIdOrderByCreatedAtDesc(roomId, pageable);
+    public Slice<ChatMessage> getChatHistory(@PathVariable String roomId,
+                                           @RequestParam(required = false) Long before,
+                                           @RequestParam(required = false)
+                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeCreatedAt,
+                                           @RequestParam(defaultValue = "" + ChatService.DEFAULT_HISTORY_PAGE_SIZE) int size) {
+        return chatService.history(roomId, before, beforeCreatedAt, size);
     }
 
-    // REST endpoint to get global chat history
+    // REST endpoint to get global chat history (same cursor parameters as room history)
     @GetMapping("/history/global")
     @ResponseBody
-    public Page<ChatMessage> getGlobalChatHistory(@RequestParam(defaultValue = "0") int page,
-                                                @RequestParam(defaultValue = "50") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return chatMessageRepository.findGlobalMessages(pageable);
+    public Slice<ChatMessage> getGlobalChatHistory(@RequestParam(required = false) Long before,
+                                                 @RequestParam(required = false)
+                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeCreatedAt,
+                                                 @RequestParam(defaultValue = "" + ChatService.DEFAULT_HISTORY_PAGE_SIZE) int size) {
+        return chatService.history(null, before, beforeCreatedAt, size);
     }
 
-    // REST endpoint to get recent messages for a room
+    // REST endpoint to get recent messages for a room (served from the in-memory room buffer)
     @GetMapping("/recent/{roomId}")
     @ResponseBody
     public List<ChatMessage> getRecentMessages(@PathVariable String roomId,
                                              @RequestParam(defaultValue = "20") int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return chatMessageRepository.findRecentMessagesByRoomId(roomId, pageable);
+        return chatService.recent(roomId, limit);
+    }
+
+    // Hàng đợi lưu chat và số phòng đang giữ trong bộ nhớ
+    @GetMapping("/metrics")
+    @ResponseBody
+    public Map<String, Object> getChatMetrics() {
+        return chatService.getStats();
     }
 
     // Send system message to a room (for game events)
     public void sendSystemMessage(String roomId, String content, ChatMessage.MessageType type) {
-        ChatMessage systemMessage = new ChatMessage(content, type, roomId);
-        systemMessage = chatMessageRepository.save(systemMessage);
+        ChatMessage systemMessage = chatService.post(new ChatMessage(content, type, roomId));
 
         // Send to WebSocket subscribers
         messagingTemplate.convertAndSend("/topic/chat/" + roomId, systemMessage);
     }
 
+    // Kiểm tra theo độ dài cột của chat_messages trước khi tin được gửi đi và xếp hàng lưu
+    private static void validateContent(String content) {
+        if (content == null || content.isBlank()) {
+            throw new IllegalArgumentException("Message content is required");
+        }
+        if (content.length() > ChatMessage.MAX_CONTENT_LENGTH) {
+            throw new IllegalArgumentException("Message is longer than " + ChatMessage.MAX_CONTENT_LENGTH + " characters");
+        }
+    }
+
+    private static void validateRoomId(String roomId) {
+        if (roomId.length() > ChatMessage.MAX_ROOM_ID_LENGTH) {
+            throw new IllegalArgumentException("Room id is longer than " + ChatMessage.MAX_ROOM_ID_LENGTH + " characters");
+        }
+    }
+
     // DTO for chat message requests
     public static class ChatMessageRequest {
         private String content;
@@ -0,0 +1,128 @@
+package com.example.carogame.controller;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.carogame.dto.ClusterMessage;
+import com.example.carogame.dto.CreateGameRequest;
+import com.example.carogame.model.GameEvent;
+import com.example.carogame.model.GameState;
+import com.example.carogame.service.AnalysisService;
+import com.example.carogame.service.ClusterService;
+import com.example.carogame.service.GameBroadcaster;
+import com.example.carogame.service.GameService;
+import com.example.carogame.service.RoomCommandService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Endpoint nội bộ giữa các node (chế độ nhiều node). Không dùng JWT; mọi request phải có header
+ * bí mật chung game.cluster.secret.
+ */
+@RestController
+@RequestMapping("/internal/cluster")
+public class ClusterController {
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private RoomCommandService roomCommandService;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private AnalysisService analysisService;
+
+    @Autowired
+    private GameBroadcaster gameBroadcaster;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Lô thông điệp từ một node, xử lý đúng thứ tự nhận; thông điệp của lô gửi lại bị bỏ qua
+    @PostMapping("/messages")
+    public ResponseEntity<Void> receive(@RequestHeader(value = ClusterService.SECRET_HEADER, required = false) String secret,
+                                        @RequestBody List<ClusterMessage> messages) {
+        if (!clusterService.isValidSecret(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        clusterService.receive(messages, message -> {
+            try {
+                switch (message.getKind()) {
+                    case COMMAND -> roomCommandService.executeForwarded(message.getGameId(), message.getCommand(), message.getPayload());
+                    case GAME_EVENT -> gameBroadcaster.publishLocal(message.getGameId(),
+                            objectMapper.treeToValue(message.getPayload(), GameEvent.class));
+                    case TOPIC -> messagingTemplate.convertAndSend(message.getDestination(), message.getPayload());
+                }
+            } catch (Exception e) {
+                System.err.println("Error handling cluster message " + message.getKind() + ": " + e.getMessage());
+            }
+        });
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/rooms/create")
+    public ResponseEntity<GameState> createGame(@RequestHeader(value = ClusterService.SECRET_HEADER, required = false) String secret,
+                                                @RequestBody CreateGameRequest request) {
+        if (!clusterService.isValidSecret(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(gameService.createGame(request.getGameId(), request.getBoardType()));
+    }
+
+    @GetMapping("/rooms/{gameId}")
+    public ResponseEntity<Object> getGame(@RequestHeader(value = ClusterService.SECRET_HEADER, required = false) String secret,
+                                          @PathVariable String gameId,
+                                          @RequestParam(name = "board", defaultValue = "dense") String boardFormat) {
+        if (!clusterService.isValidSecret(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if ("binary".equalsIgnoreCase(boardFormat)) {
+            byte[] frame = roomCommandService.binarySnapshotLocal(gameId);
+            if (frame == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(frame);
+        }
+        Object snapshot = roomCommandService.snapshotLocal(gameId, "sparse".equalsIgnoreCase(boardFormat));
+        if (snapshot == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(snapshot);
+    }
+
+    @GetMapping("/rooms/{gameId}/analysis")
+    public ResponseEntity<Object> analyzeGame(@RequestHeader(value = ClusterService.SECRET_HEADER, required = false) String secret,
+                                              @PathVariable String gameId,
+                                              @RequestParam(name = "side", required = false) String side,
+                                              @RequestParam(name = "nodes", required = false) Long nodes,
+                                              @RequestParam(name = "timeMs", required = false) Long timeMs) {
+        if (!clusterService.isValidSecret(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            Object result = analysisService.analyze(gameId, side, nodes, timeMs);
+            return result != null ? ResponseEntity.ok(result) : ResponseEntity.notFound().build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+    }
+}
@@ -3,42 +3,43 @@ package com.example.carogame.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.stereotype.Controller;
 
-import com.example.carogame.model.GameState;
 import com.example.carogame.model.Move;
 import com.example.carogame.model.Player;
-import com.example.carogame.service.GameService;
+import com.example.carogame.service.RoomCommandService;
 
 @Controller
 public class GameController {
 
     @Autowired
-    private GameService gameService;
+    private RoomCommandService roomCommandService;
+
+    // Các lệnh được đưa vào mailbox của phòng (hoặc chuyển tới node sở hữu phòng),
+    // thread inbound của STOMP không chờ kết quả
 
     @MessageMapping("/game/{gameId}/join")
-    @SendTo("/topic/game/{gameId}")
-    public GameState joinGame(@DestinationVariable String gameId, Player player) {
-        return gameService.joinGame(gameId, player);
+    public void joinGame(@DestinationVariable String gameId, Player player) {
+        roomCommandService.join(gameId, player);
     }
 
     @MessageMapping("/game/{gameId}/move")
-    @SendTo("/topic/game/{gameId}")
-    public GameState makeMove(@DestinationVariable String gameId, Move move) {
-        return gameService.makeMove(gameId, move);
+    public void makeMove(@DestinationVariable String gameId, Move move) {
+        roomCommandService.move(gameId, move);
     }
 
     @MessageMapping("/game/{gameId}/reset")
-    @SendTo("/topic/game/{gameId}")
-    public GameState resetGame(@DestinationVariable String gameId) {
-        gameService.resetGame(gameId);
-        return gameService.getGame(gameId);
+    public void resetGame(@DestinationVariable String gameId) {
+        roomCommandService.reset(gameId);
+    }
+
+    @MessageMapping("/game/{gameId}/add-ai")
+    public void addAiPlayer(@DestinationVariable String gameId) {
+        roomCommandService.addAi(gameId);
     }
 
     @MessageMapping("/game/{gameId}/leave")
-    @SendTo("/topic/game/{gameId}")
-    public GameState leaveGame(@DestinationVariable String gameId, Player player) {
-        return gameService.leaveGame(gameId, player.getId());
+    public void leaveGame(@DestinationVariable String gameId, Player player) {
+        roomCommandService.leave(gameId, player);
     }
 }
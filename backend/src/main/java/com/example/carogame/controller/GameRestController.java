@@ -1,26 +1,69 @@
 package com.example.carogame.controller;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.carogame.dto.CreateGameRequest;
+import com.example.carogame.dto.LobbyRoom;
+import com.example.carogame.entity.GameResult;
 import com.example.carogame.model.BoardType;
-import com.example.carogame.model.GameState;
-import com.example.carogame.service.GameService;
+import com.example.carogame.service.AnalysisService;
+import com.example.carogame.service.ClusterService;
+import com.example.carogame.service.GameCommandDispatcher;
+import com.example.carogame.service.GameHistoryService;
+import com.example.carogame.service.GameRecoveryService;
+import com.example.carogame.service.LobbyIndex;
+import com.example.carogame.service.RoomCommandService;
+import com.example.carogame.service.SpectatorFeed;
 
 @RestController
 @RequestMapping("/api")
 public class GameRestController {
 
     @Autowired
-    private GameService gameService;
+    private GameCommandDispatcher commandDispatcher;
+
+    @Autowired
+    private AnalysisService analysisService;
+
+    @Autowired
+    private GameHistoryService gameHistoryService;
+
+    @Autowired
+    private GameRecoveryService gameRecoveryService;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private RoomCommandService roomCommandService;
+
+    @Autowired
+    private SpectatorFeed spectatorFeed;
+
+    @Autowired
+    private LobbyIndex lobbyIndex;
+
+    // Định dạng bàn cờ mặc định của /api/game/{gameId}: "dense" (String[][] như cũ) hoặc "sparse"
+    @Value("${game.snapshot.board-format:dense}")
+    private String defaultBoardFormat;
 
     @GetMapping("/board-types-enum")
     public BoardType[] getBoardTypesEnum() {
@@ -28,17 +71,126 @@ public class GameRestController {
     }
 
     @PostMapping("/game/create")
-    public GameState createGame(@RequestBody CreateGameRequest request) {
-        return gameService.createGame(request.getGameId(), request.getBoardType());
+    public Object createGame(@RequestBody CreateGameRequest request) {
+        try {
+            return roomCommandService.createGame(request.getGameId(), request.getBoardType());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+        }
     }
 
+    // Phòng thuộc node khác thì đọc qua node sở hữu phòng.
+    // board=binary: frame snapshot GameFrameCodec (octet-stream) cho client nhị phân tải lại trạng thái
     @GetMapping("/game/{gameId}")
-    public GameState getGame(@PathVariable String gameId) {
-        return gameService.getGame(gameId);
+    public Object getGame(@PathVariable String gameId,
+                          @RequestParam(name = "board", required = false) String boardFormat) {
+        String format = boardFormat != null ? boardFormat : defaultBoardFormat;
+        if ("binary".equalsIgnoreCase(format)) {
+            byte[] frame = clusterService.isLocal(gameId)
+                    ? roomCommandService.binarySnapshotLocal(gameId)
+                    : clusterService.requestBytes(gameId, "GET", "/internal/cluster/rooms/" + encode(gameId) + "?board=binary", null);
+            return binaryResponse(frame);
+        }
+        if (!clusterService.isLocal(gameId)) {
+            return clusterService.request(gameId, "GET", "/internal/cluster/rooms/" + encode(gameId) + "?board=" + encode(format), null);
+        }
+        return roomCommandService.snapshotLocal(gameId, "sparse".equalsIgnoreCase(format));
+    }
+
+    // Pool phân tích đầy (ở node này hoặc node sở hữu phòng) thì trả 429
+    @GetMapping("/game/{gameId}/analysis")
+    public Object analyzeGame(@PathVariable String gameId,
+                              @RequestParam(name = "side", required = false) String side,
+                              @RequestParam(name = "nodes", required = false) Long nodes,
+                              @RequestParam(name = "timeMs", required = false) Long timeMs) {
+        try {
+            if (!clusterService.isLocal(gameId)) {
+                StringBuilder path = new StringBuilder("/internal/cluster/rooms/" + encode(gameId) + "/analysis?");
+                if (side != null) {
+                    path.append("side=").append(encode(side)).append('&');
+                }
+                if (nodes != null) {
+                    path.append("nodes=").append(nodes).append('&');
+                }
+                if (timeMs != null) {
+                    path.append("timeMs=").append(timeMs);
+                }
+                return clusterService.request(gameId, "GET", path.toString(), null);
+            }
+            return analysisService.analyze(gameId, side, nodes, timeMs);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Các ván đã kết thúc trong phòng, mới nhất trước (resultKey là matchId dùng cho replay)
+    @GetMapping("/game/{gameId}/history")
+    public List<GameResult> getGameHistory(@PathVariable String gameId) {
+        return gameHistoryService.findRecentMatches(gameId);
     }
 
+    // Phát lại một ván đã kết thúc: các nước theo thứ tự, mỗi dòng một JSON
+    @GetMapping("/matches/{matchId}/replay")
+    public ResponseEntity<StreamingResponseBody> replayMatch(@PathVariable String matchId) {
+        if (!gameHistoryService.isFinished(matchId)) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> gameHistoryService.writeReplay(matchId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // Số người xem phòng đang kết nối ở node này
+    @GetMapping("/game/{gameId}/spectators")
+    public Map<String, Object> getSpectatorCount(@PathVariable String gameId) {
+        return Map.of("gameId", gameId, "spectators", spectatorFeed.getSpectatorCount(gameId));
+    }
+
+    // Danh sách sảnh theo trang (cursor = nextCursor của trang trước), thay đổi sau đó đẩy qua /topic/lobby
     @GetMapping("/games")
-    public Map<String, Object> getAllGames() {
-        return gameService.getAllGamesInfo();
+    public Map<String, Object> getAllGames(@RequestParam(required = false) BoardType boardType,
+                                           @RequestParam(required = false) LobbyRoom.Status status,
+                                           @RequestParam(required = false) Boolean openSeats,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "" + LobbyIndex.DEFAULT_PAGE_SIZE) int limit) {
+        return lobbyIndex.page(boardType, status, openSeats, cursor, limit);
+    }
+
+    @GetMapping("/games/metrics")
+    public Map<String, Object> getMailboxMetrics() {
+        return commandDispatcher.getMetrics();
+    }
+
+    @GetMapping("/games/move-log/metrics")
+    public Map<String, Object> getMoveLogMetrics() {
+        return gameHistoryService.getStats();
+    }
+
+    // Node này, vòng băm và hàng đợi gửi tới các node khác (chế độ nhiều node)
+    @GetMapping("/games/cluster")
+    public Map<String, Object> getClusterStatus() {
+        return clusterService.getStatus();
+    }
+
+    @GetMapping("/games/snapshots/metrics")
+    public Map<String, Object> getSnapshotMetrics() {
+        return gameRecoveryService.getStats();
+    }
+
+    @GetMapping("/games/spectators")
+    public Map<String, Object> getSpectatorMetrics() {
+        return spectatorFeed.getStats();
+    }
+
+    private static ResponseEntity<byte[]> binaryResponse(byte[] frame) {
+        if (frame == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(frame);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
     }
 }
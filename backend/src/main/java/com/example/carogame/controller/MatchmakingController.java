@@ -0,0 +1,47 @@
+package com.example.carogame.controller;
+
+import java.security.Principal;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.carogame.dto.MatchmakingRequest;
+import com.example.carogame.security.JwtPrincipal;
+import com.example.carogame.service.MatchmakingService;
+
+@RestController
+public class MatchmakingController {
+
+    @Autowired
+    private MatchmakingService matchmakingService;
+
+    // Kết quả (QUEUED / MATCHED / CANCELLED / ERROR) được gửi riêng tới /user/queue/matchmaking
+    @MessageMapping("/matchmaking/join")
+    public void joinQueue(@Payload MatchmakingRequest request, Principal principal) {
+        String username = requireUsername(principal);
+        JwtPrincipal user = JwtPrincipal.of(principal);
+        matchmakingService.enqueue(username, user != null ? user.getUserId() : null, request.getBoardType());
+    }
+
+    @MessageMapping("/matchmaking/leave")
+    public void leaveQueue(Principal principal) {
+        matchmakingService.cancel(requireUsername(principal));
+    }
+
+    @GetMapping("/api/matchmaking/stats")
+    public Map<String, Object> getStats() {
+        return matchmakingService.getStats();
+    }
+
+    // Session không đăng nhập không có tên để xếp hàng và không nhận được /user/queue/matchmaking
+    private static String requireUsername(Principal principal) {
+        if (principal == null || principal.getName() == null) {
+            throw new IllegalStateException("Matchmaking requires an authenticated session");
+        }
+        return principal.getName();
+    }
+}
@@ -7,6 +7,7 @@ import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -16,9 +17,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.carogame.dto.LeaderboardEntry;
 import com.example.carogame.entity.UserStats;
 import com.example.carogame.repository.UserStatsRepository;
-import com.example.carogame.service.RankingService;
+import com.example.carogame.service.LeaderboardIndex;
 
 @RestController
 @RequestMapping("/api/ranking")
@@ -28,17 +30,17 @@ public class RankingController {
     private UserStatsRepository userStatsRepository;
 
     @Autowired
-    private RankingService rankingService;
+    private LeaderboardIndex leaderboardIndex;
 
-    // Get global leaderboard by ranking points
+    // Get global leaderboard by ranking points (từ LeaderboardIndex, không truy vấn DB)
     @GetMapping("/leaderboard")
-    public ResponseEntity<Page<UserStats>> getLeaderboard(
+    public ResponseEntity<Page<LeaderboardEntry>> getLeaderboard(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<UserStats> leaderboard = userStatsRepository.findLeaderboardByRankingPoints(pageable);
-        return ResponseEntity.ok(leaderboard);
+        List<LeaderboardEntry> entries = leaderboardIndex.page((int) pageable.getOffset(), size);
+        return ResponseEntity.ok(new PageImpl<>(entries, pageable, leaderboardIndex.size()));
     }
 
     // Get leaderboard by win rate (minimum 10 games)
@@ -77,10 +79,8 @@ public class RankingController {
 
     // Get top 10 players
     @GetMapping("/top10")
-    public ResponseEntity<List<UserStats>> getTop10() {
-        Pageable pageable = PageRequest.of(0, 10);
-        List<UserStats> top10 = userStatsRepository.findTop10ByRankingPoints(pageable);
-        return ResponseEntity.ok(top10);
+    public ResponseEntity<List<LeaderboardEntry>> getTop10() {
+        return ResponseEntity.ok(leaderboardIndex.page(0, 10));
     }
 
     // Get users with current winning streak
@@ -106,12 +106,11 @@ public class RankingController {
     // Get user's rank position
     @GetMapping("/position/{userId}")
     public ResponseEntity<Map<String, Object>> getUserRankPosition(@PathVariable Long userId) {
-        Integer position = userStatsRepository.getUserRankPosition(userId);
-        UserStats userStats = userStatsRepository.findByUserId(userId).orElse(null);
+        LeaderboardEntry entry = leaderboardIndex.findByUserId(userId);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("position", position);
-        response.put("stats", userStats);
+        response.put("position", entry != null ? entry.getRank() : null);
+        response.put("stats", entry);
 
         return ResponseEntity.ok(response);
     }
@@ -154,21 +153,6 @@ public class RankingController {
         return ResponseEntity.ok(recentlyActive);
     }
 
-    // Update rankings (admin only)
-    @GetMapping("/update")
-    public ResponseEntity<Map<String, String>> updateRankings() {
-        try {
-            rankingService.updateAllRankings();
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "Rankings updated successfully");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, String> response = new HashMap<>();
-            response.put("error", "Failed to update rankings: " + e.getMessage());
-            return ResponseEntity.badRequest().body(response);
-        }
-    }
-
     // Get user stats by username
     @GetMapping("/user/{username}")
     public ResponseEntity<UserStats> getUserStats(@PathVariable String username) {
@@ -19,9 +19,9 @@ import com.example.carogame.entity.BoardSkin;
 import com.example.carogame.entity.PieceSkin;
 import com.example.carogame.entity.User;
 import com.example.carogame.entity.UserSkin;
-import com.example.carogame.repository.UserRepository;
+import com.example.carogame.security.JwtPrincipal;
 import com.example.carogame.service.SkinService;
-import com.example.carogame.util.JwtUtil;
+import com.example.carogame.service.UserCache;
 
 @RestController
 @RequestMapping("/api/skins")
@@ -32,10 +32,8 @@ public class SkinController {
     private SkinService skinService;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserCache userCache;
 
-    @Autowired
-    private JwtUtil jwtUtil;
 
     @GetMapping("/board")
     public ResponseEntity<List<BoardSkin>> getAllBoardSkins() {
@@ -58,10 +56,9 @@ public class SkinController {
         }
 
         try {
-            String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
+            String username = authenticatedUsername();
 
-            Optional<User> userOpt = userRepository.findByUsername(username);
+            Optional<User> userOpt = userCache.findByUsername(username);
             if (userOpt.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
@@ -82,10 +79,9 @@ public class SkinController {
         }
 
         try {
-            String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
+            String username = authenticatedUsername();
 
-            Optional<User> userOpt = userRepository.findByUsername(username);
+            Optional<User> userOpt = userCache.findByUsername(username);
             if (userOpt.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
@@ -110,10 +106,9 @@ public class SkinController {
         }
 
         try {
-            String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
+            String username = authenticatedUsername();
 
-            Optional<User> userOpt = userRepository.findByUsername(username);
+            Optional<User> userOpt = userCache.findByUsername(username);
             if (userOpt.isEmpty()) {
                 Map<String, Object> error = new HashMap<>();
                 error.put("success", false);
@@ -129,7 +124,7 @@ public class SkinController {
                 response.put("message", "Board skin purchased successfully!");
 
                 // Return updated user balance
-                User updatedUser = userRepository.findById(userOpt.get().getId()).orElse(null);
+                User updatedUser = userCache.findById(userOpt.get().getId()).orElse(null);
                 if (updatedUser != null) {
                     response.put("newBalance", updatedUser.getBalance());
                 }
@@ -160,10 +155,9 @@ public class SkinController {
         }
 
         try {
-            String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
+            String username = authenticatedUsername();
 
-            Optional<User> userOpt = userRepository.findByUsername(username);
+            Optional<User> userOpt = userCache.findByUsername(username);
             if (userOpt.isEmpty()) {
                 Map<String, Object> error = new HashMap<>();
                 error.put("success", false);
@@ -179,7 +173,7 @@ public class SkinController {
                 response.put("message", "Piece skin purchased successfully!");
 
                 // Return updated user balance
-                User updatedUser = userRepository.findById(userOpt.get().getId()).orElse(null);
+                User updatedUser = userCache.findById(userOpt.get().getId()).orElse(null);
                 if (updatedUser != null) {
                     response.put("newBalance", updatedUser.getBalance());
                 }
@@ -210,10 +204,9 @@ public class SkinController {
         }
 
         try {
-            String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
+            String username = authenticatedUsername();
 
-            Optional<User> userOpt = userRepository.findByUsername(username);
+            Optional<User> userOpt = userCache.findByUsername(username);
             if (userOpt.isEmpty()) {
                 Map<String, Object> error = new HashMap<>();
                 error.put("success", false);
@@ -254,10 +247,9 @@ public class SkinController {
         }
 
         try {
-            String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
+            String username = authenticatedUsername();
 
-            Optional<User> userOpt = userRepository.findByUsername(username);
+            Optional<User> userOpt = userCache.findByUsername(username);
             if (userOpt.isEmpty()) {
                 Map<String, Object> error = new HashMap<>();
                 error.put("success", false);
@@ -296,10 +288,9 @@ public class SkinController {
         }
 
         try {
-            String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
+            String username = authenticatedUsername();
 
-            Optional<User> userOpt = userRepository.findByUsername(username);
+            Optional<User> userOpt = userCache.findByUsername(username);
             if (userOpt.isEmpty()) {
                 Map<String, Object> error = new HashMap<>();
                 error.put("error", "User not found");
@@ -322,4 +313,14 @@ public class SkinController {
             return ResponseEntity.status(401).body(error);
         }
     }
+
+    // Header chỉ quyết định có token hay không; người dùng lấy từ principal mà filter đã kiểm tra
+    // cả token version, nên token đã bị thu hồi (khóa tài khoản, đổi quyền) không dùng được ở đây
+    private static String authenticatedUsername() {
+        JwtPrincipal principal = JwtPrincipal.current();
+        if (principal == null) {
+            throw new IllegalStateException("Token is invalid or revoked");
+        }
+        return principal.getUsername();
+    }
 }
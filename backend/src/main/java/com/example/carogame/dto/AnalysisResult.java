@@ -0,0 +1,78 @@
+package com.example.carogame.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.carogame.ai.ThreatSolution;
+import com.example.carogame.model.BitBoard;
+
+/**
+ * Kết quả phân tích thắng bắt buộc (VCF / VCT) của /api/game/{gameId}/analysis.
+ * line là chuỗi nước [row, col] xen kẽ, bắt đầu bằng bên side.
+ */
+public class AnalysisResult {
+
+    private String gameId;
+    private long seq;
+    private String side;
+    private String status;
+    private String kind;
+    private List<int[]> line;
+    private long nodes;
+    private long elapsedMillis;
+    private boolean cached;
+
+    public static AnalysisResult of(String gameId, long seq, ThreatSolution solution, boolean cached) {
+        AnalysisResult result = new AnalysisResult();
+        result.gameId = gameId;
+        result.seq = seq;
+        result.side = BitBoard.symbolOf(solution.attacker());
+        result.status = solution.status().name();
+        result.kind = solution.kind() != null ? solution.kind().name() : null;
+        result.line = new ArrayList<>(solution.line().length);
+        for (int cell : solution.line()) {
+            result.line.add(new int[] {cell / solution.size(), cell % solution.size()});
+        }
+        result.nodes = solution.nodes();
+        result.elapsedMillis = solution.elapsedMillis();
+        result.cached = cached;
+        return result;
+    }
+
+    // Getters
+    public String getGameId() {
+        return gameId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public String getSide() {
+        return side;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public List<int[]> getLine() {
+        return line;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+}
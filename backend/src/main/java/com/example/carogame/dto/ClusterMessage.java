@@ -0,0 +1,138 @@
+package com.example.carogame.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Thông điệp giữa các node (POST /internal/cluster/messages, theo lô và đúng thứ tự gửi):
+ * lệnh của phòng chuyển tới node sở hữu, hoặc sự kiện / tin nhắn topic phát lại cho các node khác.
+ *
+ * sender / epoch / seq do luồng gửi tới từng node gán (seq tăng dần theo thứ tự gửi, epoch là lần
+ * khởi động của node gửi), để node nhận bỏ qua thông điệp đã xử lý khi một lô được gửi lại.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClusterMessage {
+
+    public enum Kind {
+        COMMAND,     // gameId + command + payload (tham số của lệnh)
+        GAME_EVENT,  // gameId + payload (GameEvent)
+        TOPIC        // destination + payload
+    }
+
+    private Kind kind;
+    private String gameId;
+    private String command;
+    private String destination;
+    private JsonNode payload;
+    private String sender;
+    private Long epoch;
+    private Long seq;
+
+    public ClusterMessage() {}
+
+    public static ClusterMessage command(String gameId, String command, JsonNode payload) {
+        ClusterMessage message = new ClusterMessage();
+        message.kind = Kind.COMMAND;
+        message.gameId = gameId;
+        message.command = command;
+        message.payload = payload;
+        return message;
+    }
+
+    public static ClusterMessage gameEvent(String gameId, JsonNode event) {
+        ClusterMessage message = new ClusterMessage();
+        message.kind = Kind.GAME_EVENT;
+        message.gameId = gameId;
+        message.payload = event;
+        return message;
+    }
+
+    public static ClusterMessage topic(String destination, JsonNode payload) {
+        ClusterMessage message = new ClusterMessage();
+        message.kind = Kind.TOPIC;
+        message.destination = destination;
+        message.payload = payload;
+        return message;
+    }
+
+    /**
+     * Bản sao có đánh số của thông điệp; cùng một thông điệp phát cho nhiều node mang số khác nhau
+     */
+    public ClusterMessage sequenced(String sender, long epoch, long seq) {
+        ClusterMessage message = new ClusterMessage();
+        message.kind = kind;
+        message.gameId = gameId;
+        message.command = command;
+        message.destination = destination;
+        message.payload = payload;
+        message.sender = sender;
+        message.epoch = epoch;
+        message.seq = seq;
+        return message;
+    }
+
+    // Getters and Setters
+    public Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public void setCommand(String command) {
+        this.command = command;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public JsonNode getPayload() {
+        return payload;
+    }
+
+    public void setPayload(JsonNode payload) {
+        this.payload = payload;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public void setSender(String sender) {
+        this.sender = sender;
+    }
+
+    public Long getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(Long epoch) {
+        this.epoch = epoch;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+}
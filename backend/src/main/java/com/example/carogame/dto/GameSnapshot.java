@@ -0,0 +1,128 @@
+package com.example.carogame.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.carogame.model.BitBoard;
+import com.example.carogame.model.BoardType;
+import com.example.carogame.model.GameState;
+import com.example.carogame.model.Player;
+
+/**
+ * Snapshot dạng thưa của phòng: thay vì mảng board dày đặc toàn null, chỉ gửi các ô đã đánh
+ * của mỗi bên dưới dạng mảng phẳng [row0, col0, row1, col1, ...].
+ */
+public class GameSnapshot {
+    private String gameId;
+    private BoardType boardType;
+    private int boardSize;
+    private long seq;
+    private String currentPlayer;
+    private boolean gameOver;
+    private String winner;
+    private List<Player> players;
+    private int[] x;
+    private int[] o;
+
+    public GameSnapshot() {}
+
+    public static GameSnapshot of(GameState game) {
+        GameSnapshot snapshot = new GameSnapshot();
+        snapshot.gameId = game.getGameId();
+        snapshot.boardType = game.getBoardType();
+        snapshot.boardSize = game.getBoardSize();
+        snapshot.seq = game.getSeq();
+        snapshot.currentPlayer = game.getCurrentPlayer();
+        snapshot.gameOver = game.isGameOver();
+        snapshot.winner = game.getWinner();
+        snapshot.players = new ArrayList<>(game.getPlayers());
+        snapshot.x = game.getBitBoard().stones(BitBoard.X);
+        snapshot.o = game.getBitBoard().stones(BitBoard.O);
+        return snapshot;
+    }
+
+    public String getBoardFormat() {
+        return "sparse";
+    }
+
+    // Getters and Setters
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public BoardType getBoardType() {
+        return boardType;
+    }
+
+    public void setBoardType(BoardType boardType) {
+        this.boardType = boardType;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public void setBoardSize(int boardSize) {
+        this.boardSize = boardSize;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public String getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public void setCurrentPlayer(String currentPlayer) {
+        this.currentPlayer = currentPlayer;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public void setGameOver(boolean gameOver) {
+        this.gameOver = gameOver;
+    }
+
+    public String getWinner() {
+        return winner;
+    }
+
+    public void setWinner(String winner) {
+        this.winner = winner;
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public void setPlayers(List<Player> players) {
+        this.players = players;
+    }
+
+    public int[] getX() {
+        return x;
+    }
+
+    public void setX(int[] x) {
+        this.x = x;
+    }
+
+    public int[] getO() {
+        return o;
+    }
+
+    public void setO(int[] o) {
+        this.o = o;
+    }
+}
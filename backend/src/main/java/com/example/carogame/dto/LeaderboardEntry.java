@@ -0,0 +1,99 @@
+package com.example.carogame.dto;
+
+import com.example.carogame.entity.UserStats;
+
+/**
+ * Một dòng của bảng xếp hạng trong bộ nhớ (LeaderboardIndex), không giữ tham chiếu tới entity
+ */
+public class LeaderboardEntry {
+    private final Long userId;
+    private final String username;
+    private final String displayName;
+    private final int rankingPoints;
+    private final int totalWins;
+    private final int totalLosses;
+    private final int totalDraws;
+    private final int totalGames;
+    private final double winRate;
+    private final int currentStreak;
+    private final int bestStreak;
+    private final Integer rank;
+
+    private LeaderboardEntry(Long userId, String username, String displayName, int rankingPoints,
+                             int totalWins, int totalLosses, int totalDraws, int totalGames, double winRate,
+                             int currentStreak, int bestStreak, Integer rank) {
+        this.userId = userId;
+        this.username = username;
+        this.displayName = displayName;
+        this.rankingPoints = rankingPoints;
+        this.totalWins = totalWins;
+        this.totalLosses = totalLosses;
+        this.totalDraws = totalDraws;
+        this.totalGames = totalGames;
+        this.winRate = winRate;
+        this.currentStreak = currentStreak;
+        this.bestStreak = bestStreak;
+        this.rank = rank;
+    }
+
+    public static LeaderboardEntry of(UserStats stats) {
+        return new LeaderboardEntry(stats.getUser().getId(), stats.getUser().getUsername(),
+                stats.getUser().getDisplayName(), stats.getRankingPoints(), stats.getTotalWins(),
+                stats.getTotalLosses(), stats.getTotalDraws(), stats.getTotalGames(), stats.getWinRate(),
+                stats.getCurrentStreak(), stats.getBestStreak(), null);
+    }
+
+    public LeaderboardEntry withRank(int rank) {
+        return new LeaderboardEntry(userId, username, displayName, rankingPoints, totalWins, totalLosses,
+                totalDraws, totalGames, winRate, currentStreak, bestStreak, rank);
+    }
+
+    // Getters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public int getRankingPoints() {
+        return rankingPoints;
+    }
+
+    public int getTotalWins() {
+        return totalWins;
+    }
+
+    public int getTotalLosses() {
+        return totalLosses;
+    }
+
+    public int getTotalDraws() {
+        return totalDraws;
+    }
+
+    public int getTotalGames() {
+        return totalGames;
+    }
+
+    public double getWinRate() {
+        return winRate;
+    }
+
+    public int getCurrentStreak() {
+        return currentStreak;
+    }
+
+    public int getBestStreak() {
+        return bestStreak;
+    }
+
+    public Integer getRank() {
+        return rank;
+    }
+}
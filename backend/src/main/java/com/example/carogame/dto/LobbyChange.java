@@ -0,0 +1,46 @@
+package com.example.carogame.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Thay đổi của danh sách sảnh gửi trên /topic/lobby: phòng mới / thay đổi (UPSERT, kèm room)
+ * hoặc phòng bị xóa (REMOVE). Client tải /api/games một lần rồi áp dụng các thay đổi.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LobbyChange {
+
+    public enum Type {
+        UPSERT,
+        REMOVE
+    }
+
+    private final Type type;
+    private final String gameId;
+    private final LobbyRoom room;
+
+    private LobbyChange(Type type, String gameId, LobbyRoom room) {
+        this.type = type;
+        this.gameId = gameId;
+        this.room = room;
+    }
+
+    public static LobbyChange upsert(LobbyRoom room) {
+        return new LobbyChange(Type.UPSERT, room.getGameId(), room);
+    }
+
+    public static LobbyChange remove(String gameId) {
+        return new LobbyChange(Type.REMOVE, gameId, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public LobbyRoom getRoom() {
+        return room;
+    }
+}
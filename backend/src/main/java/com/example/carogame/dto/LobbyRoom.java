@@ -0,0 +1,93 @@
+package com.example.carogame.dto;
+
+import java.util.Objects;
+
+import com.example.carogame.model.BoardType;
+import com.example.carogame.model.GameState;
+
+/**
+ * Một phòng trong danh sách sảnh (LobbyIndex), không giữ tham chiếu tới GameState.
+ * Tên trường giữ nguyên như danh sách /api/games cũ.
+ */
+public class LobbyRoom {
+
+    public static final int MAX_PLAYERS = 2;
+
+    public enum Status {
+        WAITING,   // chưa đủ người chơi
+        PLAYING,
+        FINISHED
+    }
+
+    private final String gameId;
+    private final BoardType boardType;
+    private final int boardSize;
+    private final String boardDescription;
+    private final int playerCount;
+    private final Status gameStatus;
+
+    private LobbyRoom(String gameId, BoardType boardType, int playerCount, Status gameStatus) {
+        this.gameId = gameId;
+        this.boardType = boardType;
+        this.boardSize = boardType.getSize();
+        this.boardDescription = boardType.getDescription();
+        this.playerCount = playerCount;
+        this.gameStatus = gameStatus;
+    }
+
+    public static LobbyRoom of(GameState game) {
+        int playerCount = game.getPlayers().size();
+        Status status = game.isGameOver() ? Status.FINISHED
+                : playerCount < MAX_PLAYERS ? Status.WAITING : Status.PLAYING;
+        return new LobbyRoom(game.getGameId(), game.getBoardType(), playerCount, status);
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public BoardType getBoardType() {
+        return boardType;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public String getBoardDescription() {
+        return boardDescription;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public int getMaxPlayers() {
+        return MAX_PLAYERS;
+    }
+
+    public Status getGameStatus() {
+        return gameStatus;
+    }
+
+    public boolean isCanJoin() {
+        return playerCount < MAX_PLAYERS;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LobbyRoom other)) {
+            return false;
+        }
+        return playerCount == other.playerCount && gameId.equals(other.gameId)
+                && boardType == other.boardType && gameStatus == other.gameStatus;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(gameId, boardType, playerCount, gameStatus);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.carogame.dto;
+
+import com.example.carogame.model.BoardType;
+
+public class MatchmakingRequest {
+    private BoardType boardType;
+
+    public MatchmakingRequest() {
+        this.boardType = BoardType.STANDARD;
+    }
+
+    public BoardType getBoardType() {
+        return boardType;
+    }
+
+    public void setBoardType(BoardType boardType) {
+        this.boardType = boardType;
+    }
+}
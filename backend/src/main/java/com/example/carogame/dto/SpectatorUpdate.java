@@ -0,0 +1,69 @@
+package com.example.carogame.dto;
+
+import java.util.List;
+
+import com.example.carogame.model.GameEvent;
+
+/**
+ * Một lần cập nhật của /topic/game/{gameId}/spectate: các sự kiện của phòng từ fromSeq tới
+ * toSeq gộp lại (tối đa game.spectator.max-updates-per-second lần mỗi giây), kèm số người xem.
+ * Người xem tải snapshot qua /api/game/{gameId} rồi áp dụng lần lượt các sự kiện theo seq.
+ */
+public class SpectatorUpdate {
+
+    private String gameId;
+    private long fromSeq;
+    private long toSeq;
+    private int spectators;
+    private List<GameEvent> events;
+
+    public SpectatorUpdate() {}
+
+    public SpectatorUpdate(String gameId, int spectators, List<GameEvent> events) {
+        this.gameId = gameId;
+        this.spectators = spectators;
+        this.events = events;
+        this.fromSeq = events.get(0).getSeq();
+        this.toSeq = events.get(events.size() - 1).getSeq();
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public long getFromSeq() {
+        return fromSeq;
+    }
+
+    public void setFromSeq(long fromSeq) {
+        this.fromSeq = fromSeq;
+    }
+
+    public long getToSeq() {
+        return toSeq;
+    }
+
+    public void setToSeq(long toSeq) {
+        this.toSeq = toSeq;
+    }
+
+    public int getSpectators() {
+        return spectators;
+    }
+
+    public void setSpectators(int spectators) {
+        this.spectators = spectators;
+    }
+
+    public List<GameEvent> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<GameEvent> events) {
+        this.events = events;
+    }
+}
@@ -16,6 +16,10 @@ import jakarta.persistence.Table;
 @Entity
 @Table(name = "chat_messages")
 public class ChatMessage {
+    // Độ dài cột trong V1 (content VARCHAR(1000), room_id VARCHAR(255))
+    public static final int MAX_CONTENT_LENGTH = 1000;
+    public static final int MAX_ROOM_ID_LENGTH = 255;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -24,14 +28,14 @@ public class ChatMessage {
     @JoinColumn(name = "sender_id", nullable = false)
     private User sender;
 
-    @Column(nullable = false, length = 1000)
+    @Column(nullable = false, length = MAX_CONTENT_LENGTH)
     private String content;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private MessageType type = MessageType.CHAT;
 
-    @Column(name = "room_id")
+    @Column(name = "room_id", length = MAX_ROOM_ID_LENGTH)
     private String roomId; // For game-specific chat or global chat
 
     @Column(name = "created_at", nullable = false)
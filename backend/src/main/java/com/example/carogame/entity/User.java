@@ -63,6 +63,11 @@ public class User implements UserDetails {
     @Column(name = "role", nullable = true)
     private Role role;
 
+    // Tăng lên để thu hồi mọi JWT đã cấp (claim "ver"). Có default để ddl-auto thêm được cột
+    // vào bảng users đã có dữ liệu nếu V5 chưa chạy
+    @Column(name = "token_version", nullable = false, columnDefinition = "integer not null default 0")
+    private Integer tokenVersion = 0;
+
     // Constructors
     public User() {
         this.createdAt = LocalDateTime.now();
@@ -248,4 +253,19 @@ public class User implements UserDetails {
     public boolean isAdmin() {
         return role == Role.ADMIN;
     }
+
+    public Integer getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(Integer tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
+    /**
+     * Vô hiệu mọi token đã cấp (đổi quyền, khóa tài khoản); user phải đăng nhập lại
+     */
+    public void revokeTokens() {
+        this.tokenVersion = tokenVersion + 1;
+    }
 }
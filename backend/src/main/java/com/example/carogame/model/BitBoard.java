@@ -0,0 +1,348 @@
+package com.example.carogame.model;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard cho bàn cờ Caro.
+ *
+ * Mỗi bên (X, O) giữ một {@code long} cho mỗi hàng, cột, đường chéo và đường chéo ngược,
+ * nên đặt quân chỉ là bốn phép OR và kiểm tra 5 quân liên tiếp là shift-and-mask trên
+ * bốn đường đi qua nước vừa đánh. Bàn tối đa 64x64 (MASSIVE là 40x40).
+ */
+public class BitBoard {
+
+    public static final int X = 0;
+    public static final int O = 1;
+    public static final int EMPTY = -1;
+
+    public static final int WIN_LENGTH = 5;
+    public static final int MAX_SIZE = 64;
+
+    private final int size;
+
+    // [side][row], bit = col
+    private final long[][] rows;
+    // [side][col], bit = row
+    private final long[][] cols;
+    // [side][row - col + size - 1], bit = col
+    private final long[][] diags;
+    // [side][row + col], bit = col
+    private final long[][] antiDiags;
+
+    private int stoneCount;
+
+    // Các ô đã đánh theo thứ tự (row * size + col), dùng cho undo
+    private final int[] history;
+    private final ThreatTracker threats;
+
+    public BitBoard(int size) {
+        if (size <= 0 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+        this.size = size;
+        this.rows = new long[2][size];
+        this.cols = new long[2][size];
+        this.diags = new long[2][2 * size - 1];
+        this.antiDiags = new long[2][2 * size - 1];
+        this.history = new int[size * size];
+        this.threats = new ThreatTracker(this);
+    }
+
+    /**
+     * Bản sao độc lập (đánh lại theo đúng thứ tự nước đi), dùng cho AI tìm kiếm ngoài lock của phòng
+     */
+    public BitBoard copy() {
+        BitBoard copy = new BitBoard(size);
+        for (int i = 0; i < stoneCount; i++) {
+            int row = history[i] / size;
+            int col = history[i] % size;
+            copy.place(row, col, get(row, col));
+        }
+        return copy;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getStoneCount() {
+        return stoneCount;
+    }
+
+    public ThreatTracker getThreats() {
+        return threats;
+    }
+
+    /**
+     * Ô của nước đi thứ index (0 là nước đầu tiên), mã hóa row * size + col
+     */
+    public int getMoveAt(int index) {
+        return history[index];
+    }
+
+    public boolean isFull() {
+        return stoneCount == size * size;
+    }
+
+    public boolean isInside(int row, int col) {
+        return row >= 0 && row < size && col >= 0 && col < size;
+    }
+
+    /**
+     * Bitmask các ô đã có quân trên một hàng (bit = col)
+     */
+    public long occupiedRow(int row) {
+        return rows[X][row] | rows[O][row];
+    }
+
+    /**
+     * Bitmask các ô của side trên một hàng (bit = col)
+     */
+    public long sideRow(int side, int row) {
+        return rows[side][row];
+    }
+
+    public boolean isEmpty(int row, int col) {
+        long bit = 1L << col;
+        return ((rows[X][row] | rows[O][row]) & bit) == 0;
+    }
+
+    /**
+     * Trả về bên đang chiếm ô (X, O) hoặc EMPTY
+     */
+    public int get(int row, int col) {
+        long bit = 1L << col;
+        if ((rows[X][row] & bit) != 0) return X;
+        if ((rows[O][row] & bit) != 0) return O;
+        return EMPTY;
+    }
+
+    public void place(int row, int col, int side) {
+        rows[side][row] |= 1L << col;
+        cols[side][col] |= 1L << row;
+        diags[side][row - col + size - 1] |= 1L << col;
+        antiDiags[side][row + col] |= 1L << col;
+        history[stoneCount++] = row * size + col;
+        threats.cellChanged(row, col);
+    }
+
+    /**
+     * Gỡ nước đi cuối cùng (dùng khi tìm kiếm), trả về ô đã gỡ hoặc -1 nếu bàn trống
+     */
+    public int undo() {
+        if (stoneCount == 0) {
+            return -1;
+        }
+        int cell = history[--stoneCount];
+        int row = cell / size;
+        int col = cell % size;
+        int side = get(row, col);
+        rows[side][row] &= ~(1L << col);
+        cols[side][col] &= ~(1L << row);
+        diags[side][row - col + size - 1] &= ~(1L << col);
+        antiDiags[side][row + col] &= ~(1L << col);
+        threats.cellChanged(row, col);
+        return cell;
+    }
+
+    public void clear() {
+        for (int side = X; side <= O; side++) {
+            Arrays.fill(rows[side], 0L);
+            Arrays.fill(cols[side], 0L);
+            Arrays.fill(diags[side], 0L);
+            Arrays.fill(antiDiags[side], 0L);
+        }
+        stoneCount = 0;
+        threats.reset();
+    }
+
+    // Truy cập theo đường cho ThreatTracker: dir là DIR_ROW / DIR_COL / DIR_DIAG / DIR_ANTI_DIAG
+
+    long line(int side, int dir, int index) {
+        switch (dir) {
+            case ThreatTracker.DIR_ROW: return rows[side][index];
+            case ThreatTracker.DIR_COL: return cols[side][index];
+            case ThreatTracker.DIR_DIAG: return diags[side][index];
+            default: return antiDiags[side][index];
+        }
+    }
+
+    // Vị trí bit đầu / cuối hợp lệ của đường (đường chéo ngắn hơn cạnh bàn)
+    int lineStart(int dir, int index) {
+        switch (dir) {
+            case ThreatTracker.DIR_DIAG: return Math.max(0, size - 1 - index);
+            case ThreatTracker.DIR_ANTI_DIAG: return Math.max(0, index - size + 1);
+            default: return 0;
+        }
+    }
+
+    int lineEnd(int dir, int index) {
+        switch (dir) {
+            case ThreatTracker.DIR_DIAG: return Math.min(size - 1, 2 * size - 2 - index);
+            case ThreatTracker.DIR_ANTI_DIAG: return Math.min(size - 1, index);
+            default: return size - 1;
+        }
+    }
+
+    /**
+     * Ghi vào out các ô trống mà side đặt vào thì thành năm, trên bốn đường đi qua (row, col).
+     * Trả về số ô (out cần tối thiểu 4 * size phần tử).
+     */
+    public int fiveCellsThrough(int side, int row, int col, int[] out) {
+        int count = collectWindows(side, ThreatTracker.DIR_ROW, row, WIN_LENGTH - 1, out, 0);
+        count = collectWindows(side, ThreatTracker.DIR_COL, col, WIN_LENGTH - 1, out, count);
+        count = collectWindows(side, ThreatTracker.DIR_DIAG, row - col + size - 1, WIN_LENGTH - 1, out, count);
+        return collectWindows(side, ThreatTracker.DIR_ANTI_DIAG, row + col, WIN_LENGTH - 1, out, count);
+    }
+
+    /**
+     * side có ô nào để đặt vào thành năm hay không (đang có "bốn")
+     */
+    public boolean hasFourThreat(int side) {
+        return hasWindow(side, WIN_LENGTH - 1);
+    }
+
+    /**
+     * side có nước nào tạo ra "bốn" hay không (khung 5 ô có 3 quân của side, 2 ô trống)
+     */
+    public boolean canMakeFour(int side) {
+        return hasWindow(side, WIN_LENGTH - 2);
+    }
+
+    private boolean hasWindow(int side, int stones) {
+        for (int dir = ThreatTracker.DIR_ROW; dir <= ThreatTracker.DIR_ANTI_DIAG; dir++) {
+            int lines = dir <= ThreatTracker.DIR_COL ? size : 2 * size - 1;
+            for (int index = 0; index < lines; index++) {
+                long own = line(side, dir, index);
+                long opponent = line(1 - side, dir, index);
+                int lo = lineStart(dir, index);
+                for (int start = lo; start + WIN_LENGTH - 1 <= lineEnd(dir, index); start++) {
+                    long window = ((1L << WIN_LENGTH) - 1) << start;
+                    if ((opponent & window) == 0 && Long.bitCount(own & window) == stones) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Các ô trống của những khung 5 ô có đúng stones quân của side và không có quân đối phương
+    private int collectWindows(int side, int dir, int index, int stones, int[] out, int count) {
+        long own = line(side, dir, index);
+        long opponent = line(1 - side, dir, index);
+        long found = 0;
+        for (int start = lineStart(dir, index); start + WIN_LENGTH - 1 <= lineEnd(dir, index); start++) {
+            long window = ((1L << WIN_LENGTH) - 1) << start;
+            if ((opponent & window) == 0 && Long.bitCount(own & window) == stones) {
+                found |= window & ~own;
+            }
+        }
+        while (found != 0) {
+            int bit = Long.numberOfTrailingZeros(found);
+            found &= found - 1;
+            out[count++] = cellOf(dir, index, bit);
+        }
+        return count;
+    }
+
+    private int cellOf(int dir, int index, int bit) {
+        switch (dir) {
+            case ThreatTracker.DIR_ROW: return index * size + bit;
+            case ThreatTracker.DIR_COL: return bit * size + index;
+            case ThreatTracker.DIR_DIAG: return (bit + index - size + 1) * size + bit;
+            default: return (index - bit) * size + bit;
+        }
+    }
+
+    /**
+     * Kiểm tra có chuỗi WIN_LENGTH quân liên tiếp đi qua ô (row, col) hay không
+     */
+    public boolean hasFive(int row, int col, int side) {
+        return containsRun(rows[side][row], col)
+                || containsRun(cols[side][col], row)
+                || containsRun(diags[side][row - col + size - 1], col)
+                || containsRun(antiDiags[side][row + col], col);
+    }
+
+    // Bit s của runs được bật khi các bit s..s+4 đều bật; chuỗi chứa pos khi s nằm trong [pos-4, pos]
+    private static boolean containsRun(long line, int pos) {
+        long runs = line;
+        for (int i = 1; i < WIN_LENGTH; i++) {
+            runs &= line >>> i;
+        }
+        if (runs == 0) {
+            return false;
+        }
+        long upTo = -1L >>> (63 - pos);
+        long below = (1L << Math.max(0, pos - WIN_LENGTH + 1)) - 1;
+        return (runs & upTo & ~below) != 0;
+    }
+
+    /**
+     * Chuyển sang mảng String[][] ("X", "O", null) để giữ nguyên JSON gửi cho frontend
+     */
+    public String[][] toArray() {
+        String[][] board = new String[size][size];
+        for (int row = 0; row < size; row++) {
+            long x = rows[X][row];
+            while (x != 0) {
+                board[row][Long.numberOfTrailingZeros(x)] = "X";
+                x &= x - 1;
+            }
+            long o = rows[O][row];
+            while (o != 0) {
+                board[row][Long.numberOfTrailingZeros(o)] = "O";
+                o &= o - 1;
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Danh sách ô của một bên dạng phẳng [row0, col0, row1, col1, ...], theo thứ tự hàng rồi cột
+     */
+    public int[] stones(int side) {
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            count += Long.bitCount(rows[side][row]);
+        }
+        int[] cells = new int[count * 2];
+        int i = 0;
+        for (int row = 0; row < size; row++) {
+            long bits = rows[side][row];
+            while (bits != 0) {
+                cells[i++] = row;
+                cells[i++] = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return cells;
+    }
+
+    public void load(String[][] board) {
+        clear();
+        if (board == null) {
+            return;
+        }
+        for (int row = 0; row < Math.min(size, board.length); row++) {
+            if (board[row] == null) continue;
+            for (int col = 0; col < Math.min(size, board[row].length); col++) {
+                int side = sideOf(board[row][col]);
+                if (side != EMPTY) {
+                    place(row, col, side);
+                }
+            }
+        }
+    }
+
+    public static int sideOf(String symbol) {
+        if ("X".equals(symbol)) return X;
+        if ("O".equals(symbol)) return O;
+        return EMPTY;
+    }
+
+    public static String symbolOf(int side) {
+        return side == X ? "X" : side == O ? "O" : null;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.carogame.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Sự kiện thay đổi (delta) của một phòng, gửi tới /topic/game/{gameId} thay cho toàn bộ GameState.
+ * seq tăng đơn điệu theo phòng; client thấy seq bị nhảy thì tải lại snapshot qua /api/game/{gameId}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameEvent {
+
+    public enum Type {
+        PLAYER_JOINED,
+        PLAYER_LEFT,
+        MOVE_APPLIED,   // Nước đi hợp lệ, currentPlayer là lượt kế tiếp
+        GAME_OVER,      // Nước đi kết thúc ván, winner là người thắng
+        GAME_RESET
+    }
+
+    private String gameId;
+    private long seq;
+    private Type type;
+
+    // Nước đi (MOVE_APPLIED, GAME_OVER)
+    private Integer row;
+    private Integer col;
+    private String symbol;
+    private String playerId;
+
+    private String currentPlayer;
+    private Boolean gameOver;
+    private String winner;
+
+    // Danh sách người chơi (PLAYER_JOINED, PLAYER_LEFT)
+    private List<Player> players;
+
+    public GameEvent() {}
+
+    private GameEvent(GameState game, Type type) {
+        this.gameId = game.getGameId();
+        this.seq = game.getSeq();
+        this.type = type;
+        this.currentPlayer = game.getCurrentPlayer();
+        this.gameOver = game.isGameOver();
+        this.winner = game.getWinner();
+    }
+
+    public static GameEvent moveApplied(GameState game, Move move) {
+        GameEvent event = new GameEvent(game, game.isGameOver() ? Type.GAME_OVER : Type.MOVE_APPLIED);
+        event.row = move.getRow();
+        event.col = move.getCol();
+        event.symbol = move.getSymbol();
+        event.playerId = move.getPlayerId();
+        return event;
+    }
+
+    public static GameEvent playerJoined(GameState game) {
+        GameEvent event = new GameEvent(game, Type.PLAYER_JOINED);
+        event.players = new ArrayList<>(game.getPlayers());
+        return event;
+    }
+
+    public static GameEvent playerLeft(GameState game, String playerId) {
+        GameEvent event = new GameEvent(game, Type.PLAYER_LEFT);
+        event.playerId = playerId;
+        event.players = new ArrayList<>(game.getPlayers());
+        return event;
+    }
+
+    public static GameEvent gameReset(GameState game) {
+        return new GameEvent(game, Type.GAME_RESET);
+    }
+
+    // Getters and Setters
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Integer getRow() {
+        return row;
+    }
+
+    public void setRow(Integer row) {
+        this.row = row;
+    }
+
+    public Integer getCol() {
+        return col;
+    }
+
+    public void setCol(Integer col) {
+        this.col = col;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    public void setPlayerId(String playerId) {
+        this.playerId = playerId;
+    }
+
+    public String getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public void setCurrentPlayer(String currentPlayer) {
+        this.currentPlayer = currentPlayer;
+    }
+
+    public Boolean getGameOver() {
+        return gameOver;
+    }
+
+    public void setGameOver(Boolean gameOver) {
+        this.gameOver = gameOver;
+    }
+
+    public String getWinner() {
+        return winner;
+    }
+
+    public void setWinner(String winner) {
+        this.winner = winner;
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public void setPlayers(List<Player> players) {
+        this.players = players;
+    }
+}
@@ -1,19 +1,33 @@
 package com.example.carogame.model;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 public class GameState {
-    private String[][] board;
-    private String currentPlayer;
-    private boolean gameOver;
-    private String winner;
+    // Theo cột game_id VARCHAR(100) của game_results / game_moves
+    public static final int MAX_GAME_ID_LENGTH = 100;
+    // Tên file snapshot là Base64 của gameId (UTF-8): 180 byte -> 240 ký tự, dưới giới hạn 255 của tên file
+    public static final int MAX_GAME_ID_BYTES = 180;
+
+    private BitBoard bitBoard;
+    // volatile để danh sách phòng đọc được mà không cần lock của phòng
+    private volatile String currentPlayer;
+    private volatile boolean gameOver;
+    private volatile String winner;
     private List<Player> players;
     private String gameId;
     private BoardType boardType;
+    // Số thứ tự thay đổi của phòng, tăng mỗi khi trạng thái đổi (xem GameEvent)
+    private volatile long seq;
+    // Định danh của ván hiện tại trong phòng, đổi mỗi lần reset (khóa idempotency của kết quả ván)
+    private volatile String matchId = newMatchId();
 
     public GameState() {
         this.boardType = BoardType.STANDARD; // Default 15x15
-        this.board = new String[boardType.getSize()][boardType.getSize()];
+        this.bitBoard = new BitBoard(boardType.getSize());
         this.gameOver = false;
     }
 
@@ -25,17 +39,32 @@ public class GameState {
     public GameState(String gameId, BoardType boardType) {
         this.gameId = gameId;
         this.boardType = boardType;
-        this.board = new String[boardType.getSize()][boardType.getSize()];
+        this.bitBoard = new BitBoard(boardType.getSize());
         this.gameOver = false;
     }
 
+    /**
+     * gameId dùng được cho phòng mới: không rỗng, vừa cột DB và tên file snapshot
+     */
+    public static boolean isValidGameId(String gameId) {
+        return gameId != null && !gameId.isBlank() && gameId.length() <= MAX_GAME_ID_LENGTH
+                && gameId.getBytes(StandardCharsets.UTF_8).length <= MAX_GAME_ID_BYTES;
+    }
+
     // Getters and Setters
+
+    // Adapter: bàn cờ được lưu dạng bitboard, JSON vẫn là mảng String[][] như cũ
     public String[][] getBoard() {
-        return board;
+        return bitBoard.toArray();
     }
 
     public void setBoard(String[][] board) {
-        this.board = board;
+        this.bitBoard.load(board);
+    }
+
+    @JsonIgnore
+    public BitBoard getBitBoard() {
+        return bitBoard;
     }
 
     public String getCurrentPlayer() {
@@ -85,7 +114,41 @@ public class GameState {
     public void setBoardType(BoardType boardType) {
         this.boardType = boardType;
         // Reinitialize board when type changes
-        this.board = new String[boardType.getSize()][boardType.getSize()];
+        this.bitBoard = new BitBoard(boardType.getSize());
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    /**
+     * Tăng seq, chỉ gọi khi đang giữ lock / mailbox của phòng
+     */
+    public long nextSeq() {
+        return ++seq;
+    }
+
+    public String getMatchId() {
+        return matchId;
+    }
+
+    public void setMatchId(String matchId) {
+        this.matchId = matchId;
+    }
+
+    /**
+     * Bắt đầu ván mới trong cùng phòng, chỉ gọi khi đang giữ lock / mailbox của phòng
+     */
+    public void startNewMatch() {
+        this.matchId = newMatchId();
+    }
+
+    private static String newMatchId() {
+        return UUID.randomUUID().toString();
     }
 
     public int getBoardSize() {
@@ -0,0 +1,10 @@
+package com.example.carogame.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng của nhật ký nước đi (bảng game_moves). matchId xác định ván, seq là seq của phòng
+ * sau nước đi nên (matchId, seq) là duy nhất.
+ */
+public record MoveLogEntry(String matchId, String gameId, long seq, int moveNumber,
+                           int row, int col, String symbol, String playerId, LocalDateTime createdAt) {}
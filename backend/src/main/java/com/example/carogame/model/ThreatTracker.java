@@ -0,0 +1,148 @@
+package com.example.carogame.model;
+
+import java.util.Arrays;
+
+/**
+ * Đếm tăng dần các mẫu (hai, ba, bốn mở / bị chặn một đầu, năm) của mỗi bên trên BitBoard.
+ *
+ * Mỗi đường (hàng, cột, chéo, chéo ngược) lưu phần đóng góp của nó vào tổng. Khi một ô thay đổi
+ * chỉ bốn đường đi qua ô đó được tính lại, nên đặt quân / gỡ quân (undo) không cấp phát bộ nhớ
+ * và tổng luôn đúng. Mẫu được tính theo chuỗi quân liên tiếp; các thế "ba gãy" như X_XX không
+ * được tính riêng.
+ */
+public class ThreatTracker {
+
+    public static final int OPEN_TWO = 0;
+    public static final int CLOSED_TWO = 1;
+    public static final int OPEN_THREE = 2;
+    public static final int CLOSED_THREE = 3;
+    public static final int OPEN_FOUR = 4;
+    public static final int CLOSED_FOUR = 5;
+    public static final int FIVE = 6;
+    public static final int PATTERN_COUNT = 7;
+
+    // Trọng số của từng mẫu cho hàm lượng giá
+    private static final int[] WEIGHTS = {200, 20, 5_000, 500, 100_000, 10_000, 10_000_000};
+
+    static final int DIR_ROW = 0;
+    static final int DIR_COL = 1;
+    static final int DIR_DIAG = 2;
+    static final int DIR_ANTI_DIAG = 3;
+
+    private final BitBoard board;
+    private final int[][] totals = new int[2][PATTERN_COUNT];
+    // [dir][lineIndex][side * PATTERN_COUNT + pattern]
+    private final int[][][] lineCounts;
+
+    ThreatTracker(BitBoard board) {
+        this.board = board;
+        int size = board.getSize();
+        this.lineCounts = new int[][][] {
+                new int[size][2 * PATTERN_COUNT],
+                new int[size][2 * PATTERN_COUNT],
+                new int[2 * size - 1][2 * PATTERN_COUNT],
+                new int[2 * size - 1][2 * PATTERN_COUNT]
+        };
+    }
+
+    public int count(int side, int pattern) {
+        return totals[side][pattern];
+    }
+
+    public boolean hasFive(int side) {
+        return totals[side][FIVE] > 0;
+    }
+
+    /**
+     * Điểm thế cờ theo góc nhìn của side (dương là side có lợi)
+     */
+    public int evaluate(int side) {
+        int opponent = 1 - side;
+        int score = 0;
+        for (int pattern = 0; pattern < PATTERN_COUNT; pattern++) {
+            score += WEIGHTS[pattern] * (totals[side][pattern] - totals[opponent][pattern]);
+        }
+        return score;
+    }
+
+    void reset() {
+        for (int[] sideTotals : totals) {
+            Arrays.fill(sideTotals, 0);
+        }
+        for (int[][] dirCounts : lineCounts) {
+            for (int[] counts : dirCounts) {
+                Arrays.fill(counts, 0);
+            }
+        }
+    }
+
+    /**
+     * Tính lại bốn đường đi qua ô (row, col); gọi sau mỗi lần ô này thay đổi
+     */
+    void cellChanged(int row, int col) {
+        int size = board.getSize();
+        refreshLine(DIR_ROW, row);
+        refreshLine(DIR_COL, col);
+        refreshLine(DIR_DIAG, row - col + size - 1);
+        refreshLine(DIR_ANTI_DIAG, row + col);
+    }
+
+    private void refreshLine(int dir, int index) {
+        int[] counts = lineCounts[dir][index];
+        for (int side = BitBoard.X; side <= BitBoard.O; side++) {
+            int base = side * PATTERN_COUNT;
+            for (int pattern = 0; pattern < PATTERN_COUNT; pattern++) {
+                totals[side][pattern] -= counts[base + pattern];
+                counts[base + pattern] = 0;
+            }
+        }
+
+        int lo = board.lineStart(dir, index);
+        int hi = board.lineEnd(dir, index);
+        long x = board.line(BitBoard.X, dir, index);
+        long o = board.line(BitBoard.O, dir, index);
+        scan(counts, BitBoard.X, x, o, lo, hi);
+        scan(counts, BitBoard.O, o, x, lo, hi);
+
+        for (int side = BitBoard.X; side <= BitBoard.O; side++) {
+            int base = side * PATTERN_COUNT;
+            for (int pattern = 0; pattern < PATTERN_COUNT; pattern++) {
+                totals[side][pattern] += counts[base + pattern];
+            }
+        }
+    }
+
+    // Duyệt các chuỗi quân liên tiếp của own trên đoạn [lo, hi]
+    private static void scan(int[] counts, int side, long own, long opponent, int lo, int hi) {
+        long bits = own;
+        while (bits != 0) {
+            int start = Long.numberOfTrailingZeros(bits);
+            int length = Long.numberOfTrailingZeros(~(bits >>> start));
+            int end = start + length - 1;
+            bits &= length >= 64 ? 0 : ~(((1L << length) - 1) << start);
+
+            int pattern = classify(length,
+                    start - 1 >= lo && (opponent & (1L << (start - 1))) == 0,
+                    end + 1 <= hi && (opponent & (1L << (end + 1))) == 0);
+            if (pattern >= 0) {
+                counts[side * PATTERN_COUNT + pattern]++;
+            }
+        }
+    }
+
+    private static int classify(int length, boolean leftOpen, boolean rightOpen) {
+        if (length >= BitBoard.WIN_LENGTH) {
+            return FIVE;
+        }
+        int openEnds = (leftOpen ? 1 : 0) + (rightOpen ? 1 : 0);
+        if (openEnds == 0) {
+            return -1;
+        }
+        switch (length) {
+            case 4: return openEnds == 2 ? OPEN_FOUR : CLOSED_FOUR;
+            case 3: return openEnds == 2 ? OPEN_THREE : CLOSED_THREE;
+            case 2: return openEnds == 2 ? OPEN_TWO : CLOSED_TWO;
+            default: return -1;
+        }
+    }
+}
@@ -2,9 +2,11 @@ package com.example.carogame.repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,16 +17,38 @@ import com.example.carogame.entity.ChatMessage;
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
 
-    // Find messages by room ID with pagination
-    Page<ChatMessage> findByRoomIdOrderByCreatedAtDesc(String roomId, Pageable pageable);
+    // Lịch sử theo keyset (created_at, id) trên index (room_id, created_at, id): trang nào cũng
+    // chỉ đọc size + 1 dòng, không OFFSET và không COUNT. Trang sau bắt đầu ngay trước tin cuối của trang trước.
+    // Điều kiện thừa createdAt <= :beforeCreatedAt là cận trên của khoảng quét index (Index Cond);
+    // thiếu nó thì phần OR chỉ là Filter và Postgres quét từ đầu khoảng của phòng, trang càng sâu càng chậm.
+    @Query("SELECT cm FROM ChatMessage cm JOIN FETCH cm.sender WHERE cm.roomId = :roomId "
+            + "ORDER BY cm.createdAt DESC, cm.id DESC")
+    Slice<ChatMessage> findRoomHistory(@Param("roomId") String roomId, Pageable pageable);
 
-    // Find recent messages by room ID (last N messages)
-    @Query("SELECT cm FROM ChatMessage cm WHERE cm.roomId = :roomId ORDER BY cm.createdAt DESC")
-    List<ChatMessage> findRecentMessagesByRoomId(@Param("roomId") String roomId, Pageable pageable);
+    @Query("SELECT cm FROM ChatMessage cm JOIN FETCH cm.sender WHERE cm.roomId = :roomId "
+            + "AND cm.createdAt <= :beforeCreatedAt "
+            + "AND (cm.createdAt < :beforeCreatedAt OR (cm.createdAt = :beforeCreatedAt AND cm.id < :beforeId)) "
+            + "ORDER BY cm.createdAt DESC, cm.id DESC")
+    Slice<ChatMessage> findRoomHistoryBefore(@Param("roomId") String roomId,
+                                             @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                             @Param("beforeId") Long beforeId,
+                                             Pageable pageable);
 
-    // Find global chat messages (roomId is null)
-    @Query("SELECT cm FROM ChatMessage cm WHERE cm.roomId IS NULL ORDER BY cm.createdAt DESC")
-    Page<ChatMessage> findGlobalMessages(Pageable pageable);
+    @Query("SELECT cm FROM ChatMessage cm JOIN FETCH cm.sender WHERE cm.roomId IS NULL "
+            + "ORDER BY cm.createdAt DESC, cm.id DESC")
+    Slice<ChatMessage> findGlobalHistory(Pageable pageable);
+
+    @Query("SELECT cm FROM ChatMessage cm JOIN FETCH cm.sender WHERE cm.roomId IS NULL "
+            + "AND cm.createdAt <= :beforeCreatedAt "
+            + "AND (cm.createdAt < :beforeCreatedAt OR (cm.createdAt = :beforeCreatedAt AND cm.id < :beforeId)) "
+            + "ORDER BY cm.createdAt DESC, cm.id DESC")
+    Slice<ChatMessage> findGlobalHistoryBefore(@Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                               @Param("beforeId") Long beforeId,
+                                               Pageable pageable);
+
+    // Thời điểm của tin làm cursor khi client chỉ gửi id
+    @Query("SELECT cm.createdAt FROM ChatMessage cm WHERE cm.id = :id")
+    Optional<LocalDateTime> findCreatedAtById(@Param("id") Long id);
 
     // Find messages by sender
     Page<ChatMessage> findBySenderIdOrderByCreatedAtDesc(Long senderId, Pageable pageable);
@@ -0,0 +1,33 @@
+package com.example.carogame.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.carogame.entity.GameResult;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface GameResultRepository extends JpaRepository<GameResult, Long> {
+
+    // Lấy một lô kết quả chưa áp dụng và khóa lại; các node khác bỏ qua dòng đang bị khóa
+    @Query(value = "SELECT * FROM game_results WHERE status = 'PENDING' ORDER BY id LIMIT :limit " +
+           "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<GameResult> lockPendingBatch(@Param("limit") int limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM GameResult r WHERE r.id = :id")
+    Optional<GameResult> lockById(@Param("id") Long id);
+
+    Optional<GameResult> findByResultKey(String resultKey);
+
+    List<GameResult> findTop20ByGameIdOrderByIdDesc(String gameId);
+
+    long countByStatus(GameResult.Status status);
+}
@@ -66,6 +66,14 @@ public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
            "(SELECT us2.rankingPoints FROM UserStats us2 WHERE us2.user.id = :userId)")
     Integer getUserRankPosition(@Param("userId") Long userId);
 
+    // Tính lại rank_position cho cả bảng bằng một câu lệnh, chỉ ghi những dòng có thay đổi
+    @Modifying
+    @Query(value = "UPDATE user_stats us SET rank_position = ranked.position " +
+           "FROM (SELECT id, RANK() OVER (ORDER BY ranking_points DESC) AS position FROM user_stats) ranked " +
+           "WHERE us.id = ranked.id AND us.rank_position IS DISTINCT FROM ranked.position",
+           nativeQuery = true)
+    int recomputeRankPositions();
+
     // Get stats summary
     @Query("SELECT COUNT(us), AVG(us.rankingPoints), MAX(us.rankingPoints), MIN(us.rankingPoints) " +
            "FROM UserStats us")
@@ -77,6 +85,10 @@ public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
     List<UserStats> findByRankingPointsRange(@Param("minPoints") Integer minPoints,
                                            @Param("maxPoints") Integer maxPoints);
 
+    // Keyset batch (theo id) kèm user, dùng để nạp LeaderboardIndex
+    @Query("SELECT us FROM UserStats us JOIN FETCH us.user WHERE us.id > :afterId ORDER BY us.id")
+    List<UserStats> findBatchAfter(@Param("afterId") Long afterId, Pageable pageable);
+
     // Get recent active players
     @Query("SELECT us FROM UserStats us WHERE us.lastGameDate >= :since ORDER BY us.lastGameDate DESC")
     List<UserStats> findRecentlyActive(@Param("since") java.time.LocalDateTime since, Pageable pageable);
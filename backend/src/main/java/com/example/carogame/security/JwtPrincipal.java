@@ -0,0 +1,110 @@
+package com.example.carogame.security;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.carogame.util.JwtUtil;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Người dùng đã xác thực, dựng hoàn toàn từ claims của JWT (không truy vấn DB).
+ * getName() là username nên Principal.getName() ở controller / STOMP vẫn như trước.
+ */
+public class JwtPrincipal implements AuthenticatedPrincipal {
+
+    private final Long userId;
+    private final String username;
+    private final String role;
+    private final boolean enabled;
+    private final int tokenVersion;
+    private final List<GrantedAuthority> authorities;
+
+    private JwtPrincipal(Long userId, String username, String role, boolean enabled, int tokenVersion) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.enabled = enabled;
+        this.tokenVersion = tokenVersion;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    /**
+     * null nếu token thiếu claim cần thiết (token cấp trước khi có các claim này)
+     */
+    public static JwtPrincipal from(Claims claims) {
+        Number userId = claims.get(JwtUtil.CLAIM_USER_ID, Number.class);
+        Number version = claims.get(JwtUtil.CLAIM_TOKEN_VERSION, Number.class);
+        String role = claims.get(JwtUtil.CLAIM_ROLE, String.class);
+        Boolean enabled = claims.get(JwtUtil.CLAIM_ENABLED, Boolean.class);
+        if (claims.getSubject() == null || userId == null || version == null || role == null || enabled == null) {
+            return null;
+        }
+        return new JwtPrincipal(userId.longValue(), claims.getSubject(), role, enabled, version.intValue());
+    }
+
+    /**
+     * JwtPrincipal bên trong Principal của request / session STOMP, hoặc null
+     */
+    public static JwtPrincipal of(Principal principal) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof JwtPrincipal jwtPrincipal) {
+            return jwtPrincipal;
+        }
+        return null;
+    }
+
+    /**
+     * Người dùng của request hiện tại do JwtAuthenticationFilter đặt vào (chữ ký, hạn và token
+     * version đã được kiểm tra), hoặc null nếu không có token hợp lệ / token đã bị thu hồi
+     */
+    public static JwtPrincipal current() {
+        return of(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    public UsernamePasswordAuthenticationToken toAuthentication() {
+        return new UsernamePasswordAuthenticationToken(this, null, authorities);
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public Collection<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.carogame.security;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.carogame.repository.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * tokenVersion hiện tại của từng user, để từ chối JWT đã bị thu hồi mà không truy vấn DB mỗi
+ * request. Chỉ đọc DB khi user chưa có trong cache hoặc giá trị đã quá ttlMs (các node khác
+ * thấy việc thu hồi chậm tối đa ttlMs); AdminController cập nhật ngay khi đổi quyền / khóa /
+ * xóa user trên node này.
+ */
+@Component
+public class TokenVersionCache {
+
+    // User đã bị xóa
+    private static final int MISSING = -1;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${jwt.version-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${jwt.version-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    private Map<Long, Entry> versions;
+
+    @PostConstruct
+    public void init() {
+        versions = Collections.synchronizedMap(new LinkedHashMap<Long, Entry>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Token còn hiệu lực: tài khoản đang bật khi cấp và version trùng với version hiện tại
+     */
+    public boolean isCurrent(JwtPrincipal principal) {
+        return principal.isEnabled() && principal.getTokenVersion() == currentVersion(principal.getUserId());
+    }
+
+    public void update(Long userId, int tokenVersion) {
+        versions.put(userId, new Entry(tokenVersion, System.currentTimeMillis()));
+    }
+
+    public void evict(Long userId) {
+        versions.put(userId, new Entry(MISSING, System.currentTimeMillis()));
+    }
+
+    private int currentVersion(Long userId) {
+        Entry entry = versions.get(userId);
+        long now = System.currentTimeMillis();
+        if (entry != null && now - entry.loadedAt() < ttlMs) {
+            return entry.version();
+        }
+        int version = userRepository.findTokenVersionById(userId).orElse(MISSING);
+        versions.put(userId, new Entry(version, now));
+        return version;
+    }
+
+    private record Entry(int version, long loadedAt) {}
+}
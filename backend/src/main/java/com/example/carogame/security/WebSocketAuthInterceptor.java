@@ -9,12 +9,9 @@ import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
-import com.example.carogame.entity.User;
-import com.example.carogame.repository.UserRepository;
 import com.example.carogame.util.JwtUtil;
 
 @Component
@@ -24,7 +21,7 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserRepository userRepository;
+    private TokenVersionCache tokenVersionCache;
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
@@ -46,17 +43,9 @@ public class WebSocketAuthInterceptor implements ChannelInterceptor {
 
     public Principal authenticateToken(String token) {
         try {
-            String username = jwtUtil.extractUsername(token);
-            if (username != null) {
-                User user = userRepository.findByUsername(username).orElse(null);
-
-                if (user != null && jwtUtil.validateToken(token, user)) {
-                    return new UsernamePasswordAuthenticationToken(
-                        username,
-                        null,
-                        user.getAuthorities()
-                    );
-                }
+            JwtPrincipal principal = JwtPrincipal.from(jwtUtil.parseToken(token));
+            if (principal != null && tokenVersionCache.isCurrent(principal)) {
+                return principal.toAuthentication();
             }
         } catch (Exception e) {
             // Log the error but don't throw exception to avoid breaking WebSocket connection
@@ -0,0 +1,208 @@
+package com.example.carogame.service;
+
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.carogame.ai.OpeningBook;
+import com.example.carogame.ai.ParallelSearch;
+import com.example.carogame.ai.SearchResult;
+import com.example.carogame.ai.TranspositionTable;
+import com.example.carogame.model.BitBoard;
+import com.example.carogame.model.GameEvent;
+import com.example.carogame.model.GameState;
+import com.example.carogame.model.Move;
+import com.example.carogame.model.Player;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Người chơi máy: vào phòng với quân O và trả lời nước đi của người chơi.
+ *
+ * Việc tìm nước chạy trên pool riêng có giới hạn, không chiếm thread của mailbox hay STOMP.
+ * Mỗi lượt tìm dùng nhiều luồng (lazy SMP) trên một ForkJoinPool chung; parallelism của pool là
+ * trần số core mà AI được dùng trên node này, để các phòng người chơi không bị đói CPU.
+ * Các nước đầu ván lấy từ sách khai cuộc (nếu có) mà không cần tìm kiếm.
+ * Bàn cờ được sao chép trong mailbox của phòng; nước đi tìm được chỉ được áp dụng (và gửi đi,
+ * cũng trong mailbox) nếu seq của phòng không đổi trong lúc máy suy nghĩ.
+ */
+@Service
+public class AiPlayerService {
+
+    public static final String AI_PLAYER_PREFIX = "ai_";
+    private static final String AI_PLAYER_NAME = "Máy (AI)";
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private GameCommandDispatcher commandDispatcher;
+
+    @Autowired
+    private GameBroadcaster gameBroadcaster;
+
+    @Value("${game.ai.think-time-ms:1000}")
+    private long thinkTimeMs;
+
+    @Value("${game.ai.max-depth:10}")
+    private int maxDepth;
+
+    @Value("${game.ai.threads:2}")
+    private int threads;
+
+    @Value("${game.ai.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${game.ai.tt-size-bits:20}")
+    private int ttSizeBits;
+
+    // Số core tối đa cho AI (0 = một nửa số core) và số luồng cho mỗi lượt tìm
+    @Value("${game.ai.parallelism:0}")
+    private int parallelism;
+
+    @Value("${game.ai.search-threads:4}")
+    private int searchThreads;
+
+    // File sách khai cuộc (tạo bằng OpeningBookGenerator), để trống nếu không dùng
+    @Value("${game.ai.opening-book:}")
+    private String openingBookPath;
+
+    private ThreadPoolExecutor executor;
+    private ForkJoinPool searchPool;
+    // Bảng chuyển vị dùng chung giữa các luồng và các phòng
+    private ParallelSearch parallelSearch;
+    private OpeningBook openingBook = OpeningBook.empty();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "game-ai-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+
+        int poolSize = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        searchPool = new ForkJoinPool(poolSize);
+        parallelSearch = new ParallelSearch(searchPool, new TranspositionTable(ttSizeBits));
+
+        if (!openingBookPath.isBlank()) {
+            openingBook = OpeningBook.openOrEmpty(Paths.get(openingBookPath));
+            System.out.println("Opening book " + openingBookPath + ": " + openingBook.entryCount(15) + " positions for 15x15");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        searchPool.shutdownNow();
+    }
+
+    public static String aiPlayerId(String gameId) {
+        return AI_PLAYER_PREFIX + gameId;
+    }
+
+    public static boolean isAiPlayer(String playerId) {
+        return playerId != null && playerId.startsWith(AI_PLAYER_PREFIX);
+    }
+
+    /**
+     * Cho máy vào phòng đang có đúng một người chơi. Gọi bên trong mailbox của phòng.
+     */
+    public GameState joinAsAi(String gameId) {
+        GameState game = gameService.getGame(gameId);
+        if (game == null || game.getPlayers().size() != 1 || isAiPlayer(game.getPlayers().get(0).getId())) {
+            return game;
+        }
+        return gameService.joinGame(gameId, new Player(aiPlayerId(gameId), AI_PLAYER_NAME, null));
+    }
+
+    /**
+     * Gọi sau khi một sự kiện của phòng đã được gửi đi: đến lượt máy thì bắt đầu tìm nước,
+     * còn nếu trong phòng chỉ còn máy thì máy rời phòng
+     */
+    public void onGameEvent(String gameId, GameEvent event) {
+        if (event.getType() == GameEvent.Type.PLAYER_LEFT && event.getPlayers() != null
+                && event.getPlayers().stream().allMatch(player -> isAiPlayer(player.getId()))) {
+            String aiId = aiPlayerId(gameId);
+            commandDispatcher.submit(gameId, () -> gameService.leaveGame(gameId, aiId));
+            return;
+        }
+
+        if (!Boolean.TRUE.equals(event.getGameOver()) && aiPlayerId(gameId).equals(event.getCurrentPlayer())) {
+            requestMove(gameId, event.getSeq());
+        }
+    }
+
+    private void requestMove(String gameId, long seq) {
+        commandDispatcher.submit(gameId, () -> {
+            GameState game = gameService.getGame(gameId);
+            if (game == null || game.isGameOver() || game.getSeq() != seq
+                    || !aiPlayerId(gameId).equals(game.getCurrentPlayer())) {
+                return null;
+            }
+            Player ai = game.getPlayers().stream()
+                    .filter(player -> player.getId().equals(game.getCurrentPlayer()))
+                    .findFirst()
+                    .orElse(null);
+            return ai != null ? new Position(game.getBitBoard().copy(), BitBoard.sideOf(ai.getSymbol()), seq) : null;
+        }).thenAccept(position -> {
+            if (position == null) {
+                return;
+            }
+            try {
+                executor.execute(() -> think(gameId, position));
+            } catch (RejectedExecutionException e) {
+                System.err.println("AI executor is full, skipping move for game " + gameId);
+            }
+        });
+    }
+
+    private void think(String gameId, Position position) {
+        int size = position.board().getSize();
+        int bookMove = openingBook.lookup(position.board());
+        int row;
+        int col;
+        if (bookMove >= 0) {
+            row = bookMove / size;
+            col = bookMove % size;
+        } else {
+            SearchResult result = parallelSearch.search(position.board(), position.side(), thinkTimeMs, maxDepth, searchThreads);
+            if (result == null) {
+                return;
+            }
+            row = result.row();
+            col = result.col();
+        }
+
+        Move move = new Move(row, col, aiPlayerId(gameId), BitBoard.symbolOf(position.side()));
+        commandDispatcher.submit(gameId, () -> {
+            GameState game = gameService.getGame(gameId);
+            if (game == null || game.getSeq() != position.seq()) {
+                return null; // Thế cờ đã thay đổi trong lúc máy suy nghĩ
+            }
+            GameState updated = gameService.makeMove(gameId, move);
+            if (updated.getSeq() == position.seq()) {
+                return null;
+            }
+            // Gửi ngay trong mailbox để giữ thứ tự seq với các sự kiện khác của phòng
+            GameEvent event = GameEvent.moveApplied(updated, move);
+            gameBroadcaster.publish(gameId, event);
+            return event;
+        });
+    }
+
+    private record Position(BitBoard board, int side, long seq) {}
+}
@@ -0,0 +1,158 @@
+package com.example.carogame.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.carogame.ai.ThreatSolution;
+import com.example.carogame.ai.ThreatSolver;
+import com.example.carogame.ai.Zobrist;
+import com.example.carogame.dto.AnalysisResult;
+import com.example.carogame.model.BitBoard;
+import com.example.carogame.model.GameState;
+import com.example.carogame.model.Player;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Phân tích thắng bắt buộc (VCF / VCT) cho thế cờ hiện tại của một phòng.
+ *
+ * Kết quả kết luận được (WIN / NO_WIN) được cache theo hash Zobrist của thế cờ và bên tấn công,
+ * nên các thế cờ phổ biến chỉ phải giải một lần. Kết quả UNKNOWN (hết ngân sách) không được cache.
+ *
+ * Việc giải chạy trên pool riêng có giới hạn (như pool của AI), không trên thread Tomcat: số core
+ * dành cho phân tích và số bộ giải giữ bảng thế cờ trong bộ nhớ không tăng theo số request.
+ * Pool đầy thì analyze ném RejectedExecutionException (controller trả 429).
+ */
+@Service
+public class AnalysisService {
+
+    private static final long O_TO_MOVE = 0x2545F4914F6CDD1DL;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private GameCommandDispatcher commandDispatcher;
+
+    // Trần ngân sách cho mỗi yêu cầu, client chỉ có thể xin ít hơn
+    @Value("${game.analysis.max-nodes:2000000}")
+    private long maxNodes;
+
+    @Value("${game.analysis.max-time-ms:3000}")
+    private long maxTimeMs;
+
+    @Value("${game.analysis.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${game.analysis.threads:1}")
+    private int threads;
+
+    @Value("${game.analysis.queue-capacity:4}")
+    private int queueCapacity;
+
+    private Map<Long, ThreatSolution> cache;
+    private ThreadPoolExecutor executor;
+    // Mỗi thread của pool một bộ giải, số bộ giải bị chặn bởi game.analysis.threads
+    private final ThreadLocal<ThreatSolver> solvers = ThreadLocal.withInitial(ThreatSolver::new);
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "game-analysis-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        cache = Collections.synchronizedMap(new LinkedHashMap<Long, ThreatSolution>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ThreatSolution> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Phân tích cho side ("X" / "O", mặc định là bên đang tới lượt). Trả về null nếu không có phòng;
+     * ném RejectedExecutionException nếu pool phân tích đang đầy.
+     */
+    public AnalysisResult analyze(String gameId, String side, Long nodeBudget, Long timeBudgetMs) {
+        // Sao chép bàn cờ trong mailbox để không đọc giữa chừng một nước đi
+        Position position = commandDispatcher.submit(gameId, () -> {
+            GameState game = gameService.getGame(gameId);
+            if (game == null) {
+                return null;
+            }
+            int attacker = side != null ? BitBoard.sideOf(side.toUpperCase()) : sideToMove(game);
+            return new Position(game.getBitBoard().copy(), attacker, game.getSeq());
+        }).join();
+        if (position == null || position.side() == BitBoard.EMPTY) {
+            return null;
+        }
+
+        BitBoard board = position.board();
+        long key = Zobrist.forSize(board.getSize()).hash(board) ^ (position.side() == BitBoard.O ? O_TO_MOVE : 0);
+        ThreatSolution cached = cache.get(key);
+        if (cached != null) {
+            return AnalysisResult.of(gameId, position.seq(), cached, true);
+        }
+
+        long nodes = nodeBudget != null ? Math.min(nodeBudget, maxNodes) : maxNodes;
+        long timeMs = timeBudgetMs != null ? Math.min(timeBudgetMs, maxTimeMs) : maxTimeMs;
+        ThreatSolution solution = solveOnPool(board, position.side(), nodes, timeMs);
+        if (solution.status() != ThreatSolver.Status.UNKNOWN) {
+            cache.put(key, solution);
+        }
+        return AnalysisResult.of(gameId, position.seq(), solution, false);
+    }
+
+    private ThreatSolution solveOnPool(BitBoard board, int side, long nodes, long timeMs) {
+        Future<ThreatSolution> future = executor.submit(() -> solvers.get().solve(board, side, nodes, timeMs));
+        try {
+            // Bộ giải tự dừng khi hết thời gian; thời gian chờ hàng đợi tối đa queueCapacity lượt giải
+            return future.get((queueCapacity + 1L) * timeMs + 1000L, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for analysis", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RejectedExecutionException("Analysis pool is busy");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Analysis failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static int sideToMove(GameState game) {
+        for (Player player : game.getPlayers()) {
+            if (player.getId().equals(game.getCurrentPlayer())) {
+                return BitBoard.sideOf(player.getSymbol());
+            }
+        }
+        // Chưa có người chơi: X đi trước
+        return game.getBitBoard().getStoneCount() % 2 == 0 ? BitBoard.X : BitBoard.O;
+    }
+
+    private record Position(BitBoard board, int side, long seq) {}
+}
@@ -0,0 +1,15 @@
+package com.example.carogame.service;
+
+import com.example.carogame.model.GameEvent;
+
+/**
+ * Phát lại tin nhắn gửi tới /topic của node này cho client đang kết nối ở các node khác.
+ * Mỗi node dùng broker đơn giản trong bộ nhớ, nên tin nhắn của một phòng chỉ tới được client
+ * ở node khác qua relay. Cài đặt được chọn bằng game.cluster.relay (xem ClusterConfig).
+ */
+public interface BroadcastRelay {
+
+    void relayGameEvent(String gameId, GameEvent event);
+
+    void relayTopic(String destination, Object payload);
+}
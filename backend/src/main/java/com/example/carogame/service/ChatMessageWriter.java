@@ -0,0 +1,112 @@
+package com.example.carogame.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.carogame.entity.ChatMessage;
+
+/**
+ * Lưu tin nhắn chat vào chat_messages qua WriteBehindWriter, cùng cách với MoveLogWriter.
+ *
+ * Id được cấp trước khi lưu (allocateId) từ sequence chat_messages_id_seq, nên tin nhắn có id ngay
+ * khi gửi đi mà không chờ INSERT. Luồng ghi nạp trước một khối idBlockSize giá trị mỗi khi số id
+ * còn lại xuống dưới một nửa khối, nên allocateId không bao giờ chờ JDBC: hết id (DB không kết
+ * nối được) thì trả về null và tin vẫn được gửi đi, chỉ không được lưu.
+ * Tin không vừa cột bị từ chối ở append(); tin bị DB từ chối hẳn (ví dụ người gửi đã bị xóa) bị bỏ.
+ */
+public class ChatMessageWriter extends WriteBehindWriter<ChatMessage> {
+
+    private static final String INSERT_SQL = "INSERT INTO chat_messages "
+            + "(id, sender_id, content, room_id, type, is_system_message, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING";
+    private static final String NEXT_IDS_SQL = "SELECT nextval('chat_messages_id_seq') FROM generate_series(1, ?)";
+
+    private static final long POLL_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int idBlockSize;
+    private final ConcurrentLinkedQueue<Long> freeIds = new ConcurrentLinkedQueue<>();
+    // Số id trong freeIds (size() của hàng đợi phải duyệt cả hàng)
+    private final AtomicInteger freeIdCount = new AtomicInteger();
+    private final AtomicLong idMisses = new AtomicLong();
+
+    public ChatMessageWriter(JdbcTemplate jdbcTemplate, int batchSize, int queueCapacity, int idBlockSize,
+                             long retryDelayMillis, int maxRetries) {
+        super("chat-writer", jdbcTemplate, INSERT_SQL, ChatMessageWriter::bind, batchSize, queueCapacity,
+                POLL_MILLIS, retryDelayMillis, maxRetries);
+        this.jdbcTemplate = jdbcTemplate;
+        this.idBlockSize = idBlockSize;
+    }
+
+    /**
+     * Id cho tin nhắn mới, không chạm DB; null nếu chưa có id nào được nạp sẵn
+     */
+    public Long allocateId() {
+        Long id = freeIds.poll();
+        if (id == null) {
+            idMisses.incrementAndGet();
+            return null;
+        }
+        freeIdCount.decrementAndGet();
+        return id;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = super.getStats();
+        stats.put("freeIds", freeIdCount.get());
+        stats.put("idMisses", idMisses.get());
+        return stats;
+    }
+
+    // Trên luồng ghi: mỗi tin được append đánh thức luồng này, nên khối mới kịp nạp trước khi cạn
+    @Override
+    protected void beforePoll() {
+        if (freeIdCount.get() <= idBlockSize / 2) {
+            List<Long> ids = jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, idBlockSize);
+            freeIds.addAll(ids);
+            freeIdCount.addAndGet(ids.size());
+        }
+    }
+
+    @Override
+    protected boolean accepts(ChatMessage message) {
+        return fitsColumns(message);
+    }
+
+    @Override
+    protected String describe(ChatMessage message) {
+        return "chat message " + message.getId();
+    }
+
+    static boolean fitsColumns(ChatMessage message) {
+        return message.getId() != null
+                && message.getSender() != null && message.getSender().getId() != null
+                && message.getContent() != null && message.getContent().length() <= ChatMessage.MAX_CONTENT_LENGTH
+                && (message.getRoomId() == null || message.getRoomId().length() <= ChatMessage.MAX_ROOM_ID_LENGTH)
+                && message.getType() != null && message.getCreatedAt() != null;
+    }
+
+    private static void bind(PreparedStatement ps, ChatMessage message) throws SQLException {
+        ps.setLong(1, message.getId());
+        ps.setLong(2, message.getSender().getId());
+        ps.setString(3, message.getContent());
+        if (message.getRoomId() != null) {
+            ps.setString(4, message.getRoomId());
+        } else {
+            ps.setNull(4, Types.VARCHAR);
+        }
+        ps.setString(5, message.getType().name());
+        ps.setBoolean(6, Boolean.TRUE.equals(message.getIsSystemMessage()));
+        ps.setTimestamp(7, Timestamp.valueOf(message.getCreatedAt()));
+    }
+}
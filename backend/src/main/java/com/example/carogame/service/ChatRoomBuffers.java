@@ -0,0 +1,108 @@
+package com.example.carogame.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.carogame.entity.ChatMessage;
+
+/**
+ * Tin nhắn gần nhất của từng phòng chat trong bộ nhớ: mỗi phòng một vòng đệm tối đa capacity
+ * tin, giữ tối đa maxRooms phòng (phòng lâu không dùng bị bỏ trước).
+ *
+ * Phòng chỉ trả được từ bộ nhớ sau khi đã nạp lịch sử từ DB một lần (seed); trước đó recent()
+ * trả về null để bên gọi đọc DB. Không phụ thuộc Spring để ChatBenchmark dùng trực tiếp.
+ */
+public class ChatRoomBuffers {
+
+    private static final Comparator<ChatMessage> CHRONOLOGICAL =
+            Comparator.comparing(ChatMessage::getCreatedAt).thenComparing(ChatMessage::getId);
+
+    private final int capacity;
+    private final Map<String, Buffer> rooms;
+
+    public ChatRoomBuffers(int capacity, int maxRooms) {
+        this.capacity = capacity;
+        this.rooms = Collections.synchronizedMap(new LinkedHashMap<String, Buffer>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Buffer> eldest) {
+                return size() > maxRooms;
+            }
+        });
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    public void add(ChatMessage message) {
+        Buffer buffer = rooms.computeIfAbsent(message.getRoomId(), roomId -> new Buffer());
+        synchronized (buffer) {
+            buffer.messages.addLast(message);
+            if (buffer.messages.size() > capacity) {
+                buffer.messages.pollFirst();
+            }
+        }
+    }
+
+    /**
+     * Tối đa limit tin mới nhất (mới trước), hoặc null nếu phòng chưa được nạp từ DB
+     */
+    public List<ChatMessage> recent(String roomId, int limit) {
+        Buffer buffer = rooms.get(roomId);
+        if (buffer == null) {
+            return null;
+        }
+        synchronized (buffer) {
+            if (!buffer.loaded) {
+                return null;
+            }
+            List<ChatMessage> result = new ArrayList<>(Math.min(limit, buffer.messages.size()));
+            Iterator<ChatMessage> newestFirst = buffer.messages.descendingIterator();
+            while (newestFirst.hasNext() && result.size() < limit) {
+                result.add(newestFirst.next());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Nạp lịch sử đọc từ DB (mới trước), gộp với các tin đã nhận trong lúc đọc
+     */
+    public void seed(String roomId, List<ChatMessage> newestFirst) {
+        Buffer buffer = rooms.computeIfAbsent(roomId, id -> new Buffer());
+        synchronized (buffer) {
+            if (buffer.loaded) {
+                return;
+            }
+            Map<Long, ChatMessage> byId = new LinkedHashMap<>();
+            for (ChatMessage message : newestFirst) {
+                byId.put(message.getId(), message);
+            }
+            for (ChatMessage message : buffer.messages) {
+                byId.put(message.getId(), message);
+            }
+            List<ChatMessage> merged = new ArrayList<>(byId.values());
+            merged.sort(CHRONOLOGICAL);
+
+            buffer.messages.clear();
+            buffer.messages.addAll(merged.subList(Math.max(0, merged.size() - capacity), merged.size()));
+            buffer.loaded = true;
+        }
+    }
+
+    private static final class Buffer {
+        // Cũ trước; chỉ truy cập khi giữ lock của Buffer
+        private final ArrayDeque<ChatMessage> messages = new ArrayDeque<>();
+        private boolean loaded;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.carogame.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.carogame.entity.ChatMessage;
+import com.example.carogame.repository.ChatMessageRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Chat: tin nhắn được cấp id, đưa vào vòng đệm của phòng và gửi đi ngay; việc lưu DB chạy nền
+ * qua ChatMessageWriter. /api/chat/recent đọc từ vòng đệm, chỉ đọc DB lần đầu mỗi phòng hoặc
+ * khi xin nhiều hơn dung lượng vòng đệm.
+ */
+@Service
+public class ChatService {
+
+    public static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    public static final int MAX_HISTORY_PAGE_SIZE = 200;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Value("${game.chat.batch-size:500}")
+    private int batchSize;
+
+    @Value("${game.chat.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${game.chat.id-block-size:1000}")
+    private int idBlockSize;
+
+    @Value("${game.chat.retry-delay-ms:1000}")
+    private long retryDelayMillis;
+
+    @Value("${game.chat.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${game.chat.recent-per-room:100}")
+    private int recentPerRoom;
+
+    @Value("${game.chat.max-rooms:10000}")
+    private int maxRooms;
+
+    private ChatMessageWriter writer;
+    private ChatRoomBuffers buffers;
+
+    @PostConstruct
+    public void init() {
+        buffers = new ChatRoomBuffers(recentPerRoom, maxRooms);
+        writer = new ChatMessageWriter(jdbcTemplate, batchSize, queueCapacity, idBlockSize, retryDelayMillis,
+                maxRetries);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.stop();
+    }
+
+    /**
+     * Cấp id, giữ trong vòng đệm của phòng và xếp hàng lưu DB; trả về ngay để gửi cho client,
+     * không chờ DB. Tin hệ thống không có người gửi (sender_id bắt buộc trong DB) chỉ giữ trong
+     * bộ nhớ. Chưa có id nạp sẵn (DB không kết nối được) thì tin chỉ được gửi đi.
+     */
+    public ChatMessage post(ChatMessage message) {
+        message.setId(writer.allocateId());
+        if (message.getId() == null) {
+            return message;
+        }
+        if (message.getRoomId() != null) {
+            buffers.add(message);
+        }
+        if (message.getSender() != null) {
+            writer.append(message);
+        }
+        return message;
+    }
+
+    /**
+     * Tối đa limit tin mới nhất của phòng, mới trước
+     */
+    public List<ChatMessage> recent(String roomId, int limit) {
+        if (limit > buffers.getCapacity()) {
+            return chatMessageRepository.findRoomHistory(roomId, PageRequest.of(0, limit)).getContent();
+        }
+        List<ChatMessage> cached = buffers.recent(roomId, limit);
+        if (cached != null) {
+            return cached;
+        }
+        List<ChatMessage> fromDb = chatMessageRepository.findRoomHistory(roomId,
+                PageRequest.of(0, buffers.getCapacity())).getContent();
+        buffers.seed(roomId, fromDb);
+        List<ChatMessage> seeded = buffers.recent(roomId, limit);
+        return seeded != null ? seeded : fromDb.subList(0, Math.min(limit, fromDb.size()));
+    }
+
+    /**
+     * Lịch sử chat theo keyset, mới trước; roomId null là chat chung. Cursor là tin cuối của trang
+     * trước (beforeId, kèm beforeCreatedAt nếu client có để khỏi tra DB); không có cursor là trang đầu.
+     * Mỗi trang tốn như nhau dù sâu đến đâu và không đếm tổng.
+     */
+    public Slice<ChatMessage> history(String roomId, Long beforeId, LocalDateTime beforeCreatedAt, int size) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE)));
+        if (beforeId == null) {
+            return roomId == null
+                    ? chatMessageRepository.findGlobalHistory(page)
+                    : chatMessageRepository.findRoomHistory(roomId, page);
+        }
+        LocalDateTime createdAt = beforeCreatedAt != null
+                ? beforeCreatedAt
+                : chatMessageRepository.findCreatedAtById(beforeId).orElse(null);
+        if (createdAt == null) {
+            // Cursor không còn (hoặc chưa) có trong DB
+            return new SliceImpl<>(List.of(), page, false);
+        }
+        return roomId == null
+                ? chatMessageRepository.findGlobalHistoryBefore(createdAt, beforeId, page)
+                : chatMessageRepository.findRoomHistoryBefore(roomId, createdAt, beforeId, page);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>(writer.getStats());
+        stats.put("bufferedRooms", buffers.getRoomCount());
+        return stats;
+    }
+}
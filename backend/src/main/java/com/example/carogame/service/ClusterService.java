@@ -0,0 +1,352 @@
+package com.example.carogame.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.carogame.dto.ClusterMessage;
+import com.example.carogame.util.ConsistentHashRing;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Chế độ nhiều node: phòng thuộc về node do vòng băm nhất quán theo gameId chọn. Lệnh của phòng
+ * được chuyển tới node sở hữu, sự kiện được phát lại cho các node khác (xem BroadcastRelay).
+ *
+ * Danh sách node cấu hình tĩnh (game.cluster.nodes = id=url,...), các node gọi nhau qua HTTP
+ * tới /internal/cluster/** kèm header bí mật chung. Mỗi node đích có một luồng gửi riêng, gom
+ * thông điệp thành lô và gửi tuần tự nên thứ tự lệnh / sự kiện của một phòng được giữ nguyên.
+ * Tắt (mặc định) thì mọi phòng là cục bộ.
+ */
+@Service
+public class ClusterService {
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+    private static final String MESSAGES_PATH = "/internal/cluster/messages";
+    private static final int SEND_BATCH = 256;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${game.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${game.cluster.node-id:node-1}")
+    private String nodeId;
+
+    // Ví dụ: node-1=http://localhost:8080,node-2=http://localhost:8081
+    @Value("${game.cluster.nodes:}")
+    private String nodesProperty;
+
+    @Value("${game.cluster.virtual-nodes:128}")
+    private int virtualNodes;
+
+    @Value("${game.cluster.secret:}")
+    private String secret;
+
+    @Value("${game.cluster.peer-queue-capacity:10000}")
+    private int peerQueueCapacity;
+
+    @Value("${game.cluster.request-timeout-ms:5000}")
+    private long requestTimeoutMs;
+
+    private final Map<String, String> nodes = new LinkedHashMap<>();
+    private final Map<String, PeerChannel> channels = new HashMap<>();
+    // Lần khởi động của node này, để node nhận biết seq đã bắt đầu lại từ đầu
+    private final long epoch = System.currentTimeMillis();
+    // Thông điệp cuối cùng đã xử lý của mỗi node gửi
+    private final Map<String, Inbound> inbound = new ConcurrentHashMap<>();
+    private ConsistentHashRing ring;
+    private HttpClient httpClient;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        for (String entry : nodesProperty.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length == 2 && !parts[0].isBlank()) {
+                nodes.put(parts[0].trim(), parts[1].trim().replaceAll("/+$", ""));
+            }
+        }
+        if (!nodes.containsKey(nodeId)) {
+            throw new IllegalStateException("game.cluster.node-id " + nodeId + " is not listed in game.cluster.nodes");
+        }
+        if (secret.isBlank()) {
+            throw new IllegalStateException("game.cluster.secret must be set when game.cluster.enabled=true");
+        }
+        ring = new ConsistentHashRing(nodes.keySet(), virtualNodes);
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(requestTimeoutMs))
+                .build();
+        for (String peer : nodes.keySet()) {
+            if (!peer.equals(nodeId)) {
+                PeerChannel channel = new PeerChannel(peer, URI.create(nodes.get(peer) + MESSAGES_PATH));
+                channels.put(peer, channel);
+                channel.start();
+            }
+        }
+        System.out.println("Cluster mode: node " + nodeId + " of " + nodes.keySet() + ", ring shares " + ring.shares());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (PeerChannel channel : channels.values()) {
+            channel.thread.interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String ownerOf(String gameId) {
+        return enabled ? ring.nodeFor(gameId) : nodeId;
+    }
+
+    /**
+     * Phòng thuộc về node này (luôn đúng khi tắt chế độ nhiều node)
+     */
+    public boolean isLocal(String gameId) {
+        return !enabled || nodeId.equals(ring.nodeFor(gameId));
+    }
+
+    public boolean isValidSecret(String value) {
+        return enabled && value != null
+                && MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Chuyển lệnh tới node sở hữu phòng (không chờ), giữ thứ tự với các lệnh trước đó
+     */
+    public void forwardCommand(String gameId, String command, Object payload) {
+        send(ownerOf(gameId), ClusterMessage.command(gameId, command, objectMapper.valueToTree(payload)));
+    }
+
+    /**
+     * Gửi thông điệp tới mọi node khác
+     */
+    public void broadcast(ClusterMessage message) {
+        for (PeerChannel channel : channels.values()) {
+            channel.offer(message);
+        }
+    }
+
+    /**
+     * Gọi đồng bộ tới node sở hữu phòng (đọc trạng thái, tạo phòng), trả về JSON hoặc null nếu 404
+     */
+    public JsonNode request(String gameId, String method, String path, Object body) {
+        byte[] response = requestBytes(gameId, method, path, body);
+        if (response == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(response);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error calling node " + ownerOf(gameId) + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Như request nhưng trả về nguyên body (snapshot nhị phân), null nếu 404
+     */
+    public byte[] requestBytes(String gameId, String method, String path, Object body) {
+        String owner = ownerOf(gameId);
+        try {
+            HttpRequest.BodyPublisher publisher = body != null
+                    ? HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))
+                    : HttpRequest.BodyPublishers.noBody();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(nodes.get(owner) + path))
+                    .timeout(Duration.ofMillis(requestTimeoutMs))
+                    .header(SECRET_HEADER, secret)
+                    .header("Content-Type", "application/json")
+                    .method(method, publisher)
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 429) {
+                throw new RejectedExecutionException("Node " + owner + " is busy");
+            }
+            if (response.statusCode() == 404 || response.body().length == 0) {
+                return null;
+            }
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException("Node " + owner + " returned HTTP " + response.statusCode());
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling node " + owner, e);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error calling node " + owner + ": " + e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("nodeId", nodeId);
+        if (enabled) {
+            status.put("nodes", nodes.keySet());
+            status.put("ringShares", ring.shares());
+            Map<String, Object> peers = new LinkedHashMap<>();
+            for (PeerChannel channel : channels.values()) {
+                peers.put(channel.peer, Map.of(
+                        "queued", channel.queue.size(),
+                        "sent", channel.sent.get(),
+                        "dropped", channel.dropped.get()));
+            }
+            status.put("peers", peers);
+            Map<String, Object> received = new LinkedHashMap<>();
+            inbound.forEach((sender, from) -> {
+                synchronized (from) {
+                    received.put(sender, Map.of("lastSeq", from.lastSeq, "duplicates", from.duplicates));
+                }
+            });
+            status.put("inbound", received);
+        }
+        return status;
+    }
+
+    /**
+     * Xử lý một lô nhận từ node khác, bỏ qua thông điệp đã xử lý. Lô bị hết thời gian chờ ở node
+     * gửi (nhưng node này đã chạy) được gửi lại nguyên lô; JOIN / LEAVE / RESET không được chạy
+     * hai lần. Node gửi gửi tuần tự theo seq tăng dần, nên chỉ cần nhớ seq lớn nhất đã xử lý của
+     * mỗi node. Lô gửi lại có thể tới khi lô cũ còn đang xử lý: handler chạy dưới lock của node
+     * gửi để hai lô không chen nhau. Thông điệp không có seq (node cũ) luôn được xử lý.
+     */
+    public void receive(List<ClusterMessage> messages, Consumer<ClusterMessage> handler) {
+        for (ClusterMessage message : messages) {
+            if (message.getSender() == null || message.getEpoch() == null || message.getSeq() == null) {
+                handler.accept(message);
+                continue;
+            }
+            Inbound from = inbound.computeIfAbsent(message.getSender(), sender -> new Inbound());
+            synchronized (from) {
+                if (message.getEpoch() > from.epoch) {
+                    // Node gửi đã khởi động lại: seq đếm lại từ đầu
+                    from.epoch = message.getEpoch();
+                    from.lastSeq = 0;
+                }
+                if (message.getEpoch() < from.epoch || message.getSeq() <= from.lastSeq) {
+                    from.duplicates++;
+                    continue;
+                }
+                from.lastSeq = message.getSeq();
+                handler.accept(message);
+            }
+        }
+    }
+
+    private void send(String peer, ClusterMessage message) {
+        PeerChannel channel = channels.get(peer);
+        if (channel != null) {
+            channel.offer(message);
+        }
+    }
+
+    // Luồng gửi tới một node: gom lô, gửi tuần tự, thử lại vài lần rồi bỏ lô nếu node không phản hồi
+    private final class PeerChannel implements Runnable {
+        private static final int MAX_ATTEMPTS = 3;
+
+        private final String peer;
+        private final URI uri;
+        private final LinkedBlockingQueue<ClusterMessage> queue = new LinkedBlockingQueue<>(peerQueueCapacity);
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final Thread thread;
+
+        private PeerChannel(String peer, URI uri) {
+            this.peer = peer;
+            this.uri = uri;
+            this.thread = new Thread(this, "cluster-peer-" + peer);
+            this.thread.setDaemon(true);
+        }
+
+        private void start() {
+            thread.start();
+        }
+
+        private void offer(ClusterMessage message) {
+            if (!queue.offer(message)) {
+                dropped.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void run() {
+            List<ClusterMessage> batch = new ArrayList<>(SEND_BATCH);
+            long seq = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, SEND_BATCH - 1);
+                    // Đánh số trên luồng gửi, theo đúng thứ tự gửi; lô gửi lại giữ nguyên số
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.set(i, batch.get(i).sequenced(nodeId, epoch, ++seq));
+                    }
+                    deliver(batch);
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void deliver(List<ClusterMessage> batch) throws InterruptedException {
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+                try {
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .timeout(Duration.ofMillis(requestTimeoutMs))
+                            .header(SECRET_HEADER, secret)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                            .build();
+                    int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (status < 300) {
+                        sent.addAndGet(batch.size());
+                        return;
+                    }
+                    System.err.println("Node " + peer + " rejected " + batch.size() + " cluster messages: HTTP " + status);
+                } catch (IOException e) {
+                    System.err.println("Error sending to node " + peer + " (attempt " + attempt + "): " + e.getMessage());
+                }
+                Thread.sleep(100L * attempt);
+            }
+            dropped.addAndGet(batch.size());
+        }
+    }
+
+    private static final class Inbound {
+        private long epoch;
+        private long lastSeq;
+        private long duplicates;
+    }
+}
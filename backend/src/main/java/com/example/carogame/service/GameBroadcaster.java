@@ -0,0 +1,79 @@
+package com.example.carogame.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.carogame.config.BinaryFrameInterceptor;
+import com.example.carogame.config.GameFrameMessageConverter;
+import com.example.carogame.model.GameEvent;
+import com.example.carogame.util.GameFrameCodec;
+
+/**
+ * Gửi sự kiện của phòng tới client: JSON trên /topic/game/{gameId}, và frame nhị phân trên
+ * /topic/game/{gameId}/bin khi có session đã chọn encoding nhị phân. Người xem nhận bản gộp
+ * qua SpectatorFeed trên /topic/game/{gameId}/spectate.
+ * Ở chế độ nhiều node, sự kiện còn được phát lại cho client ở các node khác qua BroadcastRelay.
+ */
+@Service
+public class GameBroadcaster {
+
+    private static final String USER_PREFIX = "/user/";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private BinaryFrameInterceptor binaryFrameInterceptor;
+
+    @Autowired
+    private BroadcastRelay broadcastRelay;
+
+    @Autowired
+    private SpectatorFeed spectatorFeed;
+
+    public void publish(String gameId, GameEvent event) {
+        publishLocal(gameId, event);
+        broadcastRelay.relayGameEvent(gameId, event);
+    }
+
+    /**
+     * Gửi tới topic bất kỳ trên mọi node (thông báo phòng bị xóa, ghép trận, ...)
+     */
+    public void publishTopic(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+        broadcastRelay.relayTopic(destination, payload);
+    }
+
+    /**
+     * Gửi riêng cho một user (/user/{username}{destination}, client subscribe /user{destination}),
+     * trên mọi node; chỉ các session của chính user đó nhận được
+     */
+    public void publishToUser(String username, String destination, Object payload) {
+        // Cùng cách mã hóa username với SimpMessagingTemplate.convertAndSendToUser
+        publishTopic(USER_PREFIX + username.replace("/", "%2F") + destination, payload);
+    }
+
+    /**
+     * Chỉ gửi cho client đang kết nối ở node này (sự kiện nhận được từ node khác)
+     */
+    public void publishLocal(String gameId, GameEvent event) {
+        String destination = "/topic/game/" + gameId;
+        messagingTemplate.convertAndSend(destination, event);
+
+        if (binaryFrameInterceptor.hasBinarySubscribers(gameId)) {
+            // octet-stream để frame đi dưới dạng BinaryMessage; header x-caro-frame chọn
+            // GameFrameMessageConverter thay cho Jackson và cho client biết loại frame
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setContentType(GameFrameMessageConverter.CONTENT_TYPE);
+            headers.setNativeHeader(GameFrameCodec.FRAME_HEADER, GameFrameCodec.FRAME_EVENT);
+            headers.setLeaveMutable(true);
+            messagingTemplate.convertAndSend(destination + BinaryFrameInterceptor.BINARY_SUFFIX, event,
+                    headers.getMessageHeaders());
+        }
+
+        spectatorFeed.onEvent(gameId, event);
+    }
+}
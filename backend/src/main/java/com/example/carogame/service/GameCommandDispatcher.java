@@ -0,0 +1,168 @@
+package com.example.carogame.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Mỗi phòng có một mailbox với đúng một consumer: các lệnh join / move / reset / leave của
+ * cùng một phòng được xếp hàng và thực thi tuần tự theo thứ tự nhận, trên một pool thread
+ * dùng chung có giới hạn. Các phòng khác nhau chạy song song.
+ */
+@Component
+public class GameCommandDispatcher {
+
+    // Số lệnh tối đa một mailbox xử lý trước khi nhường thread cho phòng khác
+    private static final int DRAIN_BATCH = 32;
+
+    @Value("${game.mailbox.threads:0}")
+    private int threads;
+
+    private ExecutorService executor;
+    private final Map<String, RoomMailbox> mailboxes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "game-room-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Đưa lệnh vào mailbox của phòng, kết quả trả về qua CompletableFuture
+     */
+    public <T> CompletableFuture<T> submit(String gameId, Supplier<T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+        Runnable task = () -> {
+            try {
+                future.complete(command.get());
+            } catch (Throwable e) {
+                System.err.println("Error processing command for game " + gameId + ": " + e.getMessage());
+                future.completeExceptionally(e);
+            }
+        };
+
+        // compute giữ lock của bin nên không thể chen giữa lúc mailbox rỗng bị gỡ khỏi map
+        RoomMailbox mailbox = mailboxes.compute(gameId, (id, existing) -> {
+            RoomMailbox target = existing != null ? existing : new RoomMailbox(id);
+            target.enqueue(new Command(task, enqueuedAt));
+            return target;
+        });
+        mailbox.schedule();
+        return future;
+    }
+
+    /**
+     * Số lệnh đang chờ và độ trễ xử lý (từ lúc xếp hàng tới lúc xong) của từng phòng
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> rooms = new LinkedHashMap<>();
+        int totalQueued = 0;
+        for (RoomMailbox mailbox : mailboxes.values()) {
+            rooms.put(mailbox.gameId, mailbox.snapshot());
+            totalQueued += mailbox.depth.get();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("activeMailboxes", rooms.size());
+        result.put("totalQueued", totalQueued);
+        result.put("rooms", rooms);
+        return result;
+    }
+
+    private record Command(Runnable task, long enqueuedAt) {}
+
+    private final class RoomMailbox implements Runnable {
+        private final String gameId;
+        private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong totalLatencyNanos = new AtomicLong();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+        private RoomMailbox(String gameId) {
+            this.gameId = gameId;
+        }
+
+        private void enqueue(Command command) {
+            queue.offer(command);
+            depth.incrementAndGet();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int handled = 0;
+            Command command;
+            while (handled < DRAIN_BATCH && (command = queue.poll()) != null) {
+                command.task().run();
+                depth.decrementAndGet();
+                recordLatency(System.nanoTime() - command.enqueuedAt());
+                handled++;
+            }
+
+            scheduled.set(false);
+            if (!queue.isEmpty()) {
+                schedule();
+            } else {
+                // Gỡ mailbox rỗng để map không giữ các phòng đã đóng
+                mailboxes.computeIfPresent(gameId, (id, mailbox) ->
+                        mailbox == this && depth.get() == 0 && !scheduled.get() ? null : mailbox);
+            }
+        }
+
+        private void recordLatency(long nanos) {
+            processed.incrementAndGet();
+            totalLatencyNanos.addAndGet(nanos);
+            maxLatencyNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private Map<String, Object> snapshot() {
+            long count = processed.get();
+            Map<String, Object> metrics = new HashMap<>();
+            metrics.put("queueDepth", depth.get());
+            metrics.put("processed", count);
+            metrics.put("avgLatencyMicros", count == 0 ? 0 : totalLatencyNanos.get() / count / 1000);
+            metrics.put("maxLatencyMicros", maxLatencyNanos.get() / 1000);
+            return metrics;
+        }
+    }
+}
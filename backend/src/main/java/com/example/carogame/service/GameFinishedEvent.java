@@ -0,0 +1,10 @@
+package com.example.carogame.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Kết quả ván vừa kết thúc, được GameService đưa vào GameResultPipeline.
+ * Username null nghĩa là khách hoặc máy (không có tài khoản).
+ */
+public record GameFinishedEvent(String resultKey, String gameId, String boardType,
+                                String winnerUsername, String loserUsername, LocalDateTime finishedAt) {}
@@ -0,0 +1,128 @@
+package com.example.carogame.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.carogame.entity.GameResult;
+import com.example.carogame.model.GameState;
+import com.example.carogame.model.Move;
+import com.example.carogame.model.MoveLogEntry;
+import com.example.carogame.repository.GameResultRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Lịch sử ván: ghi nhật ký nước đi qua MoveLogWriter (ngoài luồng xử lý nước đi) và đọc lại
+ * các ván đã kết thúc (game_results) để phát lại.
+ */
+@Service
+public class GameHistoryService {
+
+    private static final String REPLAY_SQL = "SELECT match_id, game_id, seq, move_number, row_index, col_index, "
+            + "symbol, player_id, created_at FROM game_moves WHERE match_id = ? ORDER BY seq";
+    private static final int REPLAY_FETCH_SIZE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private GameResultRepository gameResultRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${game.moves.batch-size:500}")
+    private int batchSize;
+
+    @Value("${game.moves.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${game.moves.retry-delay-ms:1000}")
+    private long retryDelayMillis;
+
+    @Value("${game.moves.max-retries:5}")
+    private int maxRetries;
+
+    private MoveLogWriter writer;
+
+    @PostConstruct
+    public void init() {
+        // Thiếu bảng thì mọi lô ghi đều lỗi rồi bị bỏ, phát lại trả 500: dừng khởi động ngay
+        try {
+            jdbcTemplate.queryForList("SELECT 1 FROM game_moves WHERE 1 = 0");
+        } catch (BadSqlGrammarException e) {
+            throw new IllegalStateException("Table game_moves is missing, Flyway migration V4 has not run", e);
+        }
+        writer = new MoveLogWriter(jdbcTemplate, batchSize, queueCapacity, retryDelayMillis, maxRetries);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.stop();
+    }
+
+    /**
+     * Ghi nước vừa đi vào nhật ký. Gọi trong lock / mailbox của phòng, sau nextSeq; không chạm DB.
+     */
+    public void recordMove(GameState game, Move move) {
+        writer.append(new MoveLogEntry(game.getMatchId(), game.getGameId(), game.getSeq(),
+                game.getBitBoard().getStoneCount(), move.getRow(), move.getCol(), move.getSymbol(),
+                move.getPlayerId(), LocalDateTime.now()));
+    }
+
+    public Map<String, Object> getStats() {
+        return writer.getStats();
+    }
+
+    /**
+     * Các ván đã kết thúc gần nhất trong phòng
+     */
+    public List<GameResult> findRecentMatches(String gameId) {
+        return gameResultRepository.findTop20ByGameIdOrderByIdDesc(gameId);
+    }
+
+    public boolean isFinished(String matchId) {
+        return gameResultRepository.findByResultKey(matchId).isPresent();
+    }
+
+    /**
+     * Ghi các nước của ván ra out theo thứ tự, mỗi dòng một JSON (NDJSON). Đọc bằng cursor
+     * (fetch size) nên không nạp cả ván vào bộ nhớ.
+     */
+    public void writeReplay(String matchId, OutputStream out) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(REPLAY_SQL);
+            ps.setFetchSize(REPLAY_FETCH_SIZE);
+            ps.setString(1, matchId);
+            return ps;
+        }, rs -> {
+            MoveLogEntry entry = new MoveLogEntry(rs.getString("match_id"), rs.getString("game_id"),
+                    rs.getLong("seq"), rs.getInt("move_number"), rs.getInt("row_index"), rs.getInt("col_index"),
+                    rs.getString("symbol"), rs.getString("player_id"), rs.getTimestamp("created_at").toLocalDateTime());
+            try {
+                out.write(objectMapper.writeValueAsBytes(entry));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.carogame.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.carogame.model.BitBoard;
+import com.example.carogame.model.BoardType;
+import com.example.carogame.model.GameState;
+import com.example.carogame.model.Player;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Snapshot các phòng đang chơi ra đĩa để khôi phục khi node khởi động lại.
+ *
+ * Mỗi phòng một file nhị phân nhỏ: trạng thái phòng, người chơi và toàn bộ nước đi của ván hiện
+ * tại (2 byte / nước, bàn cờ được dựng lại bằng cách đánh lại). Định kỳ chỉ các phòng có seq
+ * khác lần ghi trước mới được snapshot; trạng thái được mã hóa bên trong mailbox của phòng
+ * (chỉ tốn vài micro giây), còn việc ghi file chạy ngoài mailbox, ghi file tạm rồi đổi tên.
+ * Phòng đã bị xóa thì file cũng bị xóa.
+ */
+@Service
+public class GameRecoveryService {
+
+    private static final int MAGIC = 0x43534E31; // "CSN1"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".snap";
+    private static final long CAPTURE_TIMEOUT_MS = 2000;
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private GameCommandDispatcher commandDispatcher;
+
+    @Value("${game.recovery.enabled:true}")
+    private boolean enabled;
+
+    @Value("${game.recovery.directory:data/snapshots}")
+    private String directory;
+
+    private Path snapshotDir;
+    // seq đã ghi của từng phòng; chỉ luồng snapshot truy cập
+    private final Map<String, Long> snapshotSeq = new HashMap<>();
+    private long written;
+
+    @PostConstruct
+    public void restore() {
+        if (!enabled) {
+            return;
+        }
+        snapshotDir = Paths.get(directory);
+        int restored = 0;
+        try {
+            Files.createDirectories(snapshotDir);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(snapshotDir, "*" + SUFFIX)) {
+                for (Path file : files) {
+                    try {
+                        GameState game = decode(Files.readAllBytes(file));
+                        if (gameService.restoreGame(game)) {
+                            snapshotSeq.put(game.getGameId(), game.getSeq());
+                            restored++;
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Skipping unreadable game snapshot " + file + ": " + e.getMessage());
+                        Files.move(file, file.resolveSibling(file.getFileName() + ".bad"), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error restoring game snapshots from " + snapshotDir + ": " + e.getMessage());
+        }
+        if (restored > 0) {
+            System.out.println("Restored " + restored + " games from " + snapshotDir);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    @Scheduled(initialDelayString = "${game.recovery.snapshot-interval-ms:5000}",
+            fixedDelayString = "${game.recovery.snapshot-interval-ms:5000}")
+    public synchronized void snapshot() {
+        if (!enabled || snapshotDir == null) {
+            return;
+        }
+
+        // Đọc seq (volatile) không cần vào mailbox; chỉ phòng đã thay đổi mới được chụp
+        Map<String, CompletableFuture<Captured>> captures = new LinkedHashMap<>();
+        Set<String> live = new HashSet<>();
+        for (GameState game : gameService.getAllGames()) {
+            String gameId = game.getGameId();
+            live.add(gameId);
+            Long last = snapshotSeq.get(gameId);
+            if (last == null || last != game.getSeq()) {
+                captures.put(gameId, commandDispatcher.submit(gameId, () -> {
+                    GameState current = gameService.getGame(gameId);
+                    return current != null ? new Captured(current.getSeq(), encode(current)) : null;
+                }));
+            }
+        }
+
+        for (Map.Entry<String, CompletableFuture<Captured>> entry : captures.entrySet()) {
+            String gameId = entry.getKey();
+            try {
+                Captured captured = entry.getValue().get(CAPTURE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (captured == null) {
+                    live.remove(gameId);
+                    continue;
+                }
+                Path file = fileOf(gameId);
+                Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+                Files.write(temp, captured.bytes());
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                snapshotSeq.put(gameId, captured.seq());
+                written++;
+            } catch (Exception e) {
+                // Lần sau thử lại vì seq đã ghi chưa được cập nhật
+                System.err.println("Error writing snapshot for game " + gameId + ": " + e.getMessage());
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String gameId : snapshotSeq.keySet()) {
+            if (!live.contains(gameId)) {
+                removed.add(gameId);
+            }
+        }
+        for (String gameId : removed) {
+            try {
+                Files.deleteIfExists(fileOf(gameId));
+                snapshotSeq.remove(gameId);
+            } catch (IOException e) {
+                System.err.println("Error deleting snapshot for game " + gameId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("directory", directory);
+        stats.put("rooms", snapshotSeq.size());
+        stats.put("written", written);
+        return stats;
+    }
+
+    private Path fileOf(String gameId) {
+        String name = Base64.getUrlEncoder().withoutPadding().encodeToString(gameId.getBytes(StandardCharsets.UTF_8));
+        return snapshotDir.resolve(name + SUFFIX);
+    }
+
+    // Gọi trong mailbox của phòng
+    static byte[] encode(GameState game) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(game.getGameId());
+            out.writeUTF(game.getMatchId());
+            out.writeUTF(game.getBoardType().name());
+            out.writeLong(game.getSeq());
+            out.writeBoolean(game.isGameOver());
+            writeNullable(out, game.getWinner());
+            writeNullable(out, game.getCurrentPlayer());
+
+            List<Player> players = game.getPlayers();
+            out.writeByte(players.size());
+            for (Player player : players) {
+                out.writeUTF(player.getId());
+                writeNullable(out, player.getName());
+                writeNullable(out, player.getSymbol());
+                writeNullable(out, player.getUserId());
+            }
+
+            // Nước đi theo thứ tự: cell (12 bit đủ cho 64x64) | side << 15
+            BitBoard board = game.getBitBoard();
+            int size = board.getSize();
+            out.writeShort(board.getStoneCount());
+            for (int i = 0; i < board.getStoneCount(); i++) {
+                int cell = board.getMoveAt(i);
+                int side = board.get(cell / size, cell % size);
+                out.writeShort(cell | (side << 15));
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static GameState decode(byte[] data) throws IOException {
+        if (data.length < 4) {
+            throw new IOException("Truncated snapshot");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 4);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+            throw new IOException("Not a game snapshot");
+        }
+        String gameId = in.readUTF();
+        String matchId = in.readUTF();
+        GameState game = new GameState(gameId, BoardType.valueOf(in.readUTF()));
+        game.setMatchId(matchId);
+        game.setSeq(in.readLong());
+        game.setGameOver(in.readBoolean());
+        game.setWinner(readNullable(in));
+        game.setCurrentPlayer(readNullable(in));
+
+        int playerCount = in.readUnsignedByte();
+        List<Player> players = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < playerCount; i++) {
+            String id = in.readUTF();
+            players.add(new Player(id, readNullable(in), readNullable(in), readNullable(in)));
+        }
+        game.setPlayers(players);
+
+        BitBoard board = game.getBitBoard();
+        int size = board.getSize();
+        int moves = in.readUnsignedShort();
+        for (int i = 0; i < moves; i++) {
+            int value = in.readUnsignedShort();
+            int cell = value & 0x7FFF;
+            board.place(cell / size, cell % size, value >>> 15);
+        }
+
+        if (in.readInt() != (int) crc.getValue()) {
+            throw new IOException("Checksum mismatch");
+        }
+        return game;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private record Captured(long seq, byte[] bytes) {}
+}
@@ -0,0 +1,265 @@
+package com.example.carogame.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.carogame.entity.GameResult;
+import com.example.carogame.entity.User;
+import com.example.carogame.repository.GameResultRepository;
+import com.example.carogame.repository.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ghi và áp dụng kết quả ván ngoài luồng xử lý nước đi.
+ *
+ * GameService chỉ đưa GameFinishedEvent vào hàng đợi trong bộ nhớ. Một luồng nền gom các kết
+ * quả thành lô: ghi vào game_results bằng một batch INSERT (trùng result_key thì bỏ qua), sau đó
+ * lấy các dòng PENDING và áp dụng xu, thắng/thua và ELO cho cả lô trong một transaction, đánh
+ * dấu APPLIED trong cùng transaction đó nên mỗi kết quả chỉ được áp dụng một lần. Các dòng còn
+ * PENDING (node dừng giữa chừng) được áp dụng lại khi khởi động.
+ *
+ * Việc ghi dùng WriteBehindWriter: lô INSERT lỗi thì ghi lại từng kết quả; kết quả bị DB từ chối
+ * hẳn (vi phạm ràng buộc, quá độ dài cột) hoặc vẫn lỗi sau maxAttempts lần được ghi log đầy đủ
+ * rồi bỏ (dead-letter). Một kết quả hỏng không chặn các kết quả sau nó.
+ */
+@Service
+public class GameResultPipeline {
+
+    private static final Long WIN_REWARD = 50L;
+    private static final Long PARTICIPATION_REWARD = 10L;
+
+    private static final String INSERT_SQL = "INSERT INTO game_results "
+            + "(result_key, game_id, board_type, winner_username, loser_username, status, attempts, finished_at, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, 'PENDING', 0, ?, ?) ON CONFLICT (result_key) DO NOTHING";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private GameResultRepository gameResultRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private RankingService rankingService;
+
+    @Value("${game.results.batch-size:200}")
+    private int batchSize;
+
+    // Khi hàng đợi rỗng, định kỳ kiểm tra dòng PENDING còn sót (ví dụ do node khác để lại)
+    @Value("${game.results.idle-check-ms:5000}")
+    private long idleCheckMillis;
+
+    @Value("${game.results.retry-delay-ms:1000}")
+    private long retryDelayMillis;
+
+    @Value("${game.results.max-attempts:5}")
+    private int maxAttempts;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private ResultWriter writer;
+
+    @PostConstruct
+    public void init() {
+        writer = new ResultWriter();
+    }
+
+    // Kết quả publish trước lúc này vẫn nằm trong hàng đợi, được ghi khi luồng chạy
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        writer.stop();
+    }
+
+    /**
+     * Đưa kết quả vào hàng đợi, không chạm DB. Gọi được từ trong lock / mailbox của phòng.
+     */
+    public void publish(GameFinishedEvent event) {
+        writer.append(event);
+        published.incrementAndGet();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queued", writer.getStats().get("queued"));
+        stats.put("published", published.get());
+        stats.put("applied", applied.get());
+        stats.put("failed", failed.get());
+        stats.put("deadLettered", deadLettered.get());
+        return stats;
+    }
+
+    /**
+     * Ghi game_results theo lô trên luồng nền; trước mỗi lần chờ kết quả mới thì áp dụng các
+     * dòng PENDING (lần đầu là phần còn lại từ lần chạy trước), lô đầy thì áp dụng tiếp ngay.
+     * Hàng đợi không giới hạn: kết quả ván không được bỏ vì đầy.
+     */
+    private final class ResultWriter extends WriteBehindWriter<GameFinishedEvent> {
+
+        private ResultWriter() {
+            super("game-results", jdbcTemplate, INSERT_SQL, GameResultPipeline::bind, batchSize, Integer.MAX_VALUE,
+                    idleCheckMillis, retryDelayMillis, maxAttempts);
+        }
+
+        @Override
+        protected String describe(GameFinishedEvent event) {
+            return "game result " + event.resultKey();
+        }
+
+        // Kết quả không ghi được: ghi đủ thông tin vào log để áp dụng tay nếu cần
+        @Override
+        protected void lost(GameFinishedEvent event) {
+            deadLettered.incrementAndGet();
+            System.err.println("Dropping game result " + event);
+        }
+
+        @Override
+        protected void beforePoll() {
+            while (applyPending() == batchSize && !Thread.currentThread().isInterrupted()) {
+                // còn dòng PENDING
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, GameFinishedEvent event) throws SQLException {
+        ps.setString(1, event.resultKey());
+        ps.setString(2, event.gameId());
+        ps.setString(3, event.boardType());
+        ps.setString(4, event.winnerUsername());
+        ps.setString(5, event.loserUsername());
+        ps.setTimestamp(6, Timestamp.valueOf(event.finishedAt()));
+        ps.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Áp dụng một lô dòng PENDING trong một transaction; lô lỗi thì áp dụng lại từng dòng
+     * để một kết quả hỏng không chặn các kết quả khác. Trả về số dòng đã xử lý.
+     */
+    private int applyPending() {
+        try {
+            Integer count = transactionTemplate.execute(status -> {
+                List<GameResult> results = gameResultRepository.lockPendingBatch(batchSize);
+                apply(results);
+                return results.size();
+            });
+            applied.addAndGet(count);
+            return count;
+        } catch (Exception e) {
+            System.err.println("Error applying game result batch, retrying one by one: " + e.getMessage());
+        }
+
+        List<Long> ids = transactionTemplate.execute(status -> gameResultRepository.lockPendingBatch(batchSize)
+                .stream()
+                .map(GameResult::getId)
+                .toList());
+        for (Long id : ids) {
+            try {
+                boolean done = Boolean.TRUE.equals(transactionTemplate.execute(status -> gameResultRepository.lockById(id)
+                        .filter(result -> result.getStatus() == GameResult.Status.PENDING)
+                        .map(result -> {
+                            apply(List.of(result));
+                            return true;
+                        })
+                        .orElse(false)));
+                if (done) {
+                    applied.incrementAndGet();
+                }
+            } catch (Exception e) {
+                recordFailure(id, e);
+            }
+        }
+        return ids.size();
+    }
+
+    // Chạy trong transaction của người gọi
+    private void apply(List<GameResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        Set<String> usernames = new HashSet<>();
+        for (GameResult result : results) {
+            if (result.getWinnerUsername() != null) {
+                usernames.add(result.getWinnerUsername());
+            }
+            if (result.getLoserUsername() != null) {
+                usernames.add(result.getLoserUsername());
+            }
+        }
+        Map<String, User> users = new HashMap<>();
+        if (!usernames.isEmpty()) {
+            for (User user : userRepository.findByUsernameIn(usernames)) {
+                users.put(user.getUsername(), user);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (GameResult result : results) {
+            User winner = result.getWinnerUsername() != null ? users.get(result.getWinnerUsername()) : null;
+            User loser = result.getLoserUsername() != null ? users.get(result.getLoserUsername()) : null;
+            if (winner != null) {
+                winner.addCoins(WIN_REWARD);
+                winner.addWin();
+            }
+            if (loser != null) {
+                loser.addCoins(PARTICIPATION_REWARD);
+                loser.addLoss();
+            }
+            // ELO chỉ tính khi cả hai bên đều có tài khoản
+            if (winner != null && loser != null && !winner.getId().equals(loser.getId())) {
+                rankingService.updateUserStatsAfterGame(winner.getId(), loser.getId(), false);
+            }
+            result.setStatus(GameResult.Status.APPLIED);
+            result.setAppliedAt(now);
+        }
+        userRepository.saveAll(users.values()).forEach(userCache::saved);
+        gameResultRepository.saveAll(results);
+    }
+
+    private void recordFailure(Long id, Exception cause) {
+        System.err.println("Error applying game result " + id + ": " + cause.getMessage());
+        try {
+            transactionTemplate.executeWithoutResult(status -> gameResultRepository.findById(id).ifPresent(result -> {
+                result.setAttempts(result.getAttempts() + 1);
+                if (result.getAttempts() >= maxAttempts) {
+                    result.setStatus(GameResult.Status.FAILED);
+                    failed.incrementAndGet();
+                }
+                gameResultRepository.save(result);
+            }));
+        } catch (Exception e) {
+            System.err.println("Error recording failure for game result " + id + ": " + e.getMessage());
+        }
+    }
+}
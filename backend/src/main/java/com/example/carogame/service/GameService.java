@@ -1,52 +1,135 @@
 package com.example.carogame.service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.example.carogame.entity.User;
+import com.example.carogame.model.BitBoard;
 import com.example.carogame.model.BoardType;
 import com.example.carogame.model.GameState;
 import com.example.carogame.model.Move;
 import com.example.carogame.model.Player;
-import com.example.carogame.repository.UserRepository;
 
 @Service
 public class GameService {
 
     @Autowired
-    private UserRepository userRepository;
+    private GameResultPipeline gameResultPipeline;
 
-    // Reward amounts
-    private static final Long WIN_REWARD = 50L;
-    private static final Long PARTICIPATION_REWARD = 10L;
-    private Map<String, GameState> games = new HashMap<>();
+    @Autowired
+    private GameHistoryService gameHistoryService;
+
+    @Autowired
+    private LobbyIndex lobbyIndex;
+
+    // Số lock dùng chung cho các phòng (lock striping), phải là lũy thừa của 2
+    private static final int LOCK_STRIPES = 64;
+
+    // Đọc danh sách phòng không cần lock; mọi thay đổi trên một phòng đi qua lock của phòng đó
+    private final Map<String, GameState> games = new ConcurrentHashMap<>();
+    private final ReentrantLock[] roomLocks = new ReentrantLock[LOCK_STRIPES];
+
+    // Phòng trống thấy ở lần dọn định kỳ trước và seq lúc đó; chỉ luồng scheduler đọc / ghi
+    private volatile Map<String, Long> emptyAtLastCleanup = new HashMap<>();
+
+    public GameService() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            roomLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Chạy action khi giữ lock của phòng. Lock gắn với gameId (không phải instance GameState)
+     * nên việc tạo lại / xóa phòng cũng được tuần tự hóa cùng với các nước đi.
+     */
+    private <T> T withRoomLock(String gameId, Supplier<T> action) {
+        ReentrantLock lock = roomLocks[(gameId.hashCode() ^ (gameId.hashCode() >>> 16)) & (LOCK_STRIPES - 1)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
 
     public GameState createGame(String gameId) {
         return createGame(gameId, BoardType.STANDARD);
     }
 
     public GameState createGame(String gameId, BoardType boardType) {
-        GameState gameState = new GameState(gameId, boardType);
-        gameState.setPlayers(new ArrayList<>());
-        games.put(gameId, gameState);
-        return gameState;
+        if (!GameState.isValidGameId(gameId)) {
+            throw new IllegalArgumentException("Invalid game id (1-" + GameState.MAX_GAME_ID_LENGTH + " characters)");
+        }
+        return withRoomLock(gameId, () -> {
+            GameState gameState = new GameState(gameId, boardType);
+            gameState.setPlayers(new CopyOnWriteArrayList<>());
+            games.put(gameId, gameState);
+            lobbyIndex.update(gameState);
+            return gameState;
+        });
     }
 
     public GameState getGame(String gameId) {
         return games.get(gameId);
     }
 
+    /**
+     * Các phòng hiện có (chỉ đọc); trạng thái từng phòng chỉ nên đọc trong mailbox của phòng đó
+     */
+    public Collection<GameState> getAllGames() {
+        return Collections.unmodifiableCollection(games.values());
+    }
+
+    /**
+     * Đưa phòng đã khôi phục từ snapshot vào lại, không ghi đè phòng đang có cùng gameId
+     */
+    public boolean restoreGame(GameState game) {
+        return withRoomLock(game.getGameId(), () -> {
+            if (games.putIfAbsent(game.getGameId(), game) != null) {
+                return false;
+            }
+            lobbyIndex.update(game);
+            return true;
+        });
+    }
+
     public GameState joinGame(String gameId, Player player) {
+        return withRoomLock(gameId, () -> doJoinGame(gameId, player));
+    }
+
+    private GameState doJoinGame(String gameId, Player player) {
         GameState game = games.get(gameId);
         if (game == null) {
             game = createGame(gameId);
         }
 
+        // Người chơi đã đăng nhập vào lại phòng (sau khi tải lại trang hoặc server khôi phục
+        // phòng từ snapshot): nhận lại chỗ cũ với playerId mới
+        Player existing = player.getUserId() == null ? null : game.getPlayers().stream()
+                .filter(p -> player.getUserId().equals(p.getUserId()))
+                .findFirst()
+                .orElse(null);
+        if (existing != null) {
+            if (!existing.getId().equals(player.getId())) {
+                rebindPlayer(game, existing, player);
+                game.nextSeq();
+                lobbyIndex.update(game);
+            }
+            return game;
+        }
+
         if (game.getPlayers().size() < 2) {
             if (game.getPlayers().isEmpty()) {
                 player.setSymbol("X");
@@ -55,32 +138,55 @@ public class GameService {
                 player.setSymbol("O");
             }
             game.getPlayers().add(player);
+            game.nextSeq();
+            lobbyIndex.update(game);
         }
 
         return game;
     }
 
+    private void rebindPlayer(GameState game, Player existing, Player player) {
+        String oldId = existing.getId();
+        existing.setId(player.getId());
+        existing.setName(player.getName());
+        player.setSymbol(existing.getSymbol());
+        if (oldId.equals(game.getCurrentPlayer())) {
+            game.setCurrentPlayer(player.getId());
+        }
+        if (oldId.equals(game.getWinner())) {
+            game.setWinner(player.getId());
+        }
+    }
+
     public GameState makeMove(String gameId, Move move) {
+        return withRoomLock(gameId, () -> doMakeMove(gameId, move));
+    }
+
+    private GameState doMakeMove(String gameId, Move move) {
         GameState game = games.get(gameId);
         if (game == null || game.isGameOver()) {
             return game;
         }
 
         // Validate move
-        if (game.getBoard()[move.getRow()][move.getCol()] != null) {
+        BitBoard board = game.getBitBoard();
+        int side = BitBoard.sideOf(move.getSymbol());
+        if (side == BitBoard.EMPTY || !board.isInside(move.getRow(), move.getCol())
+                || !board.isEmpty(move.getRow(), move.getCol())) {
             return game; // Invalid move
         }
 
         // Make move
-        game.getBoard()[move.getRow()][move.getCol()] = move.getSymbol();
+        board.place(move.getRow(), move.getCol(), side);
 
         // Check for winner
-        if (checkWinner(game, move.getRow(), move.getCol(), move.getSymbol())) {
+        if (board.getThreats().hasFive(side)) {
             game.setGameOver(true);
             game.setWinner(move.getPlayerId());
 
-            // Award coins to players
-            awardCoinsForGameEnd(game, move.getPlayerId());
+            // Xu, thắng/thua và ELO được áp dụng bất đồng bộ, nước thắng không chờ DB
+            gameResultPipeline.publish(resultOf(game, move.getPlayerId()));
+            lobbyIndex.update(game);
         } else {
             // Switch turns
             String nextPlayer = game.getPlayers().stream()
@@ -91,92 +197,51 @@ public class GameService {
             game.setCurrentPlayer(nextPlayer);
         }
 
+        game.nextSeq();
+        gameHistoryService.recordMove(game, move);
         return game;
     }
 
-    private boolean checkWinner(GameState game, int row, int col, String symbol) {
-        String[][] board = game.getBoard();
-        int boardSize = game.getBoardSize();
-
-        // Check horizontal
-        int count = 1;
-        for (int i = col - 1; i >= 0 && symbol.equals(board[row][i]); i--) count++;
-        for (int i = col + 1; i < boardSize && symbol.equals(board[row][i]); i++) count++;
-        if (count >= 5) return true;
-
-        // Check vertical
-        count = 1;
-        for (int i = row - 1; i >= 0 && symbol.equals(board[i][col]); i--) count++;
-        for (int i = row + 1; i < boardSize && symbol.equals(board[i][col]); i++) count++;
-        if (count >= 5) return true;
-
-        // Check diagonal (top-left to bottom-right)
-        count = 1;
-        for (int i = 1; row - i >= 0 && col - i >= 0 && symbol.equals(board[row - i][col - i]); i++) count++;
-        for (int i = 1; row + i < boardSize && col + i < boardSize && symbol.equals(board[row + i][col + i]); i++) count++;
-        if (count >= 5) return true;
-
-        // Check diagonal (top-right to bottom-left)
-        count = 1;
-        for (int i = 1; row - i >= 0 && col + i < boardSize && symbol.equals(board[row - i][col + i]); i++) count++;
-        for (int i = 1; row + i < boardSize && col - i >= 0 && symbol.equals(board[row + i][col - i]); i++) count++;
-        if (count >= 5) return true;
-
-        return false;
-    }
-
     public void resetGame(String gameId) {
-        GameState game = games.get(gameId);
-        if (game != null) {
-            int boardSize = game.getBoardSize();
-            game.setBoard(new String[boardSize][boardSize]);
-            game.setGameOver(false);
-            game.setWinner(null);
-            if (!game.getPlayers().isEmpty()) {
-                game.setCurrentPlayer(game.getPlayers().get(0).getId());
+        withRoomLock(gameId, () -> {
+            GameState game = games.get(gameId);
+            if (game != null) {
+                game.getBitBoard().clear();
+                game.startNewMatch();
+                game.setGameOver(false);
+                game.setWinner(null);
+                if (!game.getPlayers().isEmpty()) {
+                    game.setCurrentPlayer(game.getPlayers().get(0).getId());
+                }
+                game.nextSeq();
+                lobbyIndex.update(game);
             }
-        }
-    }
-
-    public Map<String, Object> getAllGamesInfo() {
-        Map<String, Object> result = new HashMap<>();
-        List<Map<String, Object>> gamesList = new ArrayList<>();
-
-        for (Map.Entry<String, GameState> entry : games.entrySet()) {
-            GameState game = entry.getValue();
-            Map<String, Object> gameInfo = new HashMap<>();
-            gameInfo.put("gameId", entry.getKey());
-            gameInfo.put("boardType", game.getBoardType().name());
-            gameInfo.put("boardSize", game.getBoardSize());
-            gameInfo.put("boardDescription", game.getBoardType().getDescription());
-            gameInfo.put("playerCount", game.getPlayers().size());
-            gameInfo.put("maxPlayers", 2);
-            gameInfo.put("gameStatus", game.isGameOver() ? "FINISHED" : "PLAYING");
-            gameInfo.put("canJoin", game.getPlayers().size() < 2);
-
-            gamesList.add(gameInfo);
-        }
-
-        result.put("games", gamesList);
-        result.put("totalGames", gamesList.size());
-        return result;
+            return game;
+        });
     }
 
     /**
      * Xóa người chơi khỏi phòng và tự động xóa phòng nếu không còn ai
      */
     public GameState removePlayerFromGame(String gameId, String playerId) {
+        return withRoomLock(gameId, () -> doRemovePlayerFromGame(gameId, playerId));
+    }
+
+    private GameState doRemovePlayerFromGame(String gameId, String playerId) {
         GameState game = games.get(gameId);
         if (game == null) {
             return null;
         }
 
         // Tìm và xóa người chơi
-        game.getPlayers().removeIf(player -> player.getId().equals(playerId));
+        if (game.getPlayers().removeIf(player -> player.getId().equals(playerId))) {
+            game.nextSeq();
+        }
 
         // Nếu không còn người chơi nào, xóa phòng hoàn toàn
         if (game.getPlayers().isEmpty()) {
             games.remove(gameId);
+            lobbyIndex.remove(gameId);
             return null;
         }
 
@@ -188,6 +253,7 @@ public class GameService {
             game.setWinner(null);
         }
 
+        lobbyIndex.update(game);
         return game;
     }
 
@@ -195,17 +261,24 @@ public class GameService {
      * Xử lý khi người chơi thoát khỏi phòng
      */
     public GameState leaveGame(String gameId, String playerId) {
+        return withRoomLock(gameId, () -> doLeaveGame(gameId, playerId));
+    }
+
+    private GameState doLeaveGame(String gameId, String playerId) {
         GameState game = games.get(gameId);
         if (game == null) {
             return null;
         }
 
         // Xóa người chơi khỏi danh sách
-        game.getPlayers().removeIf(player -> player.getId().equals(playerId));
+        if (game.getPlayers().removeIf(player -> player.getId().equals(playerId))) {
+            game.nextSeq();
+        }
 
         // Nếu không còn người chơi nào, xóa phòng
         if (game.getPlayers().isEmpty()) {
             games.remove(gameId);
+            lobbyIndex.remove(gameId);
             return null;
         }
 
@@ -215,6 +288,7 @@ public class GameService {
             game.setWinner(game.getPlayers().get(0).getId());
         }
 
+        lobbyIndex.update(game);
         return game;
     }
 
@@ -222,7 +296,13 @@ public class GameService {
      * Xóa phòng game
      */
     public boolean removeGame(String gameId) {
-        return games.remove(gameId) != null;
+        return withRoomLock(gameId, () -> {
+            if (games.remove(gameId) == null) {
+                return false;
+            }
+            lobbyIndex.remove(gameId);
+            return true;
+        });
     }
 
     /**
@@ -250,7 +330,7 @@ public class GameService {
     }
 
     /**
-     * Xóa các phòng không có người chơi (cleanup định kỳ)
+     * Xóa ngay các phòng không có người chơi
      */
     public int cleanupEmptyGames() {
         int removedCount = 0;
@@ -263,13 +343,55 @@ public class GameService {
         }
 
         for (String gameId : gameIdsToRemove) {
-            games.remove(gameId);
-            removedCount++;
+            if (removeIfEmpty(gameId, null)) {
+                removedCount++;
+            }
         }
 
         return removedCount;
     }
 
+    /**
+     * Dọn định kỳ: chỉ xóa phòng đã trống từ lần dọn trước và không thay đổi gì từ đó, để phòng
+     * vừa tạo (ghép trận, tạo qua REST) còn thời gian cho người chơi vào
+     */
+    @Scheduled(initialDelayString = "${game.rooms.cleanup-interval-ms:300000}",
+            fixedDelayString = "${game.rooms.cleanup-interval-ms:300000}")
+    public void cleanupIdleEmptyGames() {
+        Map<String, Long> emptyNow = new HashMap<>();
+        int removedCount = 0;
+        for (GameState game : games.values()) {
+            if (!game.getPlayers().isEmpty()) {
+                continue;
+            }
+            Long seenSeq = emptyAtLastCleanup.get(game.getGameId());
+            if (seenSeq != null && seenSeq == game.getSeq() && removeIfEmpty(game.getGameId(), seenSeq)) {
+                removedCount++;
+            } else {
+                emptyNow.put(game.getGameId(), game.getSeq());
+            }
+        }
+        emptyAtLastCleanup = emptyNow;
+        if (removedCount > 0) {
+            System.out.println("Removed " + removedCount + " empty game rooms");
+        }
+    }
+
+    // Kiểm tra lại dưới lock vì có thể đã có người vào phòng; expectedSeq khác null thì phòng
+    // phải chưa thay đổi kể từ lúc được thấy trống
+    private boolean removeIfEmpty(String gameId, Long expectedSeq) {
+        return withRoomLock(gameId, () -> {
+            GameState game = games.get(gameId);
+            if (game == null || !game.getPlayers().isEmpty()
+                    || (expectedSeq != null && expectedSeq != game.getSeq())
+                    || games.remove(gameId) == null) {
+                return false;
+            }
+            lobbyIndex.remove(gameId);
+            return true;
+        });
+    }
+
     /**
      * Lấy tổng số phòng hiện tại
      */
@@ -278,30 +400,19 @@ public class GameService {
     }
 
     /**
-     * Award coins to players when game ends
+     * Kết quả ván vừa kết thúc; khóa idempotency là matchId của ván
      */
-    private void awardCoinsForGameEnd(GameState game, String winnerId) {
-        try {
-            for (Player player : game.getPlayers()) {
-                if (player.getUserId() != null) {
-                    User user = userRepository.findByUsername(player.getUserId()).orElse(null);
-                    if (user != null) {
-                        if (player.getId().equals(winnerId)) {
-                            // Winner gets win reward
-                            user.addCoins(WIN_REWARD);
-                            user.addWin();
-                        } else {
-                            // Loser gets participation reward
-                            user.addCoins(PARTICIPATION_REWARD);
-                            user.addLoss();
-                        }
-                        userRepository.save(user);
-                    }
-                }
+    private GameFinishedEvent resultOf(GameState game, String winnerId) {
+        String winnerUsername = null;
+        String loserUsername = null;
+        for (Player player : game.getPlayers()) {
+            if (player.getId().equals(winnerId)) {
+                winnerUsername = player.getUserId();
+            } else {
+                loserUsername = player.getUserId();
             }
-        } catch (Exception e) {
-            // Log error but don't break game flow
-            System.err.println("Error awarding coins: " + e.getMessage());
         }
+        return new GameFinishedEvent(game.getMatchId(), game.getGameId(), game.getBoardType().name(),
+                winnerUsername, loserUsername, LocalDateTime.now());
     }
 }
@@ -0,0 +1,258 @@
+package com.example.carogame.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.carogame.dto.LeaderboardEntry;
+import com.example.carogame.entity.UserStats;
+import com.example.carogame.repository.UserStatsRepository;
+
+/**
+ * Bảng xếp hạng theo rankingPoints trong bộ nhớ: thứ hạng của một user và một trang bảng xếp
+ * hạng đều trả về không cần truy vấn DB.
+ *
+ * Cây Fenwick đếm số user theo từng mức điểm (thứ hạng = 1 + số user có điểm cao hơn, giống truy
+ * vấn COUNT cũ), skip list giữ các dòng theo thứ tự điểm giảm dần rồi userId. DB vẫn là nguồn
+ * chuẩn: chỉ số được nạp khi khởi động, cập nhật sau mỗi commit của RankingService và được dựng
+ * lại định kỳ.
+ */
+@Component
+public class LeaderboardIndex {
+
+    private static final int MAX_RATING = 10_000;
+    private static final int LOAD_BATCH = 1000;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    private volatile boolean loaded;
+
+    // Cập nhật đến trong lúc dựng lại, áp dụng lại lên chỉ số mới trước khi thay thế
+    private List<LeaderboardEntry> pendingDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Đối soát với DB: dựng lại toàn bộ chỉ số rồi thay thế
+     */
+    @Scheduled(initialDelayString = "${game.leaderboard.reconcile-interval-ms:600000}",
+            fixedDelayString = "${game.leaderboard.reconcile-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index fresh = new Index();
+        try {
+            long afterId = 0;
+            List<UserStats> batch;
+            do {
+                batch = userStatsRepository.findBatchAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+                for (UserStats stats : batch) {
+                    fresh.put(LeaderboardEntry.of(stats));
+                    afterId = stats.getId();
+                }
+            } while (batch.size() == LOAD_BATCH);
+        } catch (Exception e) {
+            System.err.println("Error loading leaderboard index: " + e.getMessage());
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (LeaderboardEntry entry : pendingDuringRebuild) {
+                fresh.put(entry);
+            }
+            pendingDuringRebuild = null;
+            index = fresh;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Leaderboard index loaded: " + fresh.size() + " players in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    @TransactionalEventListener
+    public void onUserStatsChanged(UserStatsChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (LeaderboardEntry entry : event.entries()) {
+                index.put(entry);
+                if (pendingDuringRebuild != null) {
+                    pendingDuringRebuild.add(entry);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Dòng của user kèm thứ hạng, hoặc null nếu user chưa có thống kê
+     */
+    public LeaderboardEntry findByUserId(Long userId) {
+        lock.readLock().lock();
+        try {
+            LeaderboardEntry entry = index.byUser.get(userId);
+            return entry != null ? entry.withRank(index.countAbove(entry.getRankingPoints()) + 1) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * rankingPoints của user (không tính thứ hạng), hoặc null nếu user chưa có thống kê
+     */
+    public Integer findRating(Long userId) {
+        lock.readLock().lock();
+        try {
+            LeaderboardEntry entry = index.byUser.get(userId);
+            return entry != null ? entry.getRankingPoints() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Các dòng từ vị trí offset (0 là hạng cao nhất), tối đa limit dòng
+     */
+    public List<LeaderboardEntry> page(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.page(offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int clamp(int rating) {
+        return Math.max(0, Math.min(MAX_RATING, rating));
+    }
+
+    // Khóa skip list: điểm giảm dần rồi userId tăng dần
+    private static long keyOf(int rating, long userId) {
+        return ((long) (MAX_RATING - clamp(rating)) << 40) | userId;
+    }
+
+    private static final class Index {
+        // Fenwick theo vị trí MAX_RATING - rating (1-based) để tiền tố = số user có điểm >= rating
+        private final int[] tree = new int[MAX_RATING + 2];
+        private final ConcurrentSkipListMap<Long, LeaderboardEntry> ordered = new ConcurrentSkipListMap<>();
+        private final Map<Long, LeaderboardEntry> byUser = new HashMap<>();
+
+        private int size() {
+            return byUser.size();
+        }
+
+        private void put(LeaderboardEntry entry) {
+            LeaderboardEntry previous = byUser.put(entry.getUserId(), entry);
+            if (previous != null) {
+                ordered.remove(keyOf(previous.getRankingPoints(), previous.getUserId()));
+                add(previous.getRankingPoints(), -1);
+            }
+            ordered.put(keyOf(entry.getRankingPoints(), entry.getUserId()), entry);
+            add(entry.getRankingPoints(), 1);
+        }
+
+        private void add(int rating, int delta) {
+            for (int i = MAX_RATING - clamp(rating) + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        // Số user có điểm >= MAX_RATING - position + 1
+        private int prefix(int position) {
+            int sum = 0;
+            for (int i = position; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        private int countAbove(int rating) {
+            return prefix(MAX_RATING - clamp(rating));
+        }
+
+        private List<LeaderboardEntry> page(int offset, int limit) {
+            List<LeaderboardEntry> result = new ArrayList<>(Math.max(0, Math.min(limit, size() - offset)));
+            if (offset < 0 || limit <= 0 || offset >= size()) {
+                return result;
+            }
+
+            // Tìm vị trí nhỏ nhất có tiền tố > offset (tìm nhị phân trên Fenwick)
+            int position = 0;
+            int remaining = offset;
+            for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+                int next = position + step;
+                if (next < tree.length && tree[next] <= remaining) {
+                    position = next;
+                    remaining -= tree[next];
+                }
+            }
+            int rating = MAX_RATING - position;
+
+            // remaining = số dòng cần bỏ qua trong nhóm cùng điểm rating
+            Iterator<LeaderboardEntry> iterator = ordered.tailMap(keyOf(rating, 0)).values().iterator();
+            for (int i = 0; i < remaining && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+
+            int rank = offset - remaining + 1;
+            int lastRating = rating;
+            int index = offset;
+            while (result.size() < limit && iterator.hasNext()) {
+                LeaderboardEntry entry = iterator.next();
+                if (entry.getRankingPoints() != lastRating) {
+                    rank = index + 1;
+                    lastRating = entry.getRankingPoints();
+                }
+                result.add(entry.withRank(rank));
+                index++;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.carogame.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.carogame.dto.LobbyChange;
+import com.example.carogame.dto.LobbyRoom;
+import com.example.carogame.model.BoardType;
+import com.example.carogame.model.GameState;
+
+/**
+ * Danh sách sảnh (các phòng của node này) giữ sẵn trong bộ nhớ, cập nhật dần khi phòng được
+ * tạo, có người vào / ra, kết thúc hoặc bị xóa; /api/games đọc thẳng từ đây thay vì dựng lại
+ * danh sách mỗi lần.
+ *
+ * GameService gọi update / remove khi đang giữ lock của phòng. Dòng chỉ thay đổi khi thông tin
+ * hiển thị ở sảnh thay đổi (nước đi thường không đụng tới). Các thay đổi được gom theo phòng và
+ * đẩy định kỳ lên /topic/lobby thành một danh sách LobbyChange, client không cần polling.
+ */
+@Component
+public class LobbyIndex {
+
+    public static final String LOBBY_TOPIC = "/topic/lobby";
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    @Autowired
+    private GameBroadcaster gameBroadcaster;
+
+    // Sắp theo gameId, cursor của trang là gameId cuối cùng đã trả về
+    private final ConcurrentNavigableMap<String, LobbyRoom> rooms = new ConcurrentSkipListMap<>();
+    private final AtomicInteger roomCount = new AtomicInteger();
+
+    // Thay đổi chưa gửi, mỗi phòng chỉ giữ thay đổi mới nhất
+    private final Map<String, LobbyChange> pendingChanges = new ConcurrentHashMap<>();
+
+    public void update(GameState game) {
+        LobbyRoom room = LobbyRoom.of(game);
+        LobbyRoom previous = rooms.put(game.getGameId(), room);
+        if (previous == null) {
+            roomCount.incrementAndGet();
+        }
+        if (!room.equals(previous)) {
+            pendingChanges.put(game.getGameId(), LobbyChange.upsert(room));
+        }
+    }
+
+    public void remove(String gameId) {
+        if (rooms.remove(gameId) != null) {
+            roomCount.decrementAndGet();
+            pendingChanges.put(gameId, LobbyChange.remove(gameId));
+        }
+    }
+
+    /**
+     * Một trang của danh sách sảnh; các bộ lọc null được bỏ qua
+     */
+    public Map<String, Object> page(BoardType boardType, LobbyRoom.Status status, Boolean openSeats,
+                                    String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Map<String, LobbyRoom> candidates = cursor == null || cursor.isBlank() ? rooms : rooms.tailMap(cursor, false);
+
+        List<LobbyRoom> page = new ArrayList<>(Math.min(pageSize, 64));
+        String nextCursor = null;
+        for (LobbyRoom room : candidates.values()) {
+            if ((boardType != null && room.getBoardType() != boardType)
+                    || (status != null && room.getGameStatus() != status)
+                    || (openSeats != null && room.isCanJoin() != openSeats)) {
+                continue;
+            }
+            if (page.size() == pageSize) {
+                nextCursor = page.get(pageSize - 1).getGameId();
+                break;
+            }
+            page.add(room);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("games", page);
+        result.put("totalGames", roomCount.get());
+        result.put("nextCursor", nextCursor);
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${game.lobby.push-interval-ms:500}")
+    public void pushChanges() {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+        List<LobbyChange> changes = new ArrayList<>();
+        for (String gameId : pendingChanges.keySet()) {
+            LobbyChange change = pendingChanges.remove(gameId);
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        if (!changes.isEmpty()) {
+            gameBroadcaster.publishTopic(LOBBY_TOPIC, changes);
+        }
+    }
+}
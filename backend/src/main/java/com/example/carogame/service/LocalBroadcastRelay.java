@@ -0,0 +1,20 @@
+package com.example.carogame.service;
+
+import com.example.carogame.model.GameEvent;
+
+/**
+ * Một node (hoặc mọi node cùng dùng chung một broker): broker cục bộ đã gửi tới mọi client,
+ * không cần phát lại
+ */
+public class LocalBroadcastRelay implements BroadcastRelay {
+
+    @Override
+    public void relayGameEvent(String gameId, GameEvent event) {
+        // Không làm gì
+    }
+
+    @Override
+    public void relayTopic(String destination, Object payload) {
+        // Không làm gì
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.carogame.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.carogame.model.BoardType;
+
+/**
+ * Hàng đợi ghép trận trong bộ nhớ.
+ *
+ * Người chờ được chia theo BoardType, trong mỗi loại bàn chia bucket theo rankingPoints (mỗi
+ * bucket là hàng đợi FIFO). Ghép với người gần điểm nhất trong cửa sổ điểm; cửa sổ nới rộng
+ * dần theo thời gian chờ và được quét lại định kỳ. Khi ghép được thì tạo phòng qua
+ * RoomCommandService.createGame (trên node sở hữu phòng) và báo riêng cho từng người qua
+ * /user/queue/matchmaking.
+ *
+ * enqueue chỉ làm việc trong bộ nhớ: điểm lấy từ LeaderboardIndex, không truy vấn DB. Mọi thay
+ * đổi ticket của một user đi qua compute trên map tickets nên hai lệnh cùng lúc của một user
+ * không để lại ticket mồ côi. Thứ tự lock: bin của tickets rồi mới tới Pool, không bao giờ ngược lại.
+ */
+@Service
+public class MatchmakingService {
+
+    private static final int MAX_RATING = 4000;
+    private static final int DEFAULT_RATING = 1000;
+    // Số mẫu thời gian chờ gần nhất dùng để tính phân vị
+    private static final int WAIT_SAMPLES = 1024;
+
+    private static final int WAITING = 0;
+    private static final int MATCHED = 1;
+    private static final int CANCELLED = 2;
+
+    public static final String MATCHMAKING_DESTINATION = "/queue/matchmaking";
+
+    @Autowired
+    private LeaderboardIndex leaderboardIndex;
+
+    @Autowired
+    private RoomCommandService roomCommandService;
+
+    @Autowired
+    private GameBroadcaster gameBroadcaster;
+
+    @Value("${game.matchmaking.bucket-width:50}")
+    private int bucketWidth;
+
+    @Value("${game.matchmaking.initial-window:100}")
+    private int initialWindow;
+
+    @Value("${game.matchmaking.window-growth-per-second:25}")
+    private int windowGrowthPerSecond;
+
+    @Value("${game.matchmaking.max-window:800}")
+    private int maxWindow;
+
+    private final Map<BoardType, Pool> pools = new EnumMap<>(BoardType.class);
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    private final long[] waitSamples = new long[WAIT_SAMPLES];
+    private int sampleCount;
+    private final AtomicLong totalMatched = new AtomicLong();
+
+    public MatchmakingService() {
+        for (BoardType boardType : BoardType.values()) {
+            pools.put(boardType, new Pool());
+        }
+    }
+
+    /**
+     * Đưa người chơi vào hàng đợi (xếp lại nếu đã có), ghép ngay nếu có đối thủ phù hợp.
+     * userId null (token cũ không có claim) thì dùng điểm mặc định.
+     */
+    public void enqueue(String username, Long userId, BoardType boardType) {
+        BoardType type = boardType != null ? boardType : BoardType.STANDARD;
+        Integer known = userId != null ? leaderboardIndex.findRating(userId) : null;
+        int rating = known != null ? known : DEFAULT_RATING;
+
+        Ticket ticket = new Ticket(username, type, rating, System.nanoTime());
+        Pool pool = pools.get(type);
+        Ticket[] opponent = new Ticket[1];
+        int[] queued = new int[1];
+        tickets.compute(username, (name, previous) -> {
+            if (previous != null) {
+                withdraw(previous);
+            }
+            synchronized (pool) {
+                opponent[0] = pool.findOpponent(ticket, ticket.enqueuedAt);
+                if (opponent[0] == null) {
+                    pool.add(ticket);
+                } else {
+                    ticket.state = MATCHED;
+                }
+                queued[0] = pool.size;
+            }
+            return opponent[0] == null ? ticket : null;
+        });
+
+        if (opponent[0] != null) {
+            matched(ticket, opponent[0]);
+        } else {
+            notify(username, Map.of("status", "QUEUED", "boardType", type.name(), "rating", rating, "queued", queued[0]));
+        }
+    }
+
+    /**
+     * Rời hàng đợi, trả về false nếu người chơi không có trong hàng đợi
+     */
+    public boolean cancel(String username) {
+        boolean[] removed = new boolean[1];
+        tickets.computeIfPresent(username, (name, ticket) -> {
+            removed[0] = withdraw(ticket);
+            return null;
+        });
+        if (removed[0]) {
+            notify(username, Map.of("status", "CANCELLED"));
+        }
+        return removed[0];
+    }
+
+    // Gỡ ticket khỏi Pool nếu còn đang chờ; gọi trong compute của tickets
+    private boolean withdraw(Ticket ticket) {
+        Pool pool = pools.get(ticket.boardType);
+        synchronized (pool) {
+            if (ticket.state != WAITING) {
+                return false;
+            }
+            // Gỡ lười: bucket bỏ qua ticket đã hủy khi duyệt tới
+            ticket.state = CANCELLED;
+            pool.size--;
+            return true;
+        }
+    }
+
+    /**
+     * Quét lại hàng đợi với cửa sổ điểm đã nới rộng theo thời gian chờ
+     */
+    @Scheduled(fixedDelayString = "${game.matchmaking.sweep-interval-ms:500}")
+    public void sweep() {
+        long now = System.nanoTime();
+        for (Pool pool : pools.values()) {
+            List<Ticket[]> pairs;
+            synchronized (pool) {
+                if (pool.size < 2) {
+                    continue;
+                }
+                pairs = pool.matchWaiting(now);
+            }
+            for (Ticket[] pair : pairs) {
+                matched(pair[0], pair[1]);
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> queued = new LinkedHashMap<>();
+        int total = 0;
+        for (Map.Entry<BoardType, Pool> entry : pools.entrySet()) {
+            int size;
+            synchronized (entry.getValue()) {
+                size = entry.getValue().size;
+            }
+            queued.put(entry.getKey().name(), size);
+            total += size;
+        }
+
+        long[] samples;
+        synchronized (waitSamples) {
+            samples = Arrays.copyOf(waitSamples, Math.min(sampleCount, WAIT_SAMPLES));
+        }
+        Arrays.sort(samples);
+
+        Map<String, Object> waitMillis = new HashMap<>();
+        waitMillis.put("samples", samples.length);
+        waitMillis.put("p50", percentile(samples, 0.50));
+        waitMillis.put("p90", percentile(samples, 0.90));
+        waitMillis.put("p99", percentile(samples, 0.99));
+        waitMillis.put("max", samples.length > 0 ? samples[samples.length - 1] : 0);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("queued", queued);
+        result.put("totalQueued", total);
+        result.put("totalMatched", totalMatched.get());
+        result.put("waitMillis", waitMillis);
+        return result;
+    }
+
+    private void matched(Ticket first, Ticket second) {
+        tickets.remove(first.username, first);
+        tickets.remove(second.username, second);
+
+        String gameId = "match-" + UUID.randomUUID().toString().substring(0, 8);
+        try {
+            roomCommandService.createGame(gameId, first.boardType);
+        } catch (RuntimeException e) {
+            // Ticket đã bị gỡ: báo lỗi để client xếp hàng lại, thay vì để người chơi chờ mãi.
+            // Không tự xếp lại vì lỗi kéo dài (node sở hữu phòng không trả lời) sẽ lặp lại ở mỗi lần quét
+            System.err.println("Could not create game " + gameId + " for " + first.username + " vs "
+                    + second.username + ": " + e.getMessage());
+            for (Ticket ticket : new Ticket[] {first, second}) {
+                notify(ticket.username, Map.of(
+                        "status", "ERROR",
+                        "boardType", ticket.boardType.name(),
+                        "message", "Could not create the game room, please join the queue again"));
+            }
+            return;
+        }
+        totalMatched.incrementAndGet();
+
+        long now = System.nanoTime();
+        for (Ticket ticket : new Ticket[] {first, second}) {
+            Ticket other = ticket == first ? second : first;
+            long waited = (now - ticket.enqueuedAt) / 1_000_000L;
+            recordWait(waited);
+            notify(ticket.username, Map.of(
+                    "status", "MATCHED",
+                    "gameId", gameId,
+                    "boardType", ticket.boardType.name(),
+                    "opponent", other.username,
+                    "opponentRating", other.rating,
+                    "waitedMillis", waited));
+        }
+        System.out.println("Matched " + first.username + " vs " + second.username + " in game " + gameId);
+    }
+
+    private void notify(String username, Map<String, Object> payload) {
+        // Chỉ session của chính người chơi nhận được; người chơi có thể đang kết nối ở node khác
+        gameBroadcaster.publishToUser(username, MATCHMAKING_DESTINATION, payload);
+    }
+
+    private void recordWait(long millis) {
+        synchronized (waitSamples) {
+            waitSamples[sampleCount++ % WAIT_SAMPLES] = millis;
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private int windowOf(Ticket ticket, long now) {
+        long waitedSeconds = (now - ticket.enqueuedAt) / 1_000_000_000L;
+        return (int) Math.min(maxWindow, initialWindow + waitedSeconds * windowGrowthPerSecond);
+    }
+
+    private static final class Ticket {
+        private final String username;
+        private final BoardType boardType;
+        private final int rating;
+        private final long enqueuedAt;
+        // Chỉ đổi khi giữ lock của Pool
+        private int state = WAITING;
+
+        private Ticket(String username, BoardType boardType, int rating, long enqueuedAt) {
+            this.username = username;
+            this.boardType = boardType;
+            this.rating = rating;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    // Hàng đợi của một loại bàn; mọi truy cập giữ lock của chính Pool
+    private final class Pool {
+        private final List<ArrayDeque<Ticket>> buckets = new ArrayList<>();
+        private int size;
+
+        private ArrayDeque<Ticket> bucket(int index) {
+            while (buckets.size() <= index) {
+                buckets.add(new ArrayDeque<>());
+            }
+            return buckets.get(index);
+        }
+
+        private int bucketOf(int rating) {
+            return Math.max(0, Math.min(MAX_RATING, rating)) / bucketWidth;
+        }
+
+        private void add(Ticket ticket) {
+            bucket(bucketOf(ticket.rating)).addLast(ticket);
+            size++;
+        }
+
+        /**
+         * Tìm và gỡ đối thủ cho ticket: duyệt bucket từ gần tới xa, trong bucket theo thứ tự chờ
+         */
+        private Ticket findOpponent(Ticket ticket, long now) {
+            int window = windowOf(ticket, now);
+            int center = bucketOf(ticket.rating);
+            int span = window / bucketWidth + 1;
+            for (int distance = 0; distance <= span; distance++) {
+                Ticket found = takeFrom(center - distance, ticket, window, now);
+                if (found == null && distance > 0) {
+                    found = takeFrom(center + distance, ticket, window, now);
+                }
+                if (found != null) {
+                    return found;
+                }
+            }
+            return null;
+        }
+
+        private Ticket takeFrom(int index, Ticket ticket, int window, long now) {
+            if (index < 0 || index >= buckets.size()) {
+                return null;
+            }
+            Iterator<Ticket> iterator = buckets.get(index).iterator();
+            while (iterator.hasNext()) {
+                Ticket candidate = iterator.next();
+                if (candidate.state != WAITING) {
+                    iterator.remove();
+                    continue;
+                }
+                if (candidate == ticket || candidate.username.equals(ticket.username)) {
+                    continue;
+                }
+                // Cửa sổ của bên chờ lâu hơn quyết định
+                int allowed = Math.max(window, windowOf(candidate, now));
+                if (Math.abs(candidate.rating - ticket.rating) <= allowed) {
+                    iterator.remove();
+                    candidate.state = MATCHED;
+                    size--;
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Ghép các ticket đang chờ, ưu tiên người chờ lâu nhất
+         */
+        private List<Ticket[]> matchWaiting(long now) {
+            List<Ticket> waiting = new ArrayList<>(size);
+            for (ArrayDeque<Ticket> bucket : buckets) {
+                for (Ticket ticket : bucket) {
+                    if (ticket.state == WAITING) {
+                        waiting.add(ticket);
+                    }
+                }
+            }
+            waiting.sort(Comparator.comparingLong(ticket -> ticket.enqueuedAt));
+
+            List<Ticket[]> pairs = new ArrayList<>();
+            for (Ticket ticket : waiting) {
+                if (ticket.state != WAITING) {
+                    continue;
+                }
+                Ticket opponent = findOpponent(ticket, now);
+                if (opponent != null) {
+                    bucket(bucketOf(ticket.rating)).remove(ticket);
+                    ticket.state = MATCHED;
+                    size--;
+                    pairs.add(new Ticket[] {ticket, opponent});
+                }
+            }
+            return pairs;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.carogame.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.carogame.model.MoveLogEntry;
+
+/**
+ * Ghi nhật ký nước đi vào game_moves qua WriteBehindWriter: luồng xử lý nước đi chỉ xếp hàng,
+ * một luồng nền ghi theo lô. Dòng vượt độ dài cột của V4 bị từ chối ngay ở append().
+ * Trùng (match_id, seq) thì bỏ qua.
+ */
+public class MoveLogWriter extends WriteBehindWriter<MoveLogEntry> {
+
+    private static final String INSERT_SQL = "INSERT INTO game_moves "
+            + "(match_id, game_id, seq, move_number, row_index, col_index, symbol, player_id, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (match_id, seq) DO NOTHING";
+
+    // Độ dài cột trong V4__create_game_moves.sql
+    public static final int MAX_MATCH_ID_LENGTH = 64;
+    public static final int MAX_ID_LENGTH = 100;
+
+    private static final long POLL_MILLIS = 1000;
+
+    public MoveLogWriter(JdbcTemplate jdbcTemplate, int batchSize, int queueCapacity, long retryDelayMillis,
+                         int maxRetries) {
+        super("move-log-writer", jdbcTemplate, INSERT_SQL, MoveLogWriter::bind, batchSize, queueCapacity,
+                POLL_MILLIS, retryDelayMillis, maxRetries);
+    }
+
+    @Override
+    protected boolean accepts(MoveLogEntry entry) {
+        return fitsColumns(entry);
+    }
+
+    @Override
+    protected String describe(MoveLogEntry entry) {
+        return "move " + abbreviate(entry.matchId()) + "/" + entry.seq() + " of game " + abbreviate(entry.gameId());
+    }
+
+    static boolean fitsColumns(MoveLogEntry entry) {
+        return entry.matchId() != null && entry.matchId().length() <= MAX_MATCH_ID_LENGTH
+                && entry.gameId() != null && entry.gameId().length() <= MAX_ID_LENGTH
+                && (entry.playerId() == null || entry.playerId().length() <= MAX_ID_LENGTH)
+                && entry.symbol() != null && entry.symbol().length() == 1
+                && entry.createdAt() != null;
+    }
+
+    private static String abbreviate(String value) {
+        return value == null || value.length() <= 40 ? value : value.substring(0, 40) + "...";
+    }
+
+    private static void bind(PreparedStatement ps, MoveLogEntry entry) throws SQLException {
+        ps.setString(1, entry.matchId());
+        ps.setString(2, entry.gameId());
+        ps.setLong(3, entry.seq());
+        ps.setInt(4, entry.moveNumber());
+        ps.setInt(5, entry.row());
+        ps.setInt(6, entry.col());
+        ps.setString(7, entry.symbol());
+        ps.setString(8, entry.playerId());
+        ps.setTimestamp(9, Timestamp.valueOf(entry.createdAt()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.carogame.service;
+
+import com.example.carogame.dto.ClusterMessage;
+import com.example.carogame.model.GameEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Broker thay thế không cần dịch vụ ngoài: mỗi tin nhắn được gửi tới mọi node khác qua kênh
+ * HTTP của ClusterService, node nhận gửi lại vào broker cục bộ của nó. Tin nhắn được chuyển
+ * thành JSON một lần cho mọi node đích.
+ */
+public class PeerBroadcastRelay implements BroadcastRelay {
+
+    private final ClusterService clusterService;
+    private final ObjectMapper objectMapper;
+
+    public PeerBroadcastRelay(ClusterService clusterService, ObjectMapper objectMapper) {
+        this.clusterService = clusterService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void relayGameEvent(String gameId, GameEvent event) {
+        clusterService.broadcast(ClusterMessage.gameEvent(gameId, objectMapper.valueToTree(event)));
+    }
+
+    @Override
+    public void relayTopic(String destination, Object payload) {
+        clusterService.broadcast(ClusterMessage.topic(destination, objectMapper.valueToTree(payload)));
+    }
+}
@@ -3,11 +3,12 @@ package com.example.carogame.service;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.carogame.dto.LeaderboardEntry;
 import com.example.carogame.entity.User;
 import com.example.carogame.entity.UserStats;
 import com.example.carogame.repository.UserRepository;
@@ -22,6 +23,9 @@ public class RankingService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // ELO rating calculation constants
     private static final int K_FACTOR = 32; // K-factor for ELO calculation
     private static final double EXPECTED_SCORE_DIVISOR = 400.0;
@@ -67,6 +71,10 @@ public class RankingService {
 
         userStatsRepository.save(winnerStats);
         userStatsRepository.save(loserStats);
+
+        // LeaderboardIndex chỉ nhận thay đổi sau khi transaction commit
+        eventPublisher.publishEvent(new UserStatsChangedEvent(
+                List.of(LeaderboardEntry.of(winnerStats), LeaderboardEntry.of(loserStats))));
     }
 
     /**
@@ -83,18 +91,19 @@ public class RankingService {
     }
 
     /**
-     * Update all user rank positions based on current ratings
+     * Update all user rank positions based on current ratings.
+     * Một câu UPDATE dùng RANK() trên DB (cùng cách tính với LeaderboardIndex), chạy định kỳ;
+     * trả về số dòng thay đổi.
      */
+    @Scheduled(cron = "${game.ranking.recompute-cron:0 */15 * * * *}")
     @Transactional
-    public void updateAllRankings() {
-        Pageable pageable = PageRequest.of(0, Integer.MAX_VALUE);
-        List<UserStats> allStats = userStatsRepository.findTop10ByRankingPoints(pageable);
-
-        for (int i = 0; i < allStats.size(); i++) {
-            UserStats stats = allStats.get(i);
-            stats.setRankPosition(i + 1);
-            userStatsRepository.save(stats);
-        }
+    public int updateAllRankings() {
+        long start = System.currentTimeMillis();
+        System.out.println("Recomputing rank positions...");
+        int updated = userStatsRepository.recomputeRankPositions();
+        System.out.println("Rank positions recomputed: " + updated + " rows changed in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return updated;
     }
 
     /**
@@ -0,0 +1,307 @@
+package com.example.carogame.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.example.carogame.dto.CreateGameRequest;
+import com.example.carogame.dto.GameSnapshot;
+import com.example.carogame.model.BoardType;
+import com.example.carogame.model.GameEvent;
+import com.example.carogame.model.GameState;
+import com.example.carogame.model.Move;
+import com.example.carogame.model.Player;
+import com.example.carogame.util.GameFrameCodec;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+/**
+ * Điểm vào các lệnh thay đổi phòng (join / move / reset / add-ai / leave).
+ *
+ * Phòng thuộc node này thì lệnh được đưa vào mailbox của phòng, thread gọi không chờ kết quả;
+ * chỉ gửi delta (GameEvent) khi seq của phòng thay đổi, snapshot đầy đủ lấy qua /api/game/{gameId}.
+ * Phòng thuộc node khác thì lệnh được chuyển nguyên vẹn tới node đó (ClusterService).
+ */
+@Service
+public class RoomCommandService {
+
+    public static final String JOIN = "join";
+    public static final String MOVE = "move";
+    public static final String RESET = "reset";
+    public static final String ADD_AI = "add-ai";
+    public static final String LEAVE = "leave";
+    public static final String DISCONNECT = "disconnect";
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private GameCommandDispatcher commandDispatcher;
+
+    @Autowired
+    private GameBroadcaster gameBroadcaster;
+
+    @Autowired
+    private AiPlayerService aiPlayerService;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Snapshot đã mã hóa của mỗi phòng theo từng định dạng, dùng lại cho tới khi seq đổi
+    private final Map<String, CachedSnapshot> denseSnapshots = new ConcurrentHashMap<>();
+    private final Map<String, CachedSnapshot> sparseSnapshots = new ConcurrentHashMap<>();
+    private final Map<String, CachedSnapshot> binarySnapshots = new ConcurrentHashMap<>();
+
+    public void join(String gameId, Player player) {
+        // Vào phòng chưa có sẽ tạo phòng mới, nên gameId phải hợp lệ trước khi chuyển đi
+        if (!GameState.isValidGameId(gameId)) {
+            System.err.println("Rejected join: invalid game id of length " + (gameId != null ? gameId.length() : 0));
+            return;
+        }
+        if (!forwarded(gameId, JOIN, player)) {
+            joinLocal(gameId, player);
+        }
+    }
+
+    public void move(String gameId, Move move) {
+        if (!forwarded(gameId, MOVE, move)) {
+            moveLocal(gameId, move);
+        }
+    }
+
+    public void reset(String gameId) {
+        if (!forwarded(gameId, RESET, null)) {
+            resetLocal(gameId);
+        }
+    }
+
+    public void addAi(String gameId) {
+        if (!forwarded(gameId, ADD_AI, null)) {
+            addAiLocal(gameId);
+        }
+    }
+
+    public void leave(String gameId, Player player) {
+        if (!forwarded(gameId, LEAVE, player)) {
+            leaveLocal(gameId, player);
+        }
+    }
+
+    /**
+     * Người chơi mất kết nối WebSocket: rời phòng và báo cho những người còn lại
+     */
+    public void disconnect(String gameId, String playerId) {
+        if (!forwarded(gameId, DISCONNECT, new Player(playerId, null, null))) {
+            disconnectLocal(gameId, playerId);
+        }
+    }
+
+    /**
+     * Tạo phòng trên node sở hữu; trả về GameState (cục bộ) hoặc JSON của node sở hữu
+     */
+    public Object createGame(String gameId, BoardType boardType) {
+        if (!GameState.isValidGameId(gameId)) {
+            throw new IllegalArgumentException("Invalid game id (1-" + GameState.MAX_GAME_ID_LENGTH + " characters)");
+        }
+        if (clusterService.isLocal(gameId)) {
+            return gameService.createGame(gameId, boardType);
+        }
+        return clusterService.request(gameId, "POST", "/internal/cluster/rooms/create",
+                new CreateGameRequest(gameId, boardType));
+    }
+
+    /**
+     * Snapshot của phòng thuộc node này (sparse: GameSnapshot, ngược lại GameState) dưới dạng JSON
+     * đã mã hóa sẵn, Spring ghi thẳng ra response. Trả về null nếu không có phòng.
+     *
+     * Snapshot được chụp một lần cho mỗi seq, trong mailbox của phòng để bàn cờ và seq khớp nhau
+     * (không đọc giữa chừng một nước đi). Các lần hỏi sau với seq chưa đổi lấy từ cache, không vào
+     * mailbox và không chờ các lệnh đang xếp hàng của phòng.
+     */
+    public Object snapshotLocal(String gameId, boolean sparse) {
+        if (sparse) {
+            return cachedSnapshot(gameId, sparseSnapshots,
+                    game -> new RawValue(objectMapper.writeValueAsString(GameSnapshot.of(game))));
+        }
+        return cachedSnapshot(gameId, denseSnapshots, game -> new RawValue(objectMapper.writeValueAsString(game)));
+    }
+
+    /**
+     * Snapshot nhị phân (frame GameFrameCodec) cho client dùng encoding "binary", cache như snapshotLocal
+     */
+    public byte[] binarySnapshotLocal(String gameId) {
+        return (byte[]) cachedSnapshot(gameId, binarySnapshots, GameFrameCodec::encode);
+    }
+
+    private Object cachedSnapshot(String gameId, Map<String, CachedSnapshot> cache, SnapshotEncoder encoder) {
+        GameState game = gameService.getGame(gameId);
+        if (game == null) {
+            cache.remove(gameId);
+            return null;
+        }
+        CachedSnapshot cached = cache.get(gameId);
+        if (cached != null && cached.isCurrent(game)) {
+            return cached.payload();
+        }
+        return commandDispatcher.submit(gameId, () -> buildSnapshot(gameId, cache, encoder)).join();
+    }
+
+    // Chạy trong mailbox; nhiều lần hỏi cùng lúc khi seq vừa đổi chỉ lần đầu phải mã hóa
+    private Object buildSnapshot(String gameId, Map<String, CachedSnapshot> cache, SnapshotEncoder encoder) {
+        GameState game = gameService.getGame(gameId);
+        if (game == null) {
+            cache.remove(gameId);
+            return null;
+        }
+        CachedSnapshot cached = cache.get(gameId);
+        if (cached != null && cached.isCurrent(game)) {
+            return cached.payload();
+        }
+
+        long seq = game.getSeq();
+        Object payload;
+        try {
+            payload = encoder.encode(game);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize game " + gameId, e);
+        }
+        cache.put(gameId, new CachedSnapshot(game, seq, payload));
+        if (cache.size() > 2 * gameService.getTotalGamesCount() + 64) {
+            // Phòng đã bị xóa mà không ai hỏi lại: bỏ snapshot của chúng
+            cache.entrySet().removeIf(entry -> gameService.getGame(entry.getKey()) != entry.getValue().game());
+        }
+        return payload;
+    }
+
+    /**
+     * Thực thi lệnh do node khác chuyển tới (phòng thuộc node này)
+     */
+    public void executeForwarded(String gameId, String command, JsonNode payload) throws JsonProcessingException {
+        switch (command) {
+            case JOIN -> joinLocal(gameId, objectMapper.treeToValue(payload, Player.class));
+            case MOVE -> moveLocal(gameId, objectMapper.treeToValue(payload, Move.class));
+            case RESET -> resetLocal(gameId);
+            case ADD_AI -> addAiLocal(gameId);
+            case LEAVE -> leaveLocal(gameId, objectMapper.treeToValue(payload, Player.class));
+            case DISCONNECT -> disconnectLocal(gameId, objectMapper.treeToValue(payload, Player.class).getId());
+            default -> System.err.println("Unknown forwarded command " + command + " for game " + gameId);
+        }
+    }
+
+    private boolean forwarded(String gameId, String command, Object payload) {
+        if (clusterService.isLocal(gameId)) {
+            return false;
+        }
+        clusterService.forwardCommand(gameId, command, payload);
+        return true;
+    }
+
+    private void joinLocal(String gameId, Player player) {
+        submitAndPublish(gameId, () -> {
+            long seq = currentSeq(gameId);
+            GameState game = gameService.joinGame(gameId, player);
+            return changed(game, seq) ? GameEvent.playerJoined(game) : null;
+        });
+    }
+
+    private void moveLocal(String gameId, Move move) {
+        submitAndPublish(gameId, () -> {
+            long seq = currentSeq(gameId);
+            GameState game = gameService.makeMove(gameId, move);
+            return changed(game, seq) ? GameEvent.moveApplied(game, move) : null;
+        });
+    }
+
+    private void resetLocal(String gameId) {
+        submitAndPublish(gameId, () -> {
+            long seq = currentSeq(gameId);
+            gameService.resetGame(gameId);
+            GameState game = gameService.getGame(gameId);
+            return changed(game, seq) ? GameEvent.gameReset(game) : null;
+        });
+    }
+
+    private void addAiLocal(String gameId) {
+        submitAndPublish(gameId, () -> {
+            long seq = currentSeq(gameId);
+            GameState game = aiPlayerService.joinAsAi(gameId);
+            return changed(game, seq) ? GameEvent.playerJoined(game) : null;
+        });
+    }
+
+    private void leaveLocal(String gameId, Player player) {
+        submitAndPublish(gameId, () -> {
+            long seq = currentSeq(gameId);
+            GameState game = gameService.leaveGame(gameId, player.getId());
+            return changed(game, seq) ? GameEvent.playerLeft(game, player.getId()) : null;
+        });
+    }
+
+    private void disconnectLocal(String gameId, String playerId) {
+        // Xử lý người chơi thoát game qua mailbox của phòng để giữ thứ tự với các nước đi
+        commandDispatcher.submit(gameId, () -> {
+            GameState updatedGame = gameService.leaveGame(gameId, playerId);
+            if (updatedGame != null) {
+                // Còn người chơi trong phòng, thông báo thay đổi
+                GameEvent leftEvent = GameEvent.playerLeft(updatedGame, playerId);
+                gameBroadcaster.publish(gameId, leftEvent);
+                aiPlayerService.onGameEvent(gameId, leftEvent);
+
+                // Thông báo riêng về việc người chơi rời phòng
+                gameBroadcaster.publishTopic("/topic/game/" + gameId + "/player-left",
+                    Map.of("playerId", playerId, "message", "Người chơi đã rời phòng"));
+            } else {
+                // Game đã bị xóa do không còn người chơi
+                gameBroadcaster.publishTopic("/topic/game/" + gameId + "/deleted",
+                    Map.of("message", "Phòng đã bị xóa do không còn người chơi"));
+                System.out.println("Game " + gameId + " deleted due to no players");
+            }
+            return null;
+        });
+    }
+
+    private long currentSeq(String gameId) {
+        GameState game = gameService.getGame(gameId);
+        return game != null ? game.getSeq() : -1;
+    }
+
+    private boolean changed(GameState game, long seqBefore) {
+        return game != null && game.getSeq() != seqBefore;
+    }
+
+    /**
+     * Thực thi lệnh trong mailbox của phòng và gửi sự kiện ngay trong mailbox đó, nên sự kiện của
+     * một phòng tới broker đúng thứ tự seq. (Callback gắn vào future sau submit có thể chạy trên
+     * thread gọi nếu mailbox đã xong trước, chen ngang thứ tự.)
+     */
+    private void submitAndPublish(String gameId, Supplier<GameEvent> command) {
+        commandDispatcher.submit(gameId, () -> {
+            GameEvent event = command.get();
+            if (event != null) {
+                gameBroadcaster.publish(gameId, event);
+                aiPlayerService.onGameEvent(gameId, event);
+            }
+            return event;
+        });
+    }
+
+    // game giữ để phòng bị xóa rồi tạo lại cùng gameId (seq đếm lại từ đầu) không dùng nhầm snapshot cũ
+    private record CachedSnapshot(GameState game, long seq, Object payload) {
+
+        boolean isCurrent(GameState current) {
+            return game == current && seq == current.getSeq();
+        }
+    }
+
+    private interface SnapshotEncoder {
+        Object encode(GameState game) throws JsonProcessingException;
+    }
+}
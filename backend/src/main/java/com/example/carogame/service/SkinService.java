@@ -32,6 +32,9 @@ public class SkinService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     // Board Skin Methods
     public List<BoardSkin> getAllActiveBoardSkins() {
         return boardSkinRepository.findByIsActiveTrue();
@@ -100,7 +103,7 @@ public class SkinService {
 
         // Deduct balance and save purchase
         user.spendCoins(skin.getPrice());
-        userRepository.save(user);
+        userCache.saved(userRepository.save(user));
 
         UserSkin userSkin = new UserSkin(user, "BOARD", skinName, skin.getPrice());
         userSkinRepository.save(userSkin);
@@ -132,7 +135,7 @@ public class SkinService {
 
         // Deduct balance and save purchase
         user.spendCoins(skin.getPrice());
-        userRepository.save(user);
+        userCache.saved(userRepository.save(user));
 
         UserSkin userSkin = new UserSkin(user, "PIECE", skinName, skin.getPrice());
         userSkinRepository.save(userSkin);
@@ -156,7 +159,7 @@ public class SkinService {
         }
 
         user.setSelectedBoardSkin(skinName);
-        userRepository.save(user);
+        userCache.saved(userRepository.save(user));
         return true;
     }
 
@@ -175,7 +178,7 @@ public class SkinService {
         }
 
         user.setSelectedPieceSkin(skinName);
-        userRepository.save(user);
+        userCache.saved(userRepository.save(user));
         return true;
     }
 
@@ -0,0 +1,214 @@
+package com.example.carogame.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import com.example.carogame.dto.SpectatorUpdate;
+import com.example.carogame.model.GameEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Kênh xem trận /topic/game/{gameId}/spectate, tách khỏi kênh của người chơi.
+ *
+ * Sự kiện của phòng có người xem được gom lại và gửi tối đa maxUpdatesPerSecond lần mỗi giây
+ * (có thể trễ thêm delayMs), mỗi lần là một SpectatorUpdate chứa nhiều sự kiện. Payload được
+ * chuyển thành JSON đúng một lần cho mỗi lần cập nhật rồi dùng chung cho mọi session xem phòng.
+ * Phòng không có người xem thì sự kiện bị bỏ qua ngay. Số người xem đếm theo SUBSCRIBE /
+ * UNSUBSCRIBE / DISCONNECT trên node này.
+ */
+@Service
+public class SpectatorFeed {
+
+    public static final String SPECTATE_SUFFIX = "/spectate";
+    private static final Pattern SPECTATE_TOPIC = Pattern.compile("^/topic/game/([^/]+)/spectate$");
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${game.spectator.max-updates-per-second:2}")
+    private int maxUpdatesPerSecond;
+
+    // Trễ thêm so với người chơi (0 = chỉ gom theo nhịp gửi)
+    @Value("${game.spectator.delay-ms:0}")
+    private long delayMs;
+
+    // sessionId -> (subscriptionId -> gameId)
+    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        long intervalMs = Math.max(1, 1000 / Math.max(1, maxUpdatesPerSecond));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "spectator-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Gọi mỗi khi sự kiện của phòng được gửi tới client ở node này
+     */
+    public void onEvent(String gameId, GameEvent event) {
+        Room room = rooms.get(gameId);
+        if (room == null) {
+            return;
+        }
+        synchronized (room) {
+            room.pending.addLast(new Pending(System.currentTimeMillis(), event));
+        }
+    }
+
+    public int getSpectatorCount(String gameId) {
+        Room room = rooms.get(gameId);
+        return room != null ? room.spectators.get() : 0;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> perRoom = new LinkedHashMap<>();
+        int total = 0;
+        for (Map.Entry<String, Room> entry : rooms.entrySet()) {
+            Room room = entry.getValue();
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("spectators", room.spectators.get());
+            stats.put("updatesSent", room.updatesSent.get());
+            stats.put("eventsSent", room.eventsSent.get());
+            stats.put("bytesSent", room.bytesSent.get());
+            perRoom.put(entry.getKey(), stats);
+            total += room.spectators.get();
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalSpectators", total);
+        result.put("rooms", perRoom);
+        return result;
+    }
+
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        Matcher matcher = destination != null ? SPECTATE_TOPIC.matcher(destination) : null;
+        if (matcher == null || !matcher.matches()) {
+            return;
+        }
+        String gameId = matcher.group(1);
+        sessionSubscriptions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), gameId);
+        rooms.compute(gameId, (id, room) -> {
+            Room target = room != null ? room : new Room();
+            target.spectators.incrementAndGet();
+            return target;
+        });
+    }
+
+    @EventListener
+    public void handleUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessionSubscriptions.get(accessor.getSessionId());
+        if (subscriptions != null) {
+            release(subscriptions.remove(accessor.getSubscriptionId()));
+        }
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    private void release(String gameId) {
+        if (gameId == null) {
+            return;
+        }
+        // Người xem cuối cùng rời đi thì bỏ luôn phòng và các sự kiện đang chờ
+        rooms.computeIfPresent(gameId, (id, room) -> room.spectators.decrementAndGet() <= 0 ? null : room);
+    }
+
+    private void flush() {
+        long cutoff = System.currentTimeMillis() - delayMs;
+        for (Map.Entry<String, Room> entry : rooms.entrySet()) {
+            Room room = entry.getValue();
+            List<GameEvent> events;
+            synchronized (room) {
+                if (room.pending.isEmpty() || room.pending.peekFirst().at() > cutoff) {
+                    continue;
+                }
+                events = new ArrayList<>();
+                while (!room.pending.isEmpty() && room.pending.peekFirst().at() <= cutoff) {
+                    events.add(room.pending.pollFirst().event());
+                }
+            }
+            try {
+                send(entry.getKey(), room, new SpectatorUpdate(entry.getKey(), room.spectators.get(), events));
+            } catch (Exception e) {
+                System.err.println("Error sending spectator update for game " + entry.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void send(String gameId, Room room, SpectatorUpdate update) throws Exception {
+        // Chuyển JSON một lần; broker gửi cùng mảng byte cho mọi session đang xem
+        byte[] payload = objectMapper.writeValueAsBytes(update);
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        messagingTemplate.send("/topic/game/" + gameId + SPECTATE_SUFFIX,
+                MessageBuilder.createMessage(payload, headers.getMessageHeaders()));
+
+        room.updatesSent.incrementAndGet();
+        room.eventsSent.addAndGet(update.getEvents().size());
+        room.bytesSent.addAndGet(payload.length);
+    }
+
+    private record Pending(long at, GameEvent event) {}
+
+    private static final class Room {
+        private final AtomicInteger spectators = new AtomicInteger();
+        // Chỉ truy cập khi giữ lock của Room
+        private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+        private final AtomicLong updatesSent = new AtomicLong();
+        private final AtomicLong eventsSent = new AtomicLong();
+        private final AtomicLong bytesSent = new AtomicLong();
+    }
+}
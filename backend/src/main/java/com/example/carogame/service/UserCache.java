@@ -0,0 +1,154 @@
+package com.example.carogame.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.carogame.entity.User;
+import com.example.carogame.repository.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache User theo username và id trước UserRepository (LRU, tối đa game.user-cache.max-entries),
+ * để các đường nóng (chat, /api/auth/me, skin) lấy thông tin user không cần truy vấn DB.
+ *
+ * Mọi chỗ lưu User (số dư, skin, quyền, trạng thái) gọi saved(user): ngoài transaction thì ghi
+ * thẳng vào cache, trong transaction thì bỏ bản cũ ngay và ghi bản mới sau khi commit (rollback
+ * thì chỉ bỏ). User lấy từ cache dùng chung giữa các thread nên chỉ được đọc; muốn sửa thì tải
+ * từ UserRepository rồi lưu lại.
+ */
+@Service
+public class UserCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${game.user-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private Map<String, User> byUsername;
+    private final Map<Long, String> usernameById = new ConcurrentHashMap<>();
+
+    // Tăng mỗi lần ghi / bỏ: bản tải từ DB chỉ được đưa vào cache nếu không có lần ghi nào xen giữa
+    private final AtomicLong writes = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        byUsername = Collections.synchronizedMap(new LinkedHashMap<String, User>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                usernameById.remove(eldest.getValue().getId(), eldest.getKey());
+                evictions.incrementAndGet();
+                return true;
+            }
+        });
+    }
+
+    public Optional<User> findByUsername(String username) {
+        User cached = byUsername.get(username);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        misses.incrementAndGet();
+        long version = writes.get();
+        Optional<User> loaded = userRepository.findByUsername(username);
+        loaded.ifPresent(user -> putIfUnchanged(user, version));
+        return loaded;
+    }
+
+    public Optional<User> findById(Long id) {
+        String username = usernameById.get(id);
+        User cached = username != null ? byUsername.get(username) : null;
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        misses.incrementAndGet();
+        long version = writes.get();
+        Optional<User> loaded = userRepository.findById(id);
+        loaded.ifPresent(user -> putIfUnchanged(user, version));
+        return loaded;
+    }
+
+    /**
+     * Gọi sau khi lưu User (write-through)
+     */
+    public void saved(User user) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(user);
+            return;
+        }
+        evict(user.getId());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    put(user);
+                } else {
+                    evict(user.getId());
+                }
+            }
+        });
+    }
+
+    public void evict(Long userId) {
+        writes.incrementAndGet();
+        String username = usernameById.remove(userId);
+        if (username != null) {
+            byUsername.remove(username);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", byUsername.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private void put(User user) {
+        writes.incrementAndGet();
+        synchronized (byUsername) {
+            store(user);
+        }
+    }
+
+    private void putIfUnchanged(User user, long version) {
+        synchronized (byUsername) {
+            if (writes.get() == version) {
+                store(user);
+            }
+        }
+    }
+
+    // Gọi khi giữ lock của byUsername
+    private void store(User user) {
+        String previous = usernameById.put(user.getId(), user.getUsername());
+        if (previous != null && !previous.equals(user.getUsername())) {
+            byUsername.remove(previous);
+        }
+        byUsername.put(user.getUsername(), user);
+    }
+}
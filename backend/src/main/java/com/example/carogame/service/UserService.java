@@ -22,6 +22,9 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserCache userCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return userRepository.findByUsername(username)
@@ -44,11 +47,13 @@ public class UserService implements UserDetailsService {
         user.setDisplayName(displayName);
         user.setCreatedAt(LocalDateTime.now());
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userCache.saved(saved);
+        return saved;
     }
 
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userCache.findByUsername(username);
     }
 
     public void updateLastLogin(String username) {
@@ -56,7 +61,7 @@ public class UserService implements UserDetailsService {
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             user.setLastLogin(LocalDateTime.now());
-            userRepository.save(user);
+            userCache.saved(userRepository.save(user));
         }
     }
 
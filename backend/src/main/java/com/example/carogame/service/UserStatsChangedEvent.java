@@ -0,0 +1,11 @@
+package com.example.carogame.service;
+
+import java.util.List;
+
+import com.example.carogame.dto.LeaderboardEntry;
+
+/**
+ * Phát trong transaction cập nhật UserStats; LeaderboardIndex áp dụng sau khi commit
+ */
+public record UserStatsChangedEvent(List<LeaderboardEntry> entries) {
+}
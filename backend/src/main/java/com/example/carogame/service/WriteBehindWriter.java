@@ -0,0 +1,241 @@
+package com.example.carogame.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+/**
+ * Ghi nền kiểu write-behind cho một câu INSERT: append() chỉ đưa dòng vào hàng đợi có giới hạn,
+ * một luồng nền gom những gì đang chờ thành một batch INSERT. Tải càng cao thì lô càng lớn.
+ *
+ * Hàng đợi đầy thì bỏ dòng đó (đếm trong dropped) thay vì chặn người gọi. Dòng không qua
+ * accepts() bị từ chối ngay ở append() (đếm trong rejected).
+ *
+ * Lô ghi lỗi thì ghi lại từng dòng: dòng bị DB từ chối hẳn (vi phạm ràng buộc, dữ liệu sai) bị
+ * bỏ và đếm trong rejected, để một dòng hỏng không chặn các dòng khác. Lỗi tạm thời (mất kết
+ * nối, ...) thì giữ phần chưa ghi, thử lại sau retryDelayMillis, tối đa maxRetries lần rồi bỏ
+ * (đếm trong failed, từng dòng qua lost()).
+ *
+ * Lớp con đặt câu INSERT và cách bind một dòng; beforePoll() chạy trên luồng ghi trước mỗi lần
+ * chờ dòng mới, cho các việc DB phải làm ngoài luồng của người gọi. Không phụ thuộc Spring
+ * context để benchmark và test dùng trực tiếp.
+ */
+public class WriteBehindWriter<T> {
+
+    private final String name;
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertSql;
+    private final ParameterizedPreparedStatementSetter<T> binder;
+    private final int batchSize;
+    private final long pollMillis;
+    private final long retryDelayMillis;
+    private final int maxRetries;
+    private final LinkedBlockingQueue<T> queue;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean running;
+    private Thread worker;
+
+    public WriteBehindWriter(String name, JdbcTemplate jdbcTemplate, String insertSql,
+                             ParameterizedPreparedStatementSetter<T> binder, int batchSize, int queueCapacity,
+                             long pollMillis, long retryDelayMillis, int maxRetries) {
+        this.name = name;
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertSql = insertSql;
+        this.binder = binder;
+        this.batchSize = batchSize;
+        this.pollMillis = pollMillis;
+        this.retryDelayMillis = retryDelayMillis;
+        this.maxRetries = maxRetries;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Dừng luồng ghi, ghi nốt phần còn trong hàng đợi (thử một lần)
+     */
+    public void stop() {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        worker.interrupt();
+        try {
+            worker.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Không chặn; trả về false nếu dòng không hợp lệ hoặc hàng đợi đầy và dòng bị bỏ
+     */
+    public boolean append(T row) {
+        if (!accepts(row)) {
+            rejected.incrementAndGet();
+            System.err.println(name + ": rejected " + describe(row) + ", missing or too long field");
+            return false;
+        }
+        if (queue.offer(row)) {
+            appended.incrementAndGet();
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("appended", appended.get());
+        stats.put("written", written.get());
+        stats.put("dropped", dropped.get());
+        stats.put("batches", batches.get());
+        stats.put("rejected", rejected.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    /**
+     * Kiểm tra trước khi xếp hàng (thường là độ dài cột), mặc định nhận mọi dòng
+     */
+    protected boolean accepts(T row) {
+        return true;
+    }
+
+    // Mô tả dòng trong log khi dòng bị bỏ
+    protected String describe(T row) {
+        return String.valueOf(row);
+    }
+
+    /**
+     * Gọi cho từng dòng đã xếp hàng nhưng bị bỏ (DB từ chối, hết số lần thử hoặc khi dừng),
+     * mặc định chỉ đếm
+     */
+    protected void lost(T row) {
+    }
+
+    /**
+     * Chạy trên luồng ghi trước mỗi lần chờ dòng mới; lỗi chỉ được ghi log
+     */
+    protected void beforePoll() {
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(batchSize);
+        int attempts = 0;
+        while (running) {
+            try {
+                runBeforePoll();
+                if (batch.isEmpty()) {
+                    T first = queue.poll(pollMillis, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    attempts = 0;
+                }
+                write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                System.err.println(name + ": error writing " + batch.size() + " rows: " + e.getMessage());
+                writeRows(batch);
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                if (++attempts >= maxRetries) {
+                    giveUp(batch, attempts + " attempts");
+                    continue;
+                }
+                try {
+                    Thread.sleep(retryDelayMillis);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+
+        queue.drainTo(batch);
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            List<T> chunk = new ArrayList<>(batch.subList(from, Math.min(batch.size(), from + batchSize)));
+            try {
+                write(chunk);
+            } catch (Exception e) {
+                writeRows(chunk);
+                if (!chunk.isEmpty()) {
+                    giveUp(chunk, "shutdown: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void runBeforePoll() {
+        try {
+            beforePoll();
+        } catch (Exception e) {
+            System.err.println(name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ghi lại từng dòng sau khi cả lô lỗi. Dòng bị DB từ chối hẳn thì bỏ; gặp lỗi tạm thời thì
+     * dừng. Khi trả về, batch chỉ còn các dòng chưa ghi được.
+     */
+    private void writeRows(List<T> batch) {
+        int index = 0;
+        while (index < batch.size()) {
+            T row = batch.get(index);
+            try {
+                jdbcTemplate.update(insertSql, ps -> binder.setValues(ps, row));
+                written.incrementAndGet();
+            } catch (DataIntegrityViolationException e) {
+                rejected.incrementAndGet();
+                System.err.println(name + ": skipping " + describe(row) + ": " + e.getMostSpecificCause().getMessage());
+                lost(row);
+            } catch (Exception e) {
+                break;
+            }
+            index++;
+        }
+        batch.subList(0, index).clear();
+    }
+
+    private void giveUp(List<T> batch, String reason) {
+        failed.addAndGet(batch.size());
+        System.err.println(name + ": giving up on " + batch.size() + " rows after " + reason);
+        batch.forEach(this::lost);
+        batch.clear();
+    }
+
+    private void write(List<T> batch) {
+        jdbcTemplate.batchUpdate(insertSql, batch, batch.size(), binder);
+        written.addAndGet(batch.size());
+        batches.incrementAndGet();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.carogame.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Vòng băm nhất quán: mỗi node có nhiều điểm ảo trên vòng 64 bit, khóa thuộc về node có điểm
+ * đầu tiên theo chiều kim đồng hồ. Thêm / bớt một node chỉ chuyển khoảng 1/N số khóa.
+ * Không thay đổi sau khi tạo nên đọc đồng thời không cần khóa.
+ */
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Ring needs at least one node");
+        }
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    public String nodeFor(String key) {
+        SortedMap<Long, String> tail = ring.tailMap(hash(key));
+        return tail.isEmpty() ? ring.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    /**
+     * Tỉ lệ vòng (0..1) thuộc về mỗi node, để kiểm tra độ cân bằng
+     */
+    public Map<String, Double> shares() {
+        Map<String, Double> shares = new TreeMap<>();
+        if (ring.size() == 1) {
+            shares.put(ring.firstEntry().getValue(), 1.0);
+            return shares;
+        }
+        long previous = ring.lastKey();
+        for (Map.Entry<Long, String> entry : ring.entrySet()) {
+            // Khoảng (previous, key] thuộc về node của key; phép trừ quấn quanh vòng 2^64
+            long span = entry.getKey() - previous;
+            shares.merge(entry.getValue(), unsignedToDouble(span) / 0x1p64, Double::sum);
+            previous = entry.getKey();
+        }
+        return shares;
+    }
+
+    private static double unsignedToDouble(long value) {
+        return (double) (value >>> 1) * 2.0 + (value & 1);
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (digest[i] & 0xFF);
+            }
+            return value;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
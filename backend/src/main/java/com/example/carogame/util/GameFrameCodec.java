@@ -0,0 +1,247 @@
+package com.example.carogame.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.carogame.model.BitBoard;
+import com.example.carogame.model.BoardType;
+import com.example.carogame.model.GameEvent;
+import com.example.carogame.model.GameState;
+import com.example.carogame.model.Player;
+
+/**
+ * Mã hóa nhị phân gọn cho frame game (dành cho client chọn encoding "binary" khi CONNECT).
+ *
+ * Frame sự kiện:   [1][type][seq varint][flags][row][col][side][currentPlayer][winner][players?]
+ * Frame snapshot:  [2][size][seq varint][flags][currentPlayer][winner][players][ô bàn cờ 2 bit/ô]
+ *
+ * Chuỗi được ghi dạng varint (độ dài + 1) rồi UTF-8, 0 nghĩa là null. side / ô: 0 trống, 1 X, 2 O.
+ * flags: bit 0 = gameOver, bit 1 = có nước đi, bit 2 = có danh sách người chơi.
+ *
+ * Frame sự kiện được gửi với content-type application/octet-stream (STOMP over WebSocket chỉ gửi
+ * BinaryMessage cho kiểu này, kiểu khác bị giải mã UTF-8 thành text) và header FRAME_HEADER
+ * cho biết loại frame. gameId không nằm trong frame, client biết qua topic đã subscribe.
+ * Frame snapshot trả về qua GET /api/game/{gameId}?board=binary, để client nhị phân tải lại
+ * trạng thái khi vào phòng hoặc khi thấy hở seq; byte đầu (KIND_*) phân biệt hai loại.
+ */
+public final class GameFrameCodec {
+
+    public static final String CONTENT_TYPE = "application/octet-stream";
+    public static final String FRAME_HEADER = "x-caro-frame";
+    public static final String FRAME_EVENT = "event";
+
+    public static final byte KIND_EVENT = 1;
+    public static final byte KIND_SNAPSHOT = 2;
+
+    private static final int FLAG_GAME_OVER = 1;
+    private static final int FLAG_MOVE = 1 << 1;
+    private static final int FLAG_PLAYERS = 1 << 2;
+
+    private GameFrameCodec() {}
+
+    public static byte[] encode(GameEvent event) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        out.write(KIND_EVENT);
+        out.write(event.getType().ordinal());
+        writeVarLong(out, event.getSeq());
+
+        boolean hasMove = event.getRow() != null && event.getCol() != null;
+        int flags = (Boolean.TRUE.equals(event.getGameOver()) ? FLAG_GAME_OVER : 0)
+                | (hasMove ? FLAG_MOVE : 0)
+                | (event.getPlayers() != null ? FLAG_PLAYERS : 0);
+        out.write(flags);
+
+        if (hasMove) {
+            out.write(event.getRow());
+            out.write(event.getCol());
+            out.write(BitBoard.sideOf(event.getSymbol()) + 1);
+        }
+        writeString(out, event.getCurrentPlayer());
+        writeString(out, event.getWinner());
+        if (event.getPlayers() != null) {
+            writePlayers(out, event.getPlayers());
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] encode(GameState game) {
+        BitBoard board = game.getBitBoard();
+        int size = board.getSize();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + (size * size + 3) / 4);
+        out.write(KIND_SNAPSHOT);
+        out.write(size);
+        writeVarLong(out, game.getSeq());
+        out.write((game.isGameOver() ? FLAG_GAME_OVER : 0) | FLAG_PLAYERS);
+        writeString(out, game.getCurrentPlayer());
+        writeString(out, game.getWinner());
+        writePlayers(out, game.getPlayers());
+
+        // 4 ô mỗi byte, ô đầu tiên ở 2 bit thấp
+        int packed = 0;
+        int filled = 0;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                packed |= (board.get(row, col) + 1) << (filled * 2);
+                if (++filled == 4) {
+                    out.write(packed);
+                    packed = 0;
+                    filled = 0;
+                }
+            }
+        }
+        if (filled > 0) {
+            out.write(packed);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Giải mã frame sự kiện (ngược với encode(GameEvent)); gameId và playerId không có trong frame
+     */
+    public static GameEvent decodeEvent(byte[] frame) {
+        Reader in = new Reader(frame);
+        in.expectKind(KIND_EVENT);
+        GameEvent event = new GameEvent();
+        event.setType(GameEvent.Type.values()[in.readByte()]);
+        event.setSeq(in.readVarLong());
+        int flags = in.readByte();
+        event.setGameOver((flags & FLAG_GAME_OVER) != 0);
+        if ((flags & FLAG_MOVE) != 0) {
+            event.setRow(in.readByte());
+            event.setCol(in.readByte());
+            event.setSymbol(BitBoard.symbolOf(in.readByte() - 1));
+        }
+        event.setCurrentPlayer(in.readString());
+        event.setWinner(in.readString());
+        if ((flags & FLAG_PLAYERS) != 0) {
+            event.setPlayers(in.readPlayers());
+        }
+        return event;
+    }
+
+    /**
+     * Giải mã frame snapshot thành GameState mới (ngược với encode(GameState)); gameId không có trong frame
+     */
+    public static GameState decodeSnapshot(byte[] frame) {
+        Reader in = new Reader(frame);
+        in.expectKind(KIND_SNAPSHOT);
+        int size = in.readByte();
+        GameState game = new GameState(null, BoardType.fromSize(size));
+        if (game.getBoardSize() != size) {
+            throw new IllegalArgumentException("Unsupported board size: " + size);
+        }
+        game.setSeq(in.readVarLong());
+        int flags = in.readByte();
+        game.setGameOver((flags & FLAG_GAME_OVER) != 0);
+        game.setCurrentPlayer(in.readString());
+        game.setWinner(in.readString());
+        game.setPlayers(in.readPlayers());
+
+        BitBoard board = game.getBitBoard();
+        int packed = 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            if (cell % 4 == 0) {
+                packed = in.readByte();
+            }
+            int side = ((packed >> ((cell % 4) * 2)) & 3) - 1;
+            if (side > BitBoard.O) {
+                throw new IllegalArgumentException("Invalid cell value at " + cell);
+            }
+            if (side != BitBoard.EMPTY) {
+                board.place(cell / size, cell % size, side);
+            }
+        }
+        return game;
+    }
+
+    private static void writePlayers(ByteArrayOutputStream out, List<Player> players) {
+        List<Player> list = players != null ? players : List.of();
+        out.write(list.size());
+        for (Player player : list) {
+            writeString(out, player.getId());
+            writeString(out, player.getName());
+            out.write(BitBoard.sideOf(player.getSymbol()) + 1);
+            writeString(out, player.getUserId());
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        void expectKind(byte kind) {
+            int actual = readByte();
+            if (actual != kind) {
+                throw new IllegalArgumentException("Unexpected frame kind: " + actual);
+            }
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated frame");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String readString() {
+            long length = readVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > data.length - position) {
+                throw new IllegalArgumentException("Truncated frame");
+            }
+            String value = new String(data, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+
+        List<Player> readPlayers() {
+            int count = readByte();
+            List<Player> players = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String id = readString();
+                String name = readString();
+                String symbol = BitBoard.symbolOf(readByte() - 1);
+                players.add(new Player(id, name, symbol, readString()));
+            }
+            return players;
+        }
+    }
+}
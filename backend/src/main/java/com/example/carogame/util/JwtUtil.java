@@ -2,7 +2,10 @@ package com.example.carogame.util;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 import javax.crypto.SecretKey;
@@ -11,24 +14,107 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import com.example.carogame.entity.User;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Tạo và xác thực JWT. Khóa HMAC và parser (thread-safe) được tạo một lần khi khởi động.
+ *
+ * Token đã xác thực được cache cùng claims của nó đến khi hết hạn, nên các request tiếp theo với
+ * cùng token không phải tính lại HMAC. Cache là ConcurrentHashMap, đọc không khóa nên các request
+ * không xếp hàng sau nhau; khi vượt jwt.cache.max-entries thì một luồng dọn token hết hạn rồi bỏ
+ * bớt token bất kỳ (token bị bỏ chỉ phải xác thực lại một lần). Mỗi request chỉ nên gọi
+ * parseToken một lần rồi dùng lại Claims.
+ *
+ * Token cấp cho User mang sẵn uid / role / enabled / ver để dựng JwtPrincipal không cần DB.
+ */
 @Component
 public class JwtUtil {
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_ENABLED = "enabled";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private final Map<String, Verified> verifiedTokens = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    /**
+     * Claims của token đã kiểm tra chữ ký và hạn dùng.
+     * Ném JwtException (ExpiredJwtException, SignatureException, ...) nếu token không hợp lệ.
+     */
+    public Claims parseToken(String token) {
+        Verified cached = verifiedTokens.get(token);
+        if (cached != null) {
+            if (cached.expiresAt() > System.currentTimeMillis()) {
+                return cached.claims();
+            }
+            // Hết hạn: bỏ khỏi cache, parser bên dưới sẽ ném ExpiredJwtException
+            verifiedTokens.remove(token, cached);
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (cacheMaxEntries > 0) {
+            Date expiresAt = claims.getExpiration();
+            verifiedTokens.put(token, new Verified(claims, expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE));
+            if (verifiedTokens.size() > cacheMaxEntries) {
+                evict();
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * Cache đầy: bỏ token hết hạn, còn đầy thì bỏ token bất kỳ tới 3/4 giới hạn để lần dọn sau
+     * không đến ngay. Chỉ một luồng dọn, các luồng khác không chờ.
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            verifiedTokens.values().removeIf(verified -> verified.expiresAt() <= now);
+            int target = cacheMaxEntries - cacheMaxEntries / 4;
+            Iterator<String> tokens = verifiedTokens.keySet().iterator();
+            while (verifiedTokens.size() > target && tokens.hasNext()) {
+                tokens.next();
+                tokens.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
     }
 
+    // Hạn dùng đọc sẵn ra millis, không đổi claim exp sang Date ở mỗi lần trúng cache
+    private record Verified(Claims claims, long expiresAt) {}
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -38,24 +124,17 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return claimsResolver.apply(parseToken(token));
     }
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLE, user.getRole() != null ? user.getRole().name() : "USER");
+            claims.put(CLAIM_ENABLED, user.isEnabled());
+            claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -65,12 +144,18 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(parseToken(token), userDetails);
+    }
+
+    /**
+     * Claims lấy từ parseToken (đã kiểm tra chữ ký và hạn dùng) có thuộc về user này không
+     */
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject());
     }
 }
@@ -1,5 +1,5 @@
 -- Create initial database schema
-CREATE TABLE users (
+CREATE TABLE IF NOT EXISTS users (
     id BIGSERIAL PRIMARY KEY,
     username VARCHAR(50) UNIQUE NOT NULL,
     password VARCHAR(255) NOT NULL,
@@ -17,7 +17,7 @@ CREATE TABLE users (
 );
 
 -- Create board types table
-CREATE TABLE board_types (
+CREATE TABLE IF NOT EXISTS board_types (
     id BIGSERIAL PRIMARY KEY,
     name VARCHAR(50) UNIQUE NOT NULL,
     display_name VARCHAR(100) NOT NULL,
@@ -29,7 +29,7 @@ CREATE TABLE board_types (
 );
 
 -- Create board skins table
-CREATE TABLE board_skins (
+CREATE TABLE IF NOT EXISTS board_skins (
     id BIGSERIAL PRIMARY KEY,
     name VARCHAR(50) UNIQUE NOT NULL,
     display_name VARCHAR(100) NOT NULL,
@@ -45,7 +45,7 @@ CREATE TABLE board_skins (
 );
 
 -- Create piece skins table
-CREATE TABLE piece_skins (
+CREATE TABLE IF NOT EXISTS piece_skins (
     id BIGSERIAL PRIMARY KEY,
     name VARCHAR(50) UNIQUE NOT NULL,
     display_name VARCHAR(100) NOT NULL,
@@ -64,7 +64,7 @@ CREATE TABLE piece_skins (
 );
 
 -- Create user skins table
-CREATE TABLE user_skins (
+CREATE TABLE IF NOT EXISTS user_skins (
     id BIGSERIAL PRIMARY KEY,
     user_id BIGINT NOT NULL,
     skin_name VARCHAR(50) NOT NULL,
@@ -75,7 +75,7 @@ CREATE TABLE user_skins (
 );
 
 -- Create chat messages table
-CREATE TABLE chat_messages (
+CREATE TABLE IF NOT EXISTS chat_messages (
     id BIGSERIAL PRIMARY KEY,
     sender_id BIGINT NOT NULL,
     content VARCHAR(1000) NOT NULL,
@@ -87,10 +87,10 @@ CREATE TABLE chat_messages (
 );
 
 -- Create indexes for better performance
-CREATE INDEX idx_users_username ON users(username);
-CREATE INDEX idx_users_email ON users(email);
-CREATE INDEX idx_user_skins_user_id ON user_skins(user_id);
-CREATE INDEX idx_user_skins_skin_type ON user_skins(skin_type);
-CREATE INDEX idx_chat_messages_room_id ON chat_messages(room_id);
-CREATE INDEX idx_chat_messages_created_at ON chat_messages(created_at);
-CREATE INDEX idx_chat_messages_sender_id ON chat_messages(sender_id);
+CREATE INDEX IF NOT EXISTS idx_users_username ON users(username);
+CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
+CREATE INDEX IF NOT EXISTS idx_user_skins_user_id ON user_skins(user_id);
+CREATE INDEX IF NOT EXISTS idx_user_skins_skin_type ON user_skins(skin_type);
+CREATE INDEX IF NOT EXISTS idx_chat_messages_room_id ON chat_messages(room_id);
+CREATE INDEX IF NOT EXISTS idx_chat_messages_created_at ON chat_messages(created_at);
+CREATE INDEX IF NOT EXISTS idx_chat_messages_sender_id ON chat_messages(sender_id);
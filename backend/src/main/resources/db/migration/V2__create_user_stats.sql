@@ -1,5 +1,5 @@
 -- Create user_stats table for ranking system
-CREATE TABLE user_stats (
+CREATE TABLE IF NOT EXISTS user_stats (
     id BIGSERIAL PRIMARY KEY,
     user_id BIGINT NOT NULL UNIQUE,
     total_games INTEGER DEFAULT 0,
@@ -18,7 +18,7 @@ CREATE TABLE user_stats (
 );
 
 -- Create index for better query performance
-CREATE INDEX idx_user_stats_ranking_points ON user_stats(ranking_points DESC);
-CREATE INDEX idx_user_stats_user_id ON user_stats(user_id);
-CREATE INDEX idx_user_stats_wins ON user_stats(wins DESC);
-CREATE INDEX idx_user_stats_games_today ON user_stats(games_today DESC);
+CREATE INDEX IF NOT EXISTS idx_user_stats_ranking_points ON user_stats(ranking_points DESC);
+CREATE INDEX IF NOT EXISTS idx_user_stats_user_id ON user_stats(user_id);
+CREATE INDEX IF NOT EXISTS idx_user_stats_wins ON user_stats(wins DESC);
+CREATE INDEX IF NOT EXISTS idx_user_stats_games_today ON user_stats(games_today DESC);
@@ -0,0 +1,18 @@
+-- Finished games waiting to be applied to users / user_stats (coins, wins/losses, ELO)
+CREATE TABLE IF NOT EXISTS game_results (
+    id BIGSERIAL PRIMARY KEY,
+    result_key VARCHAR(64) UNIQUE NOT NULL,
+    game_id VARCHAR(100) NOT NULL,
+    board_type VARCHAR(20),
+    winner_username VARCHAR(50),
+    loser_username VARCHAR(50),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    finished_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    applied_at TIMESTAMP
+);
+
+-- The consumer only scans results that have not been applied yet
+CREATE INDEX IF NOT EXISTS idx_game_results_pending ON game_results(id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_game_results_game_id ON game_results(game_id);
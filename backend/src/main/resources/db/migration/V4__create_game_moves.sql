@@ -0,0 +1,17 @@
+-- Append-only move log, written in batches by the move log writer
+CREATE TABLE IF NOT EXISTS game_moves (
+    id BIGSERIAL PRIMARY KEY,
+    match_id VARCHAR(64) NOT NULL,
+    game_id VARCHAR(100) NOT NULL,
+    seq BIGINT NOT NULL,
+    move_number INTEGER NOT NULL,
+    row_index INTEGER NOT NULL,
+    col_index INTEGER NOT NULL,
+    symbol VARCHAR(1) NOT NULL,
+    player_id VARCHAR(100),
+    created_at TIMESTAMP NOT NULL,
+    UNIQUE (match_id, seq)
+);
+
+-- Replay reads one match in seq order (served by the unique index); history lists matches by room
+CREATE INDEX IF NOT EXISTS idx_game_moves_game_id ON game_moves(game_id);
@@ -0,0 +1,2 @@
+-- Token version carried in the JWT "ver" claim; bumping it revokes every token issued before
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INTEGER NOT NULL DEFAULT 0;
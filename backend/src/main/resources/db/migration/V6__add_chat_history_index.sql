@@ -0,0 +1,5 @@
+-- Keyset paging of chat history: newest first within a room (room_id IS NULL is the global chat)
+CREATE INDEX IF NOT EXISTS idx_chat_messages_room_created_id ON chat_messages(room_id, created_at, id);
+
+-- Superseded by the composite index above (room_id is its leading column)
+DROP INDEX IF EXISTS idx_chat_messages_room_id;
@@ -0,0 +1,79 @@
+package com.example.carogame.ai;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import com.example.carogame.model.BitBoard;
+
+/**
+ * Đo tốc độ tìm kiếm (nodes/giây) và độ tăng tốc khi tăng số luồng, trên thế cờ 15x15 và 40x40.
+ *
+ * Chạy: mvn test-compile, rồi
+ *       java -cp target/test-classes:target/classes com.example.carogame.ai.SearchBenchmark [thinkMs] [maxThreads]
+ */
+public final class SearchBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    private SearchBenchmark() {}
+
+    public static void main(String[] args) {
+        long thinkMs = args.length > 0 ? Long.parseLong(args[0]) : 2000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        for (int size : new int[] {15, 40}) {
+            BitBoard position = position(size, 12);
+            System.out.printf("Board %dx%d, %d stones, %d ms per search%n", size, size, position.getStoneCount(), thinkMs);
+            double baseline = 0;
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                double nps = run(position, threads, thinkMs);
+                if (threads == 1) {
+                    baseline = nps;
+                }
+                System.out.printf("  threads=%-3d %,12.0f nodes/s  x%.2f%n", threads, nps, nps / baseline);
+            }
+        }
+    }
+
+    private static double run(BitBoard position, int threads, long thinkMs) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            // Một lượt khởi động cho JIT
+            new ParallelSearch(pool, new TranspositionTable(20)).search(position, BitBoard.X, thinkMs / 4, 64, threads);
+
+            long nodes = 0;
+            long millis = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                ParallelSearch search = new ParallelSearch(pool, new TranspositionTable(20));
+                long start = System.nanoTime();
+                SearchResult result = search.search(position, BitBoard.X, thinkMs, 64, threads);
+                millis += (System.nanoTime() - start) / 1_000_000L;
+                nodes += result.nodes();
+            }
+            return nodes * 1000.0 / Math.max(1, millis);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Thế cờ giữa ván cố định: các quân xen kẽ quanh tâm bàn
+    private static BitBoard position(int size, int stones) {
+        BitBoard board = new BitBoard(size);
+        SplittableRandom random = new SplittableRandom(size);
+        int center = size / 2;
+        int side = BitBoard.X;
+        while (board.getStoneCount() < stones) {
+            int row = center + random.nextInt(-3, 4);
+            int col = center + random.nextInt(-3, 4);
+            if (board.isEmpty(row, col)) {
+                board.place(row, col, side);
+                if (board.getThreats().hasFive(side)) {
+                    board.undo();
+                    continue;
+                }
+                side = 1 - side;
+            }
+        }
+        return board;
+    }
+}
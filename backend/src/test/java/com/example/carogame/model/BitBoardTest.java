@@ -0,0 +1,117 @@
+package com.example.carogame.model;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class BitBoardTest {
+
+    // Hướng đi: ngang, dọc, chéo xuống phải, chéo xuống trái
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 15, 40, BitBoard.MAX_SIZE})
+    void fiveAlongEveryEdgeIsAWin(int size) {
+        int last = size - 1;
+        int tail = size - BitBoard.WIN_LENGTH;
+        // Hàng trên / dưới, cột trái / phải, từ đầu và tới cuối cạnh
+        assertFive(size, 0, 0, 0, 1);
+        assertFive(size, 0, tail, 0, 1);
+        assertFive(size, last, 0, 0, 1);
+        assertFive(size, last, tail, 0, 1);
+        assertFive(size, 0, 0, 1, 0);
+        assertFive(size, tail, 0, 1, 0);
+        assertFive(size, 0, last, 1, 0);
+        assertFive(size, tail, last, 1, 0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 15, 40, BitBoard.MAX_SIZE})
+    void fiveOnDiagonalsTouchingTheCornersIsAWin(int size) {
+        int last = size - 1;
+        int tail = size - BitBoard.WIN_LENGTH;
+        // Đường chéo chính và phụ, ở hai đầu
+        assertFive(size, 0, 0, 1, 1);
+        assertFive(size, tail, tail, 1, 1);
+        assertFive(size, 0, last, 1, -1);
+        assertFive(size, tail, BitBoard.WIN_LENGTH - 1, 1, -1);
+        // Đường chéo ngắn nhất đủ 5 ô ở mỗi góc
+        assertFive(size, tail, 0, 1, 1);
+        assertFive(size, 0, tail, 1, 1);
+        assertFive(size, 0, BitBoard.WIN_LENGTH - 1, 1, -1);
+        assertFive(size, tail, last, 1, -1);
+    }
+
+    @Test
+    void fourOnAnEdgeIsNotAWin() {
+        for (int[] direction : DIRECTIONS) {
+            BitBoard board = new BitBoard(15);
+            int startCol = direction[1] < 0 ? 14 : 0;
+            for (int i = 0; i < BitBoard.WIN_LENGTH - 1; i++) {
+                board.place(i * direction[0], startCol + i * direction[1], BitBoard.X);
+            }
+            assertNoFive(board, BitBoard.X);
+        }
+    }
+
+    @Test
+    void runDoesNotWrapAroundTheBoardEdge() {
+        // Ba quân cuối hàng 0 và hai quân đầu hàng 1 liền nhau trong chỉ số ô nhưng không thẳng hàng
+        BitBoard board = new BitBoard(15);
+        board.place(0, 12, BitBoard.X);
+        board.place(0, 13, BitBoard.X);
+        board.place(0, 14, BitBoard.X);
+        board.place(1, 0, BitBoard.X);
+        board.place(1, 1, BitBoard.X);
+        assertNoFive(board, BitBoard.X);
+    }
+
+    @Test
+    void opponentStoneBreaksTheRun() {
+        BitBoard board = new BitBoard(15);
+        for (int i = 0; i < 6; i++) {
+            board.place(i, i, i == 2 ? BitBoard.O : BitBoard.X);
+        }
+        assertNoFive(board, BitBoard.X);
+        assertNoFive(board, BitBoard.O);
+    }
+
+    @Test
+    void undoRemovesTheWin() {
+        BitBoard board = new BitBoard(15);
+        for (int i = 0; i < BitBoard.WIN_LENGTH; i++) {
+            board.place(14 - i, i, BitBoard.O);
+        }
+        assertTrue(board.getThreats().hasFive(BitBoard.O));
+
+        board.undo();
+        assertNoFive(board, BitBoard.O);
+    }
+
+    private static void assertFive(int size, int row, int col, int dRow, int dCol) {
+        BitBoard board = new BitBoard(size);
+        for (int i = 0; i < BitBoard.WIN_LENGTH; i++) {
+            board.place(row + i * dRow, col + i * dCol, BitBoard.O);
+        }
+        String where = size + "x" + size + " from (" + row + "," + col + ") step (" + dRow + "," + dCol + ")";
+        assertTrue(board.getThreats().hasFive(BitBoard.O), "tracker missed five " + where);
+        assertFalse(board.getThreats().hasFive(BitBoard.X), "wrong side has five " + where);
+        for (int i = 0; i < BitBoard.WIN_LENGTH; i++) {
+            assertTrue(board.hasFive(row + i * dRow, col + i * dCol, BitBoard.O), "cell " + i + " not in five " + where);
+        }
+    }
+
+    private static void assertNoFive(BitBoard board, int side) {
+        assertFalse(board.getThreats().hasFive(side));
+        for (int row = 0; row < board.getSize(); row++) {
+            for (int col = 0; col < board.getSize(); col++) {
+                if (board.get(row, col) == side) {
+                    assertFalse(board.hasFive(row, col, side), "(" + row + "," + col + ") reported as five");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.carogame.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.example.carogame.entity.ChatMessage;
+import com.example.carogame.entity.User;
+
+/**
+ * Tải chat giả lập ở tốc độ cố định (mặc định 10.000 tin/giây), đo độ trễ của phần việc chạy
+ * trước khi tin được gửi đi (cấp id + vòng đệm + xếp hàng lưu, như ChatService.post) rồi chờ
+ * mọi tin được lưu xong. Cần DB đã có ít nhất một user; tin của benchmark được xóa khi kết thúc.
+ *
+ * Nằm trong src/test nên không có trong bản đóng gói; chỉ chạy với DB thử nghiệm.
+ *
+ * Chạy: mvn test-compile, rồi
+ *       java -cp target/test-classes:target/classes:<classpath> com.example.carogame.service.ChatBenchmark
+ *       jdbcUrl user password [messagesPerSecond] [seconds] [rooms]
+ */
+public final class ChatBenchmark {
+
+    private static final int PRODUCERS = 4;
+
+    private ChatBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: ChatBenchmark jdbcUrl user password [messagesPerSecond] [seconds] [rooms]");
+            return;
+        }
+        int rate = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        int rooms = args.length > 5 ? Integer.parseInt(args[5]) : 100;
+
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(args[0], args[1], args[2], true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id LIMIT 1", Long.class);
+        if (userIds.isEmpty()) {
+            System.out.println("No users in the database");
+            return;
+        }
+        User sender = new User();
+        sender.setId(userIds.get(0));
+        String prefix = "bench-" + System.currentTimeMillis() + "-";
+
+        ChatRoomBuffers buffers = new ChatRoomBuffers(100, rooms);
+        ChatMessageWriter writer = new ChatMessageWriter(jdbcTemplate, 500, rate * seconds, 1000, 1000, 5);
+        writer.start();
+        // Khối id đầu tiên được luồng ghi nạp sau khi start
+        while ((int) writer.getStats().get("freeIds") == 0) {
+            Thread.sleep(1);
+        }
+
+        int perProducer = rate * seconds / PRODUCERS;
+        long intervalNanos = 1_000_000_000L * PRODUCERS / rate;
+        long[][] latencies = new long[PRODUCERS][perProducer];
+        long start = System.nanoTime();
+        List<Thread> producers = new ArrayList<>();
+        // Tin gửi lúc chưa có id nạp sẵn (không được lưu)
+        AtomicLong unsaved = new AtomicLong();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                long next = start + producer * intervalNanos / PRODUCERS;
+                for (int i = 0; i < perProducer; i++) {
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    next += intervalNanos;
+
+                    long begin = System.nanoTime();
+                    ChatMessage message = new ChatMessage(sender, prefix + i, ChatMessage.MessageType.CHAT,
+                            prefix + (i % rooms));
+                    message.setId(writer.allocateId());
+                    if (message.getId() != null) {
+                        buffers.add(message);
+                        writer.append(message);
+                    } else {
+                        unsaved.incrementAndGet();
+                    }
+                    latencies[producer][i] = System.nanoTime() - begin;
+                }
+            });
+            thread.start();
+            producers.add(thread);
+        }
+        for (Thread thread : producers) {
+            thread.join();
+        }
+        long producedNanos = System.nanoTime() - start;
+
+        long total = (long) perProducer * PRODUCERS;
+        while (writer.getWritten() < total - unsaved.get()) {
+            Thread.sleep(10);
+        }
+        long persistedNanos = System.nanoTime() - start;
+        writer.stop();
+
+        long[] all = new long[(int) total];
+        for (int p = 0; p < PRODUCERS; p++) {
+            System.arraycopy(latencies[p], 0, all, p * perProducer, perProducer);
+        }
+        Arrays.sort(all);
+        System.out.printf("%,d messages at %,d msg/s target, %d rooms%n", total, rate, rooms);
+        System.out.printf("  produced: %,.0f msg/s%n", total * 1e9 / producedNanos);
+        System.out.printf("  pre-broadcast latency: p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f ms%n",
+                all[all.length / 2] / 1e3, all[(int) (all.length * 0.99)] / 1e3,
+                all[(int) (all.length * 0.999)] / 1e3, all[all.length - 1] / 1e6);
+        System.out.printf("  persisted: all rows written after %d ms%n", persistedNanos / 1_000_000);
+        System.out.println("  sent without an id (not persisted): " + unsaved.get());
+        System.out.println("  " + writer.getStats());
+
+        int deleted = jdbcTemplate.update("DELETE FROM chat_messages WHERE content LIKE ?", prefix + "%");
+        System.out.println("  cleaned up " + deleted + " rows");
+        dataSource.destroy();
+    }
+}
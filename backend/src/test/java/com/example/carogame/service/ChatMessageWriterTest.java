@@ -0,0 +1,83 @@
+package com.example.carogame.service;
+
+import static com.example.carogame.service.WriteBehindWriterTest.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.carogame.entity.ChatMessage;
+import com.example.carogame.entity.User;
+
+class ChatMessageWriterTest {
+
+    private static final int ID_BLOCK = 10;
+
+    private final FakeJdbcTemplate jdbcTemplate = new FakeJdbcTemplate();
+    private ChatMessageWriter writer;
+
+    @AfterEach
+    void stopWriter() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void idsAreRefilledOnWriterThreadBeforeTheyRunOut() {
+        writer = start();
+        await(() -> freeIds() == ID_BLOCK);
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 5 * ID_BLOCK; i++) {
+            ChatMessage message = message();
+            message.setId(writer.allocateId());
+            assertNotNull(message.getId(), "caller ran out of ids at message " + i);
+            ids.add(message.getId());
+            writer.append(message);
+            // Mỗi tin đánh thức luồng ghi, khối mới được nạp khi còn dưới nửa khối
+            int written = i + 1;
+            await(() -> writer.getWritten() == written);
+        }
+
+        assertEquals(5 * ID_BLOCK, ids.size());
+        assertEquals(0L, writer.getStats().get("idMisses"));
+        assertEquals(Set.of("chat-writer"), jdbcTemplate.queryThreads);
+    }
+
+    @Test
+    void allocateIdDoesNotWaitForDatabaseWhenNoIdsAreLeft() {
+        jdbcTemplate.down = true;
+        writer = start();
+        await(() -> jdbcTemplate.queryCalls.get() > 0);
+
+        assertNull(writer.allocateId());
+        assertEquals(1L, writer.getStats().get("idMisses"));
+
+        jdbcTemplate.down = false;
+        await(() -> freeIds() == ID_BLOCK);
+        assertNotNull(writer.allocateId());
+        assertEquals(Set.of("chat-writer"), jdbcTemplate.queryThreads);
+    }
+
+    private int freeIds() {
+        return (int) writer.getStats().get("freeIds");
+    }
+
+    private ChatMessageWriter start() {
+        ChatMessageWriter chatMessageWriter = new ChatMessageWriter(jdbcTemplate, 100, 1000, ID_BLOCK, 1, 3);
+        chatMessageWriter.start();
+        return chatMessageWriter;
+    }
+
+    private static ChatMessage message() {
+        User sender = new User();
+        sender.setId(1L);
+        return new ChatMessage(sender, "xin chào", ChatMessage.MessageType.CHAT, "room-1");
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.carogame.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.carogame.dto.ClusterMessage;
+
+class ClusterServiceTest {
+
+    private final ClusterService clusterService = new ClusterService();
+    private final List<String> handled = new ArrayList<>();
+
+    @Test
+    void resentBatchIsNotRunTwice() {
+        // Lô 1..3 hết thời gian chờ ở node gửi sau khi đã chạy ở đây, rồi được gửi lại kèm 4
+        receive(batch("node-2", 100, 1, 3));
+        receive(batch("node-2", 100, 1, 4));
+
+        assertEquals(List.of("node-2#1", "node-2#2", "node-2#3", "node-2#4"), handled);
+    }
+
+    @Test
+    void sendersAreTrackedSeparately() {
+        receive(batch("node-2", 100, 1, 2));
+        receive(batch("node-3", 100, 1, 2));
+
+        assertEquals(List.of("node-2#1", "node-2#2", "node-3#1", "node-3#2"), handled);
+    }
+
+    @Test
+    void restartedSenderStartsCountingAgainButStaleBatchIsIgnored() {
+        receive(batch("node-2", 100, 1, 5));
+        receive(batch("node-2", 200, 1, 2));
+        // Lô của lần chạy trước tới muộn
+        receive(batch("node-2", 100, 6, 6));
+
+        assertEquals(List.of("node-2#1", "node-2#2", "node-2#3", "node-2#4", "node-2#5", "node-2#1", "node-2#2"),
+                handled);
+    }
+
+    @Test
+    void unsequencedMessagesAreAlwaysHandled() {
+        ClusterMessage message = ClusterMessage.command("room", "join", null);
+        receive(List.of(message));
+        receive(List.of(message));
+
+        assertEquals(List.of("room", "room"), handled);
+    }
+
+    private void receive(List<ClusterMessage> messages) {
+        clusterService.receive(messages, message -> handled.add(message.getSender() != null
+                ? message.getSender() + "#" + message.getSeq()
+                : message.getGameId()));
+    }
+
+    private static List<ClusterMessage> batch(String sender, long epoch, long fromSeq, long toSeq) {
+        List<ClusterMessage> messages = new ArrayList<>();
+        for (long seq = fromSeq; seq <= toSeq; seq++) {
+            messages.add(ClusterMessage.command("room", "move", null).sequenced(sender, epoch, seq));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.carogame.service;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+/**
+ * JdbcTemplate giả cho các writer ghi nền: ghi lại tham số đã bind của từng dòng thay vì chạm DB.
+ * down = true giả lập DB không kết nối được (lỗi tạm thời); dòng khớp rejects bị từ chối như
+ * vi phạm ràng buộc, và làm hỏng cả lô chứa nó. queryForList trả về các giá trị kế tiếp của một
+ * sequence (khối id của chat).
+ */
+class FakeJdbcTemplate extends JdbcTemplate {
+
+    final List<List<Object>> rows = Collections.synchronizedList(new ArrayList<>());
+    final AtomicInteger batchCalls = new AtomicInteger();
+    final AtomicInteger rowCalls = new AtomicInteger();
+    final AtomicInteger queryCalls = new AtomicInteger();
+    final Set<String> queryThreads = ConcurrentHashMap.newKeySet();
+    // Giá trị tiếp theo của sequence cho queryForList(... generate_series(1, n))
+    final AtomicLong sequence = new AtomicLong();
+    volatile boolean down;
+    volatile Predicate<List<Object>> rejects = row -> false;
+
+    @Override
+    public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                   ParameterizedPreparedStatementSetter<T> pss) {
+        batchCalls.incrementAndGet();
+        List<List<Object>> bound = new ArrayList<>();
+        for (T arg : batchArgs) {
+            bound.add(bind(ps -> pss.setValues(ps, arg)));
+        }
+        check(bound);
+        rows.addAll(bound);
+        int[] counts = new int[bound.size()];
+        Arrays.fill(counts, 1);
+        return new int[][] {counts};
+    }
+
+    @Override
+    public int update(String sql, PreparedStatementSetter pss) {
+        rowCalls.incrementAndGet();
+        List<Object> row = bind(pss);
+        check(List.of(row));
+        rows.add(row);
+        return 1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+        queryCalls.incrementAndGet();
+        queryThreads.add(Thread.currentThread().getName());
+        if (down) {
+            throw new TransientDataAccessResourceException("database unavailable");
+        }
+        List<T> values = new ArrayList<>();
+        for (int i = 0; i < ((Number) args[0]).intValue(); i++) {
+            values.add((T) Long.valueOf(sequence.incrementAndGet()));
+        }
+        return values;
+    }
+
+    private void check(List<List<Object>> bound) {
+        if (down) {
+            throw new TransientDataAccessResourceException("database unavailable");
+        }
+        for (List<Object> row : bound) {
+            if (rejects.test(row)) {
+                throw new DataIntegrityViolationException("value too long for type character varying");
+            }
+        }
+    }
+
+    // Tham số theo vị trí (1-based trong JDBC, 0-based ở đây)
+    private static List<Object> bind(PreparedStatementSetter setter) {
+        List<Object> values = new ArrayList<>();
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(FakeJdbcTemplate.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer index) {
+                        while (values.size() < index) {
+                            values.add(null);
+                        }
+                        values.set(index - 1, method.getName().equals("setNull") ? null : args[1]);
+                    }
+                    return null;
+                });
+        try {
+            setter.setValues(ps);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return values;
+    }
+}
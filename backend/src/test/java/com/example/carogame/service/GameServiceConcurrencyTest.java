@@ -0,0 +1,268 @@
+package com.example.carogame.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.carogame.model.BitBoard;
+import com.example.carogame.model.BoardType;
+import com.example.carogame.model.GameState;
+import com.example.carogame.model.Move;
+import com.example.carogame.model.Player;
+
+/**
+ * Nhiều thread cùng đánh vào một phòng qua mailbox, như nhiều lệnh STOMP tới cùng lúc; và gọi
+ * thẳng GameService (lock theo phòng) trên hàng trăm phòng cùng lúc.
+ */
+class GameServiceConcurrencyTest {
+
+    private static final String GAME_ID = "stress-room";
+    private static final int THREADS = 8;
+    private static final int ROOMS = 300;
+
+    private final GameService gameService = new GameService();
+    private final GameCommandDispatcher commandDispatcher = new GameCommandDispatcher();
+    // Mỗi nước được chấp nhận, ghi lại trong lock của phòng: gameId -> (seq, ô)
+    private final Map<String, List<long[]>> recorded = new ConcurrentHashMap<>();
+    private ExecutorService clients;
+
+    @BeforeEach
+    void setUp() {
+        GameHistoryService history = mock(GameHistoryService.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            GameState game = invocation.getArgument(0);
+            Move move = invocation.getArgument(1);
+            int size = game.getBitBoard().getSize();
+            recorded.computeIfAbsent(game.getGameId(), id -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(new long[] {game.getSeq(), move.getRow() * size + move.getCol()});
+            return null;
+        }).when(history).recordMove(any(), any());
+        // stubOnly: hàng trăm nghìn lời gọi, không cần Mockito ghi lại để verify
+        ReflectionTestUtils.setField(gameService, "gameResultPipeline", mock(GameResultPipeline.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(gameService, "gameHistoryService", history);
+        ReflectionTestUtils.setField(gameService, "lobbyIndex", mock(LobbyIndex.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(commandDispatcher, "threads", 4);
+        commandDispatcher.init();
+        clients = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clients.shutdownNow();
+        commandDispatcher.shutdown();
+    }
+
+    @Test
+    void racingMovesOnOneRoomAreAppliedOnceEach() throws Exception {
+        GameState game = gameService.createGame(GAME_ID, BoardType.STANDARD);
+        int size = BoardType.STANDARD.getSize();
+        long initialSeq = game.getSeq();
+
+        // Mọi thread thử đánh mọi ô theo thứ tự riêng, nên mỗi ô bị tranh bởi THREADS lệnh
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<List<CompletableFuture<Integer>>>> submitters = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String playerId = "player-" + t;
+            Random random = new Random(t);
+            submitters.add(CompletableFuture.supplyAsync(() -> {
+                List<Integer> cells = new ArrayList<>();
+                for (int cell = 0; cell < size * size; cell++) {
+                    cells.add(cell);
+                }
+                Collections.shuffle(cells, random);
+                await(start);
+                List<CompletableFuture<Integer>> results = new ArrayList<>();
+                for (int cell : cells) {
+                    Move move = new Move(cell / size, cell % size, playerId, symbolOf(cell / size, cell % size));
+                    results.add(commandDispatcher.submit(GAME_ID, () -> {
+                        long seq = gameService.getGame(GAME_ID).getSeq();
+                        GameState updated = gameService.makeMove(GAME_ID, move);
+                        return updated.getSeq() != seq ? cell : null;
+                    }));
+                }
+                return results;
+            }, clients));
+        }
+        start.countDown();
+
+        List<Integer> accepted = new ArrayList<>();
+        for (CompletableFuture<List<CompletableFuture<Integer>>> submitter : submitters) {
+            for (CompletableFuture<Integer> result : submitter.get(30, TimeUnit.SECONDS)) {
+                Integer cell = result.get(30, TimeUnit.SECONDS);
+                if (cell != null) {
+                    accepted.add(cell);
+                }
+            }
+        }
+
+        Set<Integer> distinct = new HashSet<>(accepted);
+        assertEquals(accepted.size(), distinct.size(), "a cell was accepted twice");
+        assertEquals(size * size, accepted.size());
+        assertEquals(initialSeq + accepted.size(), game.getSeq());
+
+        BitBoard board = game.getBitBoard();
+        assertEquals(accepted.size(), board.getStoneCount());
+        assertTrue(board.isFull());
+        assertFalse(game.isGameOver());
+    }
+
+    @Test
+    void hundredsOfRoomsPlayedInParallelLoseNoMovesOrRooms() throws Exception {
+        int size = BoardType.STANDARD.getSize();
+        List<String> roomIds = new ArrayList<>();
+        for (int r = 0; r < ROOMS; r++) {
+            roomIds.add("room-" + r);
+        }
+
+        // Mọi thread cùng vào mọi phòng (vào phòng chưa có thì tạo), rồi cùng đánh mọi ô của mọi phòng
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch joined = new CountDownLatch(THREADS);
+        List<CompletableFuture<Void>> players = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String playerId = "player-" + t;
+            Random random = new Random(t);
+            players.add(CompletableFuture.runAsync(() -> {
+                List<String> rooms = new ArrayList<>(roomIds);
+                Collections.shuffle(rooms, random);
+                await(start);
+                for (String roomId : rooms) {
+                    gameService.joinGame(roomId, new Player(playerId, playerId, null));
+                }
+                joined.countDown();
+                await(joined);
+
+                List<Integer> cells = new ArrayList<>();
+                for (int key = 0; key < ROOMS * size * size; key++) {
+                    cells.add(key);
+                }
+                Collections.shuffle(cells, random);
+                for (int key : cells) {
+                    int cell = key % (size * size);
+                    String roomId = roomIds.get(key / (size * size));
+                    gameService.makeMove(roomId, new Move(cell / size, cell % size, playerId,
+                            symbolOf(cell / size, cell % size)));
+                }
+            }, clients));
+        }
+        start.countDown();
+        for (CompletableFuture<Void> player : players) {
+            player.get(60, TimeUnit.SECONDS);
+        }
+
+        assertEquals(ROOMS, gameService.getAllGames().size());
+        for (String roomId : roomIds) {
+            GameState game = gameService.getGame(roomId);
+            assertEquals(2, game.getPlayers().size(), roomId);
+            assertTrue(game.getBitBoard().isFull(), roomId);
+
+            // Mỗi ô được chấp nhận đúng một lần, seq của các nước liên tiếp không hở không trùng
+            List<long[]> moves = recorded.get(roomId);
+            assertEquals(size * size, moves.size(), roomId);
+            Set<Long> cells = new HashSet<>();
+            long firstSeq = moves.stream().mapToLong(move -> move[0]).min().orElseThrow();
+            Set<Long> seqs = new HashSet<>();
+            for (long[] move : moves) {
+                cells.add(move[1]);
+                seqs.add(move[0]);
+            }
+            assertEquals(size * size, cells.size(), roomId);
+            assertEquals(size * size, seqs.size(), roomId);
+            assertEquals(firstSeq + size * size - 1, game.getSeq(), roomId);
+        }
+    }
+
+    @Test
+    void createJoinLeaveAndRemoveRacingRoomListingLoseNoHeldRooms() throws Exception {
+        // Phòng giữ chỗ: người giữ phòng không bao giờ rời nên phòng không được mất
+        List<String> held = new ArrayList<>();
+        for (int r = 0; r < ROOMS / 2; r++) {
+            String roomId = "held-" + r;
+            held.add(roomId);
+            gameService.joinGame(roomId, new Player("owner-" + r, "owner", null));
+        }
+
+        AtomicBoolean churning = new AtomicBoolean(true);
+        AtomicLong listed = new AtomicLong();
+        CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+            while (churning.get()) {
+                for (GameState game : gameService.getAllGames()) {
+                    assertTrue(game.getPlayers().size() <= 2);
+                    listed.incrementAndGet();
+                }
+            }
+        }, clients);
+
+        List<CompletableFuture<Void>> churners = new ArrayList<>();
+        for (int t = 0; t < THREADS - 1; t++) {
+            String playerId = "guest-" + t;
+            Random random = new Random(t);
+            churners.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    boolean temporary = random.nextBoolean();
+                    String roomId = temporary ? "temp-" + random.nextInt(ROOMS) : held.get(random.nextInt(held.size()));
+                    gameService.joinGame(roomId, new Player(playerId, playerId, null));
+                    if (temporary && random.nextInt(4) == 0) {
+                        gameService.removeGame(roomId);
+                    } else {
+                        gameService.leaveGame(roomId, playerId);
+                    }
+                }
+            }, clients));
+        }
+        for (CompletableFuture<Void> churner : churners) {
+            churner.get(60, TimeUnit.SECONDS);
+        }
+        churning.set(false);
+        reader.get(10, TimeUnit.SECONDS);
+
+        assertTrue(listed.get() > 0);
+        for (int r = 0; r < held.size(); r++) {
+            GameState game = gameService.getGame(held.get(r));
+            assertNotNull(game, held.get(r));
+            assertEquals(List.of("owner-" + r), game.getPlayers().stream().map(Player::getId).toList());
+        }
+        // Khách đã rời mọi phòng tạm: phòng tạm nào còn lại đều trống và được dọn hết
+        gameService.cleanupEmptyGames();
+        assertEquals(held.size(), gameService.getAllGames().size());
+    }
+
+    // Mẫu X/O không có 5 quân cùng màu thẳng hàng theo hướng nào, để ván không kết thúc giữa chừng
+    private static String symbolOf(int row, int col) {
+        return (col / 2 + row) % 2 == 0 ? "X" : "O";
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.carogame.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.example.carogame.model.MoveLogEntry;
+
+/**
+ * Đo số nước đi/giây MoveLogWriter ghi được liên tục vào game_moves (cần DB đã chạy migration).
+ * Nhiều luồng giả lập phòng chơi cùng append, đo từ nước đầu tiên đến khi mọi nước đã ghi xong.
+ * Các dòng của benchmark (match_id bắt đầu bằng "bench-") được xóa khi kết thúc.
+ *
+ * Nằm trong src/test nên không có trong bản đóng gói; chỉ chạy với DB thử nghiệm.
+ *
+ * Chạy: mvn test-compile, rồi
+ *       java -cp target/test-classes:target/classes:<classpath> com.example.carogame.service.MoveLogBenchmark
+ *       jdbcUrl user password [moves] [rooms] [batchSize]
+ */
+public final class MoveLogBenchmark {
+
+    private MoveLogBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: MoveLogBenchmark jdbcUrl user password [moves] [rooms] [batchSize]");
+            return;
+        }
+        int moves = args.length > 3 ? Integer.parseInt(args[3]) : 200_000;
+        int rooms = args.length > 4 ? Integer.parseInt(args[4]) : 8;
+        int batchSize = args.length > 5 ? Integer.parseInt(args[5]) : 500;
+
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(args[0], args[1], args[2], true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String prefix = "bench-" + System.currentTimeMillis() + "-";
+
+        // Hàng đợi đủ lớn để không bỏ nước nào: đo tốc độ ghi, không đo backpressure
+        MoveLogWriter writer = new MoveLogWriter(jdbcTemplate, batchSize, moves, 1000, 5);
+        writer.start();
+
+        long start = System.nanoTime();
+        List<Thread> producers = new ArrayList<>();
+        int perRoom = moves / rooms;
+        for (int room = 0; room < rooms; room++) {
+            String matchId = prefix + room;
+            Thread producer = new Thread(() -> {
+                for (int i = 1; i <= perRoom; i++) {
+                    writer.append(new MoveLogEntry(matchId, matchId, i, i, i % 15, (i / 15) % 15,
+                            (i & 1) == 1 ? "X" : "O", "bench", LocalDateTime.now()));
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        long appendedNanos = System.nanoTime() - start;
+
+        long total = (long) perRoom * rooms;
+        while (writer.getWritten() < total) {
+            Thread.sleep(10);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        writer.stop();
+
+        System.out.printf("%,d moves from %d rooms, batch %d%n", total, rooms, batchSize);
+        System.out.printf("  append: %,.0f moves/s (%.1f us per move on the caller)%n",
+                total * 1e9 / appendedNanos, appendedNanos / 1e3 / total);
+        System.out.printf("  persisted: %,.0f moves/s sustained, %d ms total%n",
+                total * 1e9 / elapsedNanos, elapsedNanos / 1_000_000);
+        System.out.println("  " + writer.getStats());
+
+        int deleted = jdbcTemplate.update("DELETE FROM game_moves WHERE match_id LIKE ?", prefix + "%");
+        System.out.println("  cleaned up " + deleted + " rows");
+        dataSource.destroy();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.carogame.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class WriteBehindWriterTest {
+
+    private static final String INSERT_SQL = "INSERT INTO t (key, value) VALUES (?, ?)";
+    private static final int MAX_KEY_LENGTH = 10;
+
+    private final FakeJdbcTemplate jdbcTemplate = new FakeJdbcTemplate();
+    private final List<Row> lost = new CopyOnWriteArrayList<>();
+    private final List<String> beforePoll = new CopyOnWriteArrayList<>();
+    private WriteBehindWriter<Row> writer;
+
+    @AfterEach
+    void stopWriter() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void rowRejectedByDatabaseIsSkippedWithoutBlockingLaterRows() {
+        writer = start(3);
+        jdbcTemplate.rejects = row -> "bad".equals(row.get(0));
+
+        writer.append(new Row("a", 1));
+        writer.append(new Row("bad", 2));
+        writer.append(new Row("b", 3));
+        await(() -> writer.getWritten() == 2);
+
+        writer.append(new Row("c", 4));
+        await(() -> writer.getWritten() == 3);
+        assertEquals(1L, writer.getStats().get("rejected"));
+        assertEquals(0L, writer.getStats().get("failed"));
+        assertEquals(List.of(new Row("bad", 2)), lost);
+    }
+
+    @Test
+    void rowsFailingValidationAreRejectedBeforeQueueing() {
+        writer = start(3);
+
+        assertFalse(writer.append(new Row("k".repeat(MAX_KEY_LENGTH + 1), 1)));
+        assertFalse(writer.append(new Row(null, 2)));
+        assertTrue(writer.append(new Row("k".repeat(MAX_KEY_LENGTH), 3)));
+
+        await(() -> writer.getWritten() == 1);
+        assertEquals(2L, writer.getStats().get("rejected"));
+        assertEquals(1L, writer.getStats().get("appended"));
+        assertTrue(lost.isEmpty());
+    }
+
+    @Test
+    void transientFailureGivesUpAfterMaxRetries() {
+        writer = start(3);
+        jdbcTemplate.down = true;
+
+        writer.append(new Row("a", 1));
+        writer.append(new Row("b", 2));
+        // failed được đếm trước khi lost() được gọi cho từng dòng
+        await(() -> (long) writer.getStats().get("failed") == 2 && lost.size() == 2);
+        assertEquals(0L, writer.getStats().get("rejected"));
+
+        jdbcTemplate.down = false;
+        writer.append(new Row("c", 3));
+        await(() -> writer.getWritten() == 1);
+    }
+
+    @Test
+    void transientFailureIsRetriedUntilDatabaseRecovers() throws InterruptedException {
+        writer = start(1000);
+        jdbcTemplate.down = true;
+
+        writer.append(new Row("a", 1));
+        writer.append(new Row("b", 2));
+        Thread.sleep(20);
+        jdbcTemplate.down = false;
+
+        await(() -> writer.getWritten() == 2);
+        assertEquals(0L, writer.getStats().get("failed"));
+        assertTrue(lost.isEmpty());
+    }
+
+    @Test
+    void beforePollRunsOnWriterThreadAndItsFailureDoesNotStopWrites() {
+        writer = start(3);
+        await(() -> beforePoll.size() >= 2);
+        assertEquals("test-writer", beforePoll.get(0));
+
+        writer.append(new Row("a", 1));
+        await(() -> writer.getWritten() == 1);
+    }
+
+    @Test
+    void stopWritesWhatIsStillQueued() {
+        writer = start(3);
+        for (int i = 0; i < 250; i++) {
+            writer.append(new Row("k" + i, i));
+        }
+        writer.stop();
+
+        assertEquals(250, jdbcTemplate.rows.size());
+        assertEquals(250L, writer.getWritten());
+    }
+
+    private WriteBehindWriter<Row> start(int maxRetries) {
+        WriteBehindWriter<Row> rowWriter = new WriteBehindWriter<>("test-writer", jdbcTemplate, INSERT_SQL,
+                (ps, row) -> {
+                    ps.setString(1, row.key());
+                    ps.setInt(2, row.value());
+                }, 100, 1000, 5, 1, maxRetries) {
+            @Override
+            protected boolean accepts(Row row) {
+                return row.key() != null && row.key().length() <= MAX_KEY_LENGTH;
+            }
+
+            @Override
+            protected void lost(Row row) {
+                lost.add(row);
+            }
+
+            @Override
+            protected void beforePoll() {
+                beforePoll.add(Thread.currentThread().getName());
+                if (beforePoll.size() == 1) {
+                    // Lỗi ở đây chỉ được ghi log
+                    throw new IllegalStateException("refill failed");
+                }
+            }
+        };
+        rowWriter.start();
+        return rowWriter;
+    }
+
+    static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5 s");
+            }
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private record Row(String key, int value) {}
+}
@@ -0,0 +1,87 @@
+package com.example.carogame.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 30_000;
+    private static final List<String> NODES = List.of("node-1", "node-2", "node-3");
+
+    @Test
+    void sameKeyMapsToSameNodeWhateverTheNodeOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("node-3", "node-1", "node-2"), 128);
+        for (int i = 0; i < KEYS; i++) {
+            String key = "game-" + i;
+            String node = ring.nodeFor(key);
+            assertTrue(NODES.contains(node), node);
+            assertEquals(node, ring.nodeFor(key));
+            assertEquals(node, reordered.nodeFor(key));
+        }
+    }
+
+    @Test
+    void singleNodeOwnsEverything() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("only"), 1);
+        assertEquals(Map.of("only", 1.0), ring.shares());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("only", ring.nodeFor("game-" + i));
+        }
+    }
+
+    @Test
+    void keysAndRingAreSpreadEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 128);
+        Map<String, Double> shares = ring.shares();
+        assertEquals(1.0, shares.values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9);
+
+        Map<String, Integer> counts = countKeys(ring);
+        for (String node : NODES) {
+            // 1/3 mỗi node, cho phép lệch vì chỉ có 128 điểm ảo
+            assertTrue(shares.get(node) > 0.2 && shares.get(node) < 0.47, node + " share " + shares.get(node));
+            double keyShare = counts.get(node) / (double) KEYS;
+            assertEquals(shares.get(node), keyShare, 0.03, node);
+        }
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToTheNewNode() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES, 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("node-1", "node-2", "node-3", "node-4"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "game-" + i;
+            String oldOwner = before.nodeFor(key);
+            String newOwner = after.nodeFor(key);
+            if (!oldOwner.equals(newOwner)) {
+                assertEquals("node-4", newOwner, key + " moved between existing nodes");
+                moved++;
+            }
+        }
+        // Khoảng 1/4 số khóa chuyển sang node mới
+        double fraction = moved / (double) KEYS;
+        assertTrue(fraction > 0.15 && fraction < 0.35, "moved " + fraction);
+    }
+
+    @Test
+    void emptyRingIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+    }
+
+    private static Map<String, Integer> countKeys(ConsistentHashRing ring) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor("game-" + i), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
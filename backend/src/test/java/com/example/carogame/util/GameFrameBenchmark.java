@@ -0,0 +1,93 @@
+package com.example.carogame.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.example.carogame.model.BitBoard;
+import com.example.carogame.model.BoardType;
+import com.example.carogame.model.GameEvent;
+import com.example.carogame.model.GameState;
+import com.example.carogame.model.Move;
+import com.example.carogame.model.Player;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * So sánh frame JSON (Jackson, như /topic/game/{gameId}) với frame nhị phân (GameFrameCodec,
+ * như /topic/game/{gameId}/bin): kích thước và số frame mã hóa được mỗi giây, cho một sự kiện
+ * nước đi và một snapshot bàn cờ. Mỗi trường hợp chạy warm-up rồi đo trên một luồng.
+ *
+ * Chạy: mvn test-compile, rồi
+ *       java -cp target/test-classes:target/classes:<classpath> com.example.carogame.util.GameFrameBenchmark
+ *       [seconds] [boardSize] [stones]
+ */
+public final class GameFrameBenchmark {
+
+    private GameFrameBenchmark() {}
+
+    private interface Encoder {
+        byte[] encode() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int stones = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        GameState game = buildGame(BoardType.fromSize(size), stones);
+        GameEvent event = GameEvent.moveApplied(game, new Move(size / 2, size / 2, "player-1", "X"));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        System.out.printf("%dx%d board, %d stones%n", game.getBoardSize(), game.getBoardSize(), stones);
+        run("event json", () -> objectMapper.writeValueAsBytes(event), seconds);
+        run("event binary", () -> GameFrameCodec.encode(event), seconds);
+        run("snapshot json", () -> objectMapper.writeValueAsBytes(game), seconds);
+        run("snapshot binary", () -> GameFrameCodec.encode(game), seconds);
+    }
+
+    private static GameState buildGame(BoardType boardType, int stones) {
+        GameState game = new GameState("bench-room", boardType);
+        List<Player> players = new ArrayList<>();
+        players.add(new Player("player-1", "Người chơi 1", "X", "1"));
+        players.add(new Player("player-2", "Người chơi 2", "O", "2"));
+        game.setPlayers(players);
+        game.setCurrentPlayer("player-2");
+
+        BitBoard board = game.getBitBoard();
+        int size = board.getSize();
+        Random random = new Random(42);
+        int placed = 0;
+        while (placed < Math.min(stones, size * size)) {
+            int row = random.nextInt(size);
+            int col = random.nextInt(size);
+            if (board.isEmpty(row, col)) {
+                board.place(row, col, placed % 2 == 0 ? BitBoard.X : BitBoard.O);
+                game.nextSeq();
+                placed++;
+            }
+        }
+        return game;
+    }
+
+    private static void run(String name, Encoder encoder, int seconds) throws Exception {
+        measure(encoder, 1); // warm-up
+        long[] result = measure(encoder, seconds);
+        long frames = result[0];
+        System.out.printf("%-16s %,7d bytes %,12d frames/s %,10.2f us/frame%n",
+                name, result[1], frames / seconds, seconds * 1e6 / frames);
+    }
+
+    // {số frame, kích thước frame}
+    private static long[] measure(Encoder encoder, int seconds) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long frames = 0;
+        int length = 0;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 1000; i++) {
+                length = encoder.encode().length;
+            }
+            frames += 1000;
+        }
+        return new long[] {frames, length};
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.carogame.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.carogame.model.BitBoard;
+import com.example.carogame.model.BoardType;
+import com.example.carogame.model.GameEvent;
+import com.example.carogame.model.GameState;
+import com.example.carogame.model.Move;
+import com.example.carogame.model.Player;
+
+class GameFrameCodecTest {
+
+    @Test
+    void moveEventRoundTrip() {
+        GameState game = newGame(BoardType.STANDARD);
+        game.getBitBoard().place(14, 0, BitBoard.X);
+        game.setSeq(300);   // varint nhiều byte
+        game.setCurrentPlayer("p2");
+
+        GameEvent event = GameEvent.moveApplied(game, new Move(14, 0, "p1", "X"));
+        GameEvent decoded = GameFrameCodec.decodeEvent(GameFrameCodec.encode(event));
+
+        assertEquals(GameEvent.Type.MOVE_APPLIED, decoded.getType());
+        assertEquals(300, decoded.getSeq());
+        assertEquals(14, decoded.getRow());
+        assertEquals(0, decoded.getCol());
+        assertEquals("X", decoded.getSymbol());
+        assertEquals("p2", decoded.getCurrentPlayer());
+        assertFalse(decoded.getGameOver());
+        assertNull(decoded.getWinner());
+        assertNull(decoded.getPlayers());
+    }
+
+    @Test
+    void gameOverEventRoundTrip() {
+        GameState game = newGame(BoardType.SMALL);
+        game.setSeq(9);
+        game.setGameOver(true);
+        game.setWinner("Người chơi 1");
+
+        GameEvent decoded = GameFrameCodec.decodeEvent(
+                GameFrameCodec.encode(GameEvent.moveApplied(game, new Move(9, 9, "p1", "O"))));
+
+        assertEquals(GameEvent.Type.GAME_OVER, decoded.getType());
+        assertTrue(decoded.getGameOver());
+        assertEquals("Người chơi 1", decoded.getWinner());
+        assertEquals("O", decoded.getSymbol());
+    }
+
+    @Test
+    void playerEventRoundTrip() {
+        GameState game = newGame(BoardType.STANDARD);
+        game.setSeq(2);
+
+        GameEvent decoded = GameFrameCodec.decodeEvent(GameFrameCodec.encode(GameEvent.playerJoined(game)));
+
+        assertEquals(GameEvent.Type.PLAYER_JOINED, decoded.getType());
+        assertNull(decoded.getRow());
+        assertEquals(2, decoded.getPlayers().size());
+        Player second = decoded.getPlayers().get(1);
+        assertEquals("p2", second.getId());
+        assertEquals("Bình", second.getName());
+        assertEquals("O", second.getSymbol());
+        assertNull(second.getUserId());
+        assertEquals("42", decoded.getPlayers().get(0).getUserId());
+    }
+
+    @Test
+    void snapshotRoundTrip() {
+        GameState game = newGame(BoardType.MASSIVE);
+        BitBoard board = game.getBitBoard();
+        // Các góc và một ô ở giữa, cả hai bên
+        board.place(0, 0, BitBoard.X);
+        board.place(0, 39, BitBoard.O);
+        board.place(39, 0, BitBoard.O);
+        board.place(39, 39, BitBoard.X);
+        board.place(20, 17, BitBoard.X);
+        game.setSeq(1L << 40);
+        game.setCurrentPlayer("p2");
+
+        GameState decoded = GameFrameCodec.decodeSnapshot(GameFrameCodec.encode(game));
+
+        assertEquals(BoardType.MASSIVE, decoded.getBoardType());
+        assertEquals(1L << 40, decoded.getSeq());
+        assertEquals("p2", decoded.getCurrentPlayer());
+        assertFalse(decoded.isGameOver());
+        assertEquals(2, decoded.getPlayers().size());
+        assertEquals(5, decoded.getBitBoard().getStoneCount());
+        assertArrayEquals(game.getBoard(), decoded.getBoard());
+    }
+
+    @Test
+    void snapshotCellCountNotMultipleOfFour() {
+        // 10x10 = 100 ô, 15x15 = 225 ô: byte cuối chỉ dùng một phần
+        GameState game = newGame(BoardType.STANDARD);
+        game.getBitBoard().place(14, 14, BitBoard.O);
+
+        GameState decoded = GameFrameCodec.decodeSnapshot(GameFrameCodec.encode(game));
+
+        assertEquals(BitBoard.O, decoded.getBitBoard().get(14, 14));
+        assertEquals(1, decoded.getBitBoard().getStoneCount());
+    }
+
+    @Test
+    void rejectsTruncatedAndWrongKindFrames() {
+        GameState game = newGame(BoardType.STANDARD);
+        byte[] snapshot = GameFrameCodec.encode(game);
+        byte[] truncated = Arrays.copyOf(snapshot, snapshot.length - 1);
+
+        assertThrows(IllegalArgumentException.class, () -> GameFrameCodec.decodeSnapshot(truncated));
+        assertThrows(IllegalArgumentException.class, () -> GameFrameCodec.decodeEvent(snapshot));
+    }
+
+    private static GameState newGame(BoardType boardType) {
+        GameState game = new GameState("room-1", boardType);
+        List<Player> players = new ArrayList<>();
+        players.add(new Player("p1", "An", "X", "42"));
+        players.add(new Player("p2", "Bình", "O"));
+        game.setPlayers(players);
+        game.setCurrentPlayer("p1");
+        return game;
+    }
+}
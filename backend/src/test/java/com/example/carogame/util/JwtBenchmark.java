@@ -0,0 +1,146 @@
+package com.example.carogame.util;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Đo số token/giây mà bộ lọc xác thực xử lý được:
+ *  - legacy:   tạo khóa + parser mỗi lần, parse 3 lần (username, rồi validateToken: username + hạn dùng)
+ *  - prebuilt: parser tạo sẵn, parse 1 lần, không cache
+ *  - lru:      parser tạo sẵn + cache LRU kiểu cũ (synchronizedMap, mỗi get đổi thứ tự dưới một khóa)
+ *  - cached:   JwtUtil.parseToken (parser tạo sẵn + cache ConcurrentHashMap)
+ * Mỗi chế độ chạy với 1, 2, 4, ... tới maxThreads luồng, warm-up rồi đo trên cùng một tập token
+ * (mặc định 1000 user khác nhau). Khóa ký được sinh ngẫu nhiên mỗi lần chạy.
+ *
+ * Chạy: mvn test-compile, rồi
+ *       java -cp target/test-classes:target/classes:<classpath> com.example.carogame.util.JwtBenchmark
+ *       [seconds] [distinctTokens] [maxThreads]
+ */
+public final class JwtBenchmark {
+
+    private static final String SECRET = randomSecret();
+
+    private JwtBenchmark() {}
+
+    private interface Verifier {
+        String verify(String token);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int distinct = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        JwtUtil jwtUtil = jwtUtil(10_000);
+        List<String> tokens = new ArrayList<>(distinct);
+        for (int i = 0; i < distinct; i++) {
+            UserDetails user = User.withUsername("user" + i).password("x").roles("USER").build();
+            tokens.add(jwtUtil.generateToken(user));
+        }
+        JwtUtil uncached = jwtUtil(0);
+        Map<String, Claims> lru = Collections.synchronizedMap(new LinkedHashMap<String, Claims>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > 10_000;
+            }
+        });
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            run("legacy", JwtBenchmark::legacyVerify, tokens, seconds, threads);
+            run("prebuilt", token -> uncached.parseToken(token).getSubject(), tokens, seconds, threads);
+            run("lru", token -> {
+                Claims claims = lru.get(token);
+                if (claims == null || !claims.getExpiration().after(new Date())) {
+                    claims = uncached.parseToken(token);
+                    lru.put(token, claims);
+                }
+                return claims.getSubject();
+            }, tokens, seconds, threads);
+            run("cached", token -> jwtUtil.parseToken(token).getSubject(), tokens, seconds, threads);
+        }
+    }
+
+    // JwtUtil như Spring tạo ra: @Value được gán rồi gọi @PostConstruct
+    private static JwtUtil jwtUtil(int cacheMaxEntries) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxEntries", cacheMaxEntries);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static String randomSecret() {
+        byte[] key = new byte[48];
+        new SecureRandom().nextBytes(key);
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+    // Đường cũ: extractUsername + validateToken (extractUsername + extractExpiration)
+    private static String legacyVerify(String token) {
+        String username = legacyClaims(token).getSubject();
+        boolean valid = username.equals(legacyClaims(token).getSubject())
+                && !legacyClaims(token).getExpiration().before(new Date());
+        return valid ? username : null;
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static void run(String name, Verifier verifier, List<String> tokens, int seconds, int threads)
+            throws InterruptedException {
+        measure(verifier, tokens, 1, threads); // warm-up
+        long[] counts = measure(verifier, tokens, seconds, threads);
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        System.out.printf("%-9s %,12d tokens/s (%d threads)%n", name, total / seconds, threads);
+    }
+
+    private static long[] measure(Verifier verifier, List<String> tokens, int seconds, int threads)
+            throws InterruptedException {
+        long[] counts = new long[threads];
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            Thread worker = new Thread(() -> {
+                long count = 0;
+                int i = index;
+                while (System.nanoTime() < deadline) {
+                    if (verifier.verify(tokens.get(i++ % tokens.size())) == null) {
+                        throw new IllegalStateException("Token rejected");
+                    }
+                    count++;
+                }
+                counts[index] = count;
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return counts;
+    }
+}
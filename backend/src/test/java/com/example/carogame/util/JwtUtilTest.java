@@ -0,0 +1,79 @@
+package com.example.carogame.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.ExpiredJwtException;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "testSecretKey123456789TestSecretKey123456789";
+    private static final int MAX_ENTRIES = 100;
+
+    @Test
+    void cacheStaysWithinBoundUnderConcurrentParsing() throws Exception {
+        JwtUtil jwtUtil = jwtUtil(3_600_000L);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < MAX_ENTRIES * 5; i++) {
+            tokens.add(jwtUtil.generateToken(User.withUsername("user" + i).password("x").roles("USER").build()));
+        }
+
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Void>> workers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t;
+                workers.add(CompletableFuture.runAsync(() -> {
+                    for (int round = 0; round < 3; round++) {
+                        for (int i = 0; i < tokens.size(); i++) {
+                            int index = (i + offset * 37) % tokens.size();
+                            assertEquals("user" + index, jwtUtil.parseToken(tokens.get(index)).getSubject());
+                        }
+                    }
+                }, threads));
+            }
+            for (CompletableFuture<Void> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        // Mỗi lúc chỉ một luồng dọn; các luồng thêm trong lúc đó có thể vượt giới hạn một chút
+        Map<?, ?> cache = (Map<?, ?>) ReflectionTestUtils.getField(jwtUtil, "verifiedTokens");
+        assertTrue(cache.size() <= MAX_ENTRIES + 8, "cache grew to " + cache.size());
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceExpired() throws InterruptedException {
+        // exp của JWT làm tròn xuống theo giây, nên hạn 2 s còn ít nhất 1 s lúc đọc lần đầu
+        JwtUtil jwtUtil = jwtUtil(2000L);
+        String token = jwtUtil.generateToken(User.withUsername("alice").password("x").roles("USER").build());
+        assertEquals("alice", jwtUtil.parseToken(token).getSubject());
+
+        Thread.sleep(2100);
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseToken(token));
+    }
+
+    private static JwtUtil jwtUtil(long expiration) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", expiration);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxEntries", MAX_ENTRIES);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
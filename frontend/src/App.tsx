@@ -217,6 +217,12 @@ function App() {
     }
   };
 
+  const addAiPlayer = () => {
+    if (webSocketService) {
+      webSocketService.addAiPlayer();
+    }
+  };
+
   const handleConnectButtonClick = () => {
     connectToGame();
   };
@@ -376,6 +382,11 @@ function App() {
             <button onClick={resetGame} className="reset-button">
               🔄 Chơi lại
             </button>
+            {gameState && gameState.players.length === 1 && (
+              <button onClick={addAiPlayer} className="reset-button">
+                🤖 Chơi với máy
+              </button>
+            )}
             <button onClick={leaveGame} className="disconnect-button">
               🚪 Thoát phòng
             </button>
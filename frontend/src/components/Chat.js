@@ -75,7 +75,8 @@ const Chat = ({ roomId, token }) => {
             // Check if message already exists to prevent duplicates
             const exists = prev.some(
               (msg) =>
-                msg.id === chatMessage.id ||
+                // Tin gửi lúc server chưa có id (DB không kết nối được) có id null
+                (chatMessage.id != null && msg.id === chatMessage.id) ||
                 (msg.content === chatMessage.content &&
                   msg.createdAt === chatMessage.createdAt &&
                   msg.sender?.username === chatMessage.sender?.username)
@@ -1,5 +1,6 @@
-import React, { useState, useEffect } from 'react';
-import { GameRoomInfo, GameRoomsResponse } from '../types/GameRoom';
+import React, { useState, useEffect, useRef, useCallback } from 'react';
+import { GameRoomInfo, GameRoomsResponse, LobbyChange } from '../types/GameRoom';
+import { subscribeToLobby } from '../services/LobbyService';
 import './GameRoomList.css';
 
 interface GameRoomListProps {
@@ -7,34 +8,103 @@ interface GameRoomListProps {
   onCreateRoom: () => void;
 }
 
+const PAGE_SIZE = 50;
+
+const mergeChanges = (current: GameRoomInfo[], changes: LobbyChange[]): GameRoomInfo[] => {
+  const byId = new Map(current.map((room) => [room.gameId, room]));
+  changes.forEach((change) => {
+    if (change.type === 'REMOVE') {
+      byId.delete(change.gameId);
+    } else if (change.room) {
+      byId.set(change.gameId, change.room);
+    }
+  });
+  return Array.from(byId.values());
+};
+
 const GameRoomList: React.FC<GameRoomListProps> = ({ onJoinRoom, onCreateRoom }) => {
   const [rooms, setRooms] = useState<GameRoomInfo[]>([]);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState<string | null>(null);
+  // Lobby changes that arrive while a page is loading are replayed on top of it afterwards,
+  // so a page fetched before a change cannot overwrite it
+  const pendingFetches = useRef(0);
+  const bufferedChanges = useRef<LobbyChange[]>([]);
+  // Bumped by every reload; a "load more" started before it is discarded
+  const generation = useRef(0);
+
+  const applyChanges = useCallback((changes: LobbyChange[]) => {
+    if (pendingFetches.current > 0) {
+      bufferedChanges.current.push(...changes);
+      return;
+    }
+    setRooms((current) => mergeChanges(current, changes));
+  }, []);
 
-  const fetchRooms = async () => {
+  const fetchPage = useCallback(async (
+    cursor: string | null,
+    apply: (current: GameRoomInfo[], page: GameRoomInfo[]) => GameRoomInfo[]
+  ) => {
+    const startedIn = generation.current;
+    pendingFetches.current++;
     try {
-      setLoading(true);
-      const response = await fetch('http://localhost:8080/api/games');
+      const query = cursor ? `?limit=${PAGE_SIZE}&cursor=${encodeURIComponent(cursor)}` : `?limit=${PAGE_SIZE}`;
+      const response = await fetch(`http://localhost:8080/api/games${query}`);
       if (!response.ok) {
         throw new Error('Không thể tải danh sách phòng');
       }
       const data: GameRoomsResponse = await response.json();
-      setRooms(data.games);
+      if (startedIn === generation.current) {
+        setRooms((current) => apply(current, data.games));
+        setNextCursor(data.nextCursor);
+      }
       setError(null);
+    } finally {
+      pendingFetches.current--;
+      if (pendingFetches.current === 0 && bufferedChanges.current.length > 0) {
+        const changes = bufferedChanges.current;
+        bufferedChanges.current = [];
+        setRooms((current) => mergeChanges(current, changes));
+      }
+    }
+  }, []);
+
+  // First page only; further pages on "load more", later changes arrive on /topic/lobby
+  const fetchRooms = useCallback(async () => {
+    generation.current++;
+    try {
+      setLoading(true);
+      await fetchPage(null, (_current, page) => page);
     } catch (err) {
       setError(err instanceof Error ? err.message : 'Lỗi không xác định');
     } finally {
       setLoading(false);
     }
+  }, [fetchPage]);
+
+  const loadMore = async () => {
+    if (!nextCursor || loadingMore) {
+      return;
+    }
+    try {
+      setLoadingMore(true);
+      await fetchPage(nextCursor, (current, page) =>
+        mergeChanges(current, page.map((room): LobbyChange => ({ type: 'UPSERT', gameId: room.gameId, room })))
+      );
+    } catch (err) {
+      setError(err instanceof Error ? err.message : 'Lỗi không xác định');
+    } finally {
+      setLoadingMore(false);
+    }
   };
 
   useEffect(() => {
-    fetchRooms();
-    // Auto refresh every 5 seconds
-    const interval = setInterval(fetchRooms, 5000);
-    return () => clearInterval(interval);
-  }, []);
+    // Load on every (re)connect only, so changes missed while disconnected are not lost
+    const unsubscribe = subscribeToLobby(applyChanges, fetchRooms);
+    return unsubscribe;
+  }, [applyChanges, fetchRooms]);
 
   const getStatusIcon = (status: string) => {
     switch (status) {
@@ -140,6 +210,14 @@ const GameRoomList: React.FC<GameRoomListProps> = ({ onJoinRoom, onCreateRoom })
           ))}
         </div>
       )}
+
+      {nextCursor && (
+        <div className="load-more">
+          <button onClick={loadMore} disabled={loadingMore} className="refresh-button">
+            {loadingMore ? '🔄 Đang tải...' : '⬇️ Tải thêm phòng'}
+          </button>
+        </div>
+      )}
     </div>
   );
 };
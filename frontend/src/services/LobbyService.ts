@@ -0,0 +1,28 @@
+import { Client } from '@stomp/stompjs';
+import SockJS from 'sockjs-client';
+import { LobbyChange } from '../types/GameRoom';
+
+// Subscribes to /topic/lobby and reports room list changes; returns a function that disconnects
+export function subscribeToLobby(
+  onChanges: (changes: LobbyChange[]) => void,
+  onConnect?: () => void
+): () => void {
+  const client = new Client({
+    webSocketFactory: () => new SockJS('http://localhost:8080/ws'),
+    onConnect: () => {
+      client.subscribe('/topic/lobby', (message) => {
+        onChanges(JSON.parse(message.body));
+      });
+      if (onConnect) {
+        onConnect();
+      }
+    },
+    onStompError: (frame) => {
+      console.error('Lobby STOMP error:', frame);
+    },
+  });
+  client.activate();
+  return () => {
+    client.deactivate();
+  };
+}
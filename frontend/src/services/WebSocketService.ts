@@ -1,6 +1,6 @@
 import { Client } from '@stomp/stompjs';
 import SockJS from 'sockjs-client';
-import { GameState, Move, Player } from '../types/Game';
+import { GameEvent, GameSnapshot, GameState, Move, Player } from '../types/Game';
 
 export class WebSocketService {
   private client: Client;
@@ -10,6 +10,10 @@ export class WebSocketService {
   private onPlayerLeft?: (playerId: string) => void;
   private isConnected: boolean = false;
   private pendingActions: (() => void)[] = [];
+  private gameState: GameState | null = null;
+  private resyncing: boolean = false;
+  // Events received while a snapshot is loading, replayed on top of it
+  private bufferedEvents: GameEvent[] = [];
 
   constructor(
     gameId: string,
@@ -66,10 +70,10 @@ export class WebSocketService {
   }
 
   private subscribeToGame(): void {
-    // Subscribe to game state updates
+    // Subscribe to game events (deltas)
     this.client.subscribe(`/topic/game/${this.gameId}`, (message) => {
-      const gameState: GameState = JSON.parse(message.body);
-      this.onGameStateUpdate(gameState);
+      const event: GameEvent = JSON.parse(message.body);
+      this.applyEvent(event);
     });
 
     // Subscribe to room deletion events
@@ -90,6 +94,106 @@ export class WebSocketService {
     });
   }
 
+  private applyEvent(event: GameEvent): void {
+    if (this.resyncing) {
+      this.bufferedEvents.push(event);
+      return;
+    }
+    const state = this.gameState;
+    if (state && event.seq <= state.seq) {
+      return;
+    }
+    // Missing state or a gap in the sequence: reload the full snapshot
+    if (!state || event.seq !== state.seq + 1) {
+      this.resync();
+      return;
+    }
+
+    const next: GameState = {
+      ...state,
+      seq: event.seq,
+      currentPlayer: event.currentPlayer ?? state.currentPlayer,
+      gameOver: event.gameOver ?? state.gameOver,
+      winner: event.winner ?? null,
+    };
+
+    switch (event.type) {
+      case 'MOVE_APPLIED':
+      case 'GAME_OVER':
+        next.board = state.board.map((row) => row.slice());
+        next.board[event.row!][event.col!] = event.symbol!;
+        break;
+      case 'GAME_RESET':
+        next.board = state.board.map((row) => row.map(() => null));
+        break;
+      case 'PLAYER_JOINED':
+      case 'PLAYER_LEFT':
+        next.players = event.players ?? state.players;
+        break;
+    }
+
+    this.setState(next);
+  }
+
+  private async resync(): Promise<void> {
+    this.resyncing = true;
+    let loaded = false;
+    try {
+      const token = localStorage.getItem('token');
+      const response = await fetch(`http://localhost:8080/api/game/${this.gameId}?board=sparse`, {
+        headers: token ? { Authorization: `Bearer ${token}` } : {},
+      });
+      if (response.ok) {
+        const text = await response.text();
+        if (text) {
+          this.setState(WebSocketService.fromSnapshot(JSON.parse(text)));
+          loaded = true;
+        }
+      }
+    } catch (error) {
+      console.error('Failed to load game snapshot:', error);
+    } finally {
+      this.resyncing = false;
+      const buffered = this.bufferedEvents;
+      this.bufferedEvents = [];
+      // Replay events newer than the snapshot; without a snapshot the next event triggers another resync
+      if (loaded) {
+        const snapshotSeq = this.gameState!.seq;
+        buffered
+          .filter((event) => event.seq > snapshotSeq)
+          .sort((a, b) => a.seq - b.seq)
+          .forEach((event) => this.applyEvent(event));
+      }
+    }
+  }
+
+  // Expand the sparse snapshot (flat [row, col, ...] arrays per side) into the dense board
+  private static fromSnapshot(snapshot: GameSnapshot): GameState {
+    const board: (string | null)[][] = Array.from({ length: snapshot.boardSize }, () =>
+      Array(snapshot.boardSize).fill(null)
+    );
+    for (let i = 0; i < snapshot.x.length; i += 2) {
+      board[snapshot.x[i]][snapshot.x[i + 1]] = 'X';
+    }
+    for (let i = 0; i < snapshot.o.length; i += 2) {
+      board[snapshot.o[i]][snapshot.o[i + 1]] = 'O';
+    }
+    return {
+      board,
+      currentPlayer: snapshot.currentPlayer,
+      gameOver: snapshot.gameOver,
+      winner: snapshot.winner,
+      players: snapshot.players,
+      gameId: snapshot.gameId,
+      seq: snapshot.seq,
+    };
+  }
+
+  private setState(gameState: GameState): void {
+    this.gameState = gameState;
+    this.onGameStateUpdate(gameState);
+  }
+
   joinGame(player: Player): void {
     this.executeWhenConnected(() => {
       this.client.publish({
@@ -117,6 +221,15 @@ export class WebSocketService {
     });
   }
 
+  addAiPlayer(): void {
+    this.executeWhenConnected(() => {
+      this.client.publish({
+        destination: `/app/game/${this.gameId}/add-ai`,
+        body: JSON.stringify({}),
+      });
+    });
+  }
+
   leaveGame(player: Player): void {
     this.executeWhenConnected(() => {
       this.client.publish({
@@ -19,4 +19,33 @@ export interface GameState {
   winner: string | null;
   players: Player[];
   gameId: string;
+  seq: number;
+}
+
+export interface GameSnapshot {
+  gameId: string;
+  boardSize: number;
+  seq: number;
+  currentPlayer: string;
+  gameOver: boolean;
+  winner: string | null;
+  players: Player[];
+  x: number[];
+  o: number[];
+}
+
+export type GameEventType = 'PLAYER_JOINED' | 'PLAYER_LEFT' | 'MOVE_APPLIED' | 'GAME_OVER' | 'GAME_RESET';
+
+export interface GameEvent {
+  gameId: string;
+  seq: number;
+  type: GameEventType;
+  row?: number;
+  col?: number;
+  symbol?: 'X' | 'O';
+  playerId?: string;
+  currentPlayer?: string;
+  gameOver?: boolean;
+  winner?: string | null;
+  players?: Player[];
 }
@@ -12,4 +12,11 @@ export interface GameRoomInfo {
 export interface GameRoomsResponse {
   games: GameRoomInfo[];
   totalGames: number;
+  nextCursor: string | null;
+}
+
+export interface LobbyChange {
+  type: 'UPSERT' | 'REMOVE';
+  gameId: string;
+  room?: GameRoomInfo;
 }